@@ -2,6 +2,7 @@ plugins {
 	java
 	id("org.springframework.boot") version "3.4.3"
 	id("io.spring.dependency-management") version "1.1.7"
+	id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "com.pii"
@@ -17,12 +18,33 @@ repositories {
 	mavenCentral()
 }
 
+// нагрузочный тест REST API, запуск: ./gradlew loadTest
+val loadTest: SourceSet by sourceSets.creating {
+	compileClasspath += sourceSets.main.get().output
+	runtimeClasspath += sourceSets.main.get().output
+}
+
+configurations[loadTest.implementationConfigurationName].extendsFrom(configurations.implementation.get())
+configurations[loadTest.runtimeOnlyConfigurationName].extendsFrom(configurations.runtimeOnly.get())
+
 dependencies {
 	implementation("org.springframework.boot:spring-boot-starter-data-jpa")
 	implementation("org.springframework.boot:spring-boot-starter-security")
 	implementation("org.springframework.boot:spring-boot-starter-web")
+	implementation("org.springframework.boot:spring-boot-starter-actuator")
+	implementation("org.hibernate.orm:hibernate-micrometer")
+	implementation("org.flywaydb:flyway-core")
+	implementation("org.flywaydb:flyway-database-postgresql")
+
+	implementation("com.github.ben-manes.caffeine:caffeine")
+	// кэш второго уровня Hibernate на Caffeine через JCache
+	implementation("org.hibernate.orm:hibernate-jcache")
+	implementation("com.github.ben-manes.caffeine:jcache")
+	// Argon2PasswordEncoder
+	implementation("org.bouncycastle:bcprov-jdk18on:1.80")
 
 	runtimeOnly("org.postgresql:postgresql")
+	runtimeOnly("io.micrometer:micrometer-registry-prometheus")
 
 	implementation("org.springdoc:springdoc-openapi-starter-webmvc-ui:2.8.5")
 
@@ -34,8 +56,35 @@ dependencies {
 	testImplementation("com.h2database:h2")
 	testImplementation("org.springframework.security:spring-security-test")
 	testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+
+	jmh("com.h2database:h2")
+
+	"loadTestImplementation"("org.hdrhistogram:HdrHistogram:2.2.2")
+	"loadTestRuntimeOnly"("com.h2database:h2")
 }
 
 tasks.withType<Test> {
 	useJUnitPlatform()
 }
+
+tasks.register<JavaExec>("loadTest") {
+	group = "verification"
+	description = "Нагрузочный тест REST API с гистограммами задержек, параметры -PloadTest.*"
+	classpath = loadTest.runtimeClasspath
+	mainClass = "com.pii.library_app.loadtest.LoadTestRunner"
+	systemProperty("loadTest.reportDir", layout.buildDirectory.dir("reports/loadtest").get().asFile.path)
+	systemProperties(project.properties
+		.filterKeys { it.startsWith("loadTest.") }
+		.mapValues { it.value.toString() })
+}
+
+jmh {
+	warmupIterations = 2
+	iterations = 5
+	fork = 1
+	resultFormat = "JSON"
+	// результаты по версии приложения, чтобы сравнивать релизы
+	resultsFile = layout.buildDirectory.file("results/jmh/results-${project.version}.json")
+	// ./gradlew jmh -PjmhIncludes=JwtUtilBenchmark - запуск части бенчмарков
+	(findProperty("jmhIncludes") as String?)?.let { includes = listOf(it) }
+}
@@ -0,0 +1,35 @@
+package com.pii.library_app;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Запуск приложения для бенчмарков на встроенной H2 вместо PostgreSQL.
+ */
+public final class BenchmarkContext {
+
+    private static final String SECRET = "Y/aQcRmTIvybqtIqEfR4KhpqzlKQit+/Yi6igVW1dLg=";
+
+    private BenchmarkContext() {
+    }
+
+    public static ConfigurableApplicationContext start(String databaseName, Map<String, Object> properties) {
+        var defaults = new HashMap<String, Object>();
+        defaults.put("server.port", 0);
+        defaults.put("JWT_SECRET_KEY", SECRET);
+        defaults.put("spring.datasource.url", "jdbc:h2:mem:" + databaseName + ";DB_CLOSE_DELAY=-1");
+        defaults.put("spring.datasource.username", "sa");
+        defaults.put("spring.datasource.password", "");
+        defaults.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+        defaults.put("spring.flyway.enabled", false);
+        defaults.put("spring.jpa.show-sql", false);
+        defaults.put("logging.level.root", "WARN");
+        defaults.putAll(properties);
+        return new SpringApplicationBuilder(LibraryAppApplication.class)
+                .properties(defaults)
+                .run();
+    }
+}
@@ -0,0 +1,83 @@
+package com.pii.library_app.book.dto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pii.library_app.book.model.Book;
+import com.pii.library_app.book.model.BorrowedBook;
+import com.pii.library_app.book.model.Genre;
+import com.pii.library_app.user.model.Role;
+import com.pii.library_app.user.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Преобразование книг и бронирований в DTO ответа и сериализация страницы поиска тем же
+ * ObjectMapper, что собирает Spring Boot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BookDtoBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    private Book book;
+    private BorrowedBook borrowedBook;
+    private BorrowedBook returnedBook;
+    private SearchBookResponseDto searchPage;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() {
+        var user = new User("benchmark", "encodedPassword", Set.of(Role.USER));
+        user.setId(1L);
+        book = new Book("1984", "George Orwell", Genre.DYSTOPIAN);
+        book.setId(1L);
+
+        borrowedBook = new BorrowedBook(user, book, LocalDateTime.of(2025, 3, 20, 12, 0));
+        borrowedBook.setId(1L);
+        returnedBook = new BorrowedBook(user, book, LocalDateTime.of(2025, 3, 20, 12, 0));
+        returnedBook.setId(2L);
+        returnedBook.setReturnedAt(LocalDateTime.of(2025, 3, 27, 12, 0));
+
+        var books = new ArrayList<BookDto>(PAGE_SIZE);
+        for (int i = 1; i <= PAGE_SIZE; i++) {
+            var pageBook = new Book("Book title " + i, "Author " + i, Genre.values()[i % Genre.values().length], 2);
+            pageBook.setId((long) i);
+            books.add(BookDto.fromEntity(pageBook));
+        }
+        searchPage = new SearchBookResponseDto(books, 10_000L, (long) PAGE_SIZE);
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    @Benchmark
+    public BookDto bookDto() {
+        return BookDto.fromEntity(book);
+    }
+
+    @Benchmark
+    public BorrowedBookDto borrowedBookDto() {
+        return BorrowedBookDto.fromEntity(borrowedBook);
+    }
+
+    @Benchmark
+    public ReturnedBookDto returnedBookDto() {
+        return ReturnedBookDto.fromEntity(returnedBook);
+    }
+
+    @Benchmark
+    public byte[] serializeSearchPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(searchPage);
+    }
+}
@@ -0,0 +1,75 @@
+package com.pii.library_app.book.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pii.library_app.book.dto.BookExportFormat;
+import com.pii.library_app.book.model.Genre;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность выгрузки каталога из 1 млн книг (H2 в памяти) в поток без хранения результата.
+ * Результат в книгах в секунду.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@OperationsPerInvocation(BookExportBenchmark.ROWS)
+public class BookExportBenchmark {
+
+    static final int ROWS = 1_000_000;
+
+    @Param({"NDJSON", "CSV"})
+    private BookExportFormat format;
+
+    private DriverManagerDataSource dataSource;
+    private BookExportService exportService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:export;DB_CLOSE_DELAY=-1", "sa", "");
+        var jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE books (id BIGINT PRIMARY KEY, title VARCHAR(255) NOT NULL, "
+                + "author VARCHAR(255) NOT NULL, genre VARCHAR(32) NOT NULL, available BOOLEAN NOT NULL)");
+        var genres = Genre.values();
+        var batch = new ArrayList<Object[]>(10_000);
+        for (int i = 1; i <= ROWS; i++) {
+            batch.add(new Object[]{(long) i, "Book title " + i, "Author " + (i % 5_000), genres[i % genres.length].name(), i % 3 != 0});
+            if (batch.size() == 10_000) {
+                jdbcTemplate.batchUpdate("INSERT INTO books VALUES (?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+        exportService = new BookExportService(dataSource, new DataSourceTransactionManager(dataSource), new ObjectMapper(), 1000);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        new JdbcTemplate(dataSource).execute("DROP TABLE books");
+    }
+
+    @Benchmark
+    public long export() throws IOException {
+        return exportService.export(format, OutputStream.nullOutputStream());
+    }
+}
@@ -0,0 +1,86 @@
+package com.pii.library_app.book.service;
+
+import com.pii.library_app.BenchmarkContext;
+import com.pii.library_app.book.dto.BookPageRequest;
+import com.pii.library_app.book.dto.SearchBookFilterDto;
+import com.pii.library_app.book.dto.SearchBookResponseDto;
+import com.pii.library_app.book.dto.SearchCountMode;
+import com.pii.library_app.book.model.Book;
+import com.pii.library_app.book.model.Genre;
+import com.pii.library_app.book.repo.BookRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск книг через спецификации JPA (каталог в памяти и кэш страниц отключены, фильтр без текста) на H2:
+ * построение спецификации, запрос страницы и подсчет количества.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BookSearchBenchmark {
+
+    private static final int BOOKS = 10_000;
+
+    @Param({"EXACT", "NONE"})
+    private SearchCountMode countMode;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private SearchBookFilterDto filter;
+    private BookPageRequest firstPage;
+    private BookPageRequest nextPage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("search", Map.of(
+                "library.books.catalogue.enabled", false,
+                "library.books.search.cache.enabled", false
+        ));
+        bookService = context.getBean(BookService.class);
+
+        var bookRepository = context.getBean(BookRepository.class);
+        var genres = Genre.values();
+        var batch = new ArrayList<Book>(1_000);
+        for (int i = 1; i <= BOOKS; i++) {
+            batch.add(new Book("Book title " + i, "Author " + (i % 500), genres[i % genres.length], 1 + i % 3));
+            if (batch.size() == 1_000) {
+                bookRepository.saveAll(batch);
+                batch.clear();
+            }
+        }
+
+        filter = new SearchBookFilterDto(null, null, Genre.DYSTOPIAN, true);
+        firstPage = new BookPageRequest(null, 20, countMode);
+        SearchBookResponseDto first = bookService.searchBooks(filter, firstPage);
+        nextPage = new BookPageRequest(first.nextCursor(), 20, countMode);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public SearchBookResponseDto firstPage() {
+        return bookService.searchBooks(filter, firstPage);
+    }
+
+    @Benchmark
+    public SearchBookResponseDto pageAfterCursor() {
+        return bookService.searchBooks(filter, nextPage);
+    }
+}
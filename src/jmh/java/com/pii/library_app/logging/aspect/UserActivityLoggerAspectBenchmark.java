@@ -0,0 +1,69 @@
+package com.pii.library_app.logging.aspect;
+
+import com.pii.library_app.BenchmarkContext;
+import com.pii.library_app.logging.controller.UserActivityLogController;
+import com.pii.library_app.logging.writer.ActivityLogWriterStats;
+import com.pii.library_app.security.AuthenticatedUser;
+import com.pii.library_app.user.model.Role;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Накладные расходы аспекта лога активности: вызов дешевого метода контроллера через прокси
+ * с аспектом и напрямую. Записи лога уходят в фоновую запись в H2.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UserActivityLoggerAspectBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private UserActivityLogController proxied;
+    private UserActivityLogController target;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("aspect", Map.of());
+        proxied = context.getBean(UserActivityLogController.class);
+        target = (UserActivityLogController) AopProxyUtils.getSingletonTarget(proxied);
+
+        // контекст безопасности общий для потоков JMH, пользователь уже восстановлен из JWT
+        SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+        var principal = new AuthenticatedUser(1L, "benchmark", Set.of(Role.ADMIN), "token-id");
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                principal, null, List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+        context.close();
+    }
+
+    @Benchmark
+    public ActivityLogWriterStats withAspect() {
+        return proxied.getWriterStats();
+    }
+
+    @Benchmark
+    public ActivityLogWriterStats withoutAspect() {
+        return target.getWriterStats();
+    }
+}
@@ -0,0 +1,88 @@
+package com.pii.library_app.security.jwt;
+
+import com.pii.library_app.user.model.Role;
+import com.pii.library_app.user.model.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.crypto.SecretKey;
+import java.util.Base64;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнивает прежнюю проверку токена (validateToken + extractUsername, каждый раз с новым парсером)
+ * с однократным разбором и разбором через кэш проверенных токенов. Отдельно измеряются
+ * выпуск токена и публичные методы проверки без кэша.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtUtilBenchmark {
+
+    private static final String SECRET = "Y/aQcRmTIvybqtIqEfR4KhpqzlKQit+/Yi6igVW1dLg=";
+
+    private SecretKey key;
+    private JwtUtil uncached;
+    private JwtUtil cached;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        key = Keys.hmacShaKeyFor(Base64.getDecoder().decode(SECRET));
+        uncached = new JwtUtil(SECRET, 0);
+        cached = new JwtUtil(SECRET, 10_000);
+        user = new User("benchmark", "encodedPassword", Set.of(Role.USER));
+        user.setId(1L);
+        token = uncached.generateToken(user);
+    }
+
+    @Benchmark
+    public void legacyDoubleParse(Blackhole blackhole) {
+        blackhole.consume(legacyParse(token));
+        blackhole.consume(legacyParse(token).getSubject());
+    }
+
+    @Benchmark
+    public JwtClaims singleParse() {
+        return uncached.parseToken(token);
+    }
+
+    @Benchmark
+    public JwtClaims cachedParse() {
+        return cached.parseToken(token);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return uncached.generateToken(user);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return uncached.validateToken(token);
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return uncached.extractUsername(token);
+    }
+
+    private Claims legacyParse(String jwt) {
+        return Jwts.parser()
+                .setSigningKey(key)
+                .build()
+                .parseClaimsJws(jwt)
+                .getBody();
+    }
+}
@@ -0,0 +1,22 @@
+package com.pii.library_app.loadtest;
+
+/**
+ * Операции нагрузочного теста.
+ */
+public enum Endpoint {
+
+    LOGIN("POST /api/auth/login"),
+    SEARCH("POST /books/search"),
+    BORROW("POST /books/{id}/borrow"),
+    RETURN("POST /books/{id}/return");
+
+    private final String label;
+
+    Endpoint(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
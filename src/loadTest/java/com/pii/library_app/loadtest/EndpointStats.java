@@ -0,0 +1,63 @@
+package com.pii.library_app.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Задержки и исходы запросов одной операции. Запись из потоков виртуальных пользователей
+ * идет без блокировок, снимок берется один раз в конце прогона.
+ */
+public class EndpointStats {
+
+    // задержки в микросекундах до 1 минуты с точностью 3 значащих цифры
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final Recorder recorder = new Recorder(MAX_LATENCY_MICROS, 3);
+    private final LongAdder ok = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    /**
+     * @param status HTTP-статус ответа или {@code -1}, если ответа не было
+     */
+    public void record(long latencyNanos, int status) {
+        recorder.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), MAX_LATENCY_MICROS));
+        if (status >= 200 && status < 300) {
+            ok.increment();
+        } else if (status == 409) {
+            // книга разобрана - ожидаемый исход при конкуренции за популярные книги
+            conflicts.increment();
+        } else {
+            errors.increment();
+        }
+    }
+
+    /**
+     * Сбрасывает накопленное за прогрев.
+     */
+    public void reset() {
+        recorder.reset();
+        ok.reset();
+        conflicts.reset();
+        errors.reset();
+    }
+
+    public Histogram snapshot() {
+        return recorder.getIntervalHistogram();
+    }
+
+    public long ok() {
+        return ok.sum();
+    }
+
+    public long conflicts() {
+        return conflicts.sum();
+    }
+
+    public long errors() {
+        return errors.sum();
+    }
+}
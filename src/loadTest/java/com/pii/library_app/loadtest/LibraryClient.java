@@ -0,0 +1,99 @@
+package com.pii.library_app.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * HTTP-клиент REST API библиотеки для нагрузочного теста.
+ */
+public class LibraryClient {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final String baseUrl;
+
+    public LibraryClient(HttpClient httpClient, ObjectMapper objectMapper, String baseUrl) {
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+    }
+
+    public Response register(String username, String password) throws IOException, InterruptedException {
+        return post("/api/auth/register", null, Map.of("username", username, "password", password));
+    }
+
+    public Response login(String username, String password) throws IOException, InterruptedException {
+        return post("/api/auth/login", null, Map.of("username", username, "password", password));
+    }
+
+    public Response search(String token, Map<String, Object> filter, int size) throws IOException, InterruptedException {
+        return search(token, filter, size, "");
+    }
+
+    /**
+     * @param query дополнительные параметры запроса, например {@code &cursor=100}
+     */
+    public Response search(String token, Map<String, Object> filter, int size, String query)
+            throws IOException, InterruptedException {
+        return post("/books/search?count=NONE&size=" + size + query, token, filter);
+    }
+
+    public Response borrow(String token, long bookId) throws IOException, InterruptedException {
+        return post("/books/" + bookId + "/borrow", token, null);
+    }
+
+    public Response giveBack(String token, long bookId) throws IOException, InterruptedException {
+        return post("/books/" + bookId + "/return", token, null);
+    }
+
+    public Response createBook(String token, Map<String, Object> book) throws IOException, InterruptedException {
+        return post("/books", token, book);
+    }
+
+    private Response post(String path, String token, Object body) throws IOException, InterruptedException {
+        var request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(body == null
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        var response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        return new Response(response.statusCode(), response.body());
+    }
+
+    public class Response {
+
+        private final int status;
+        private final byte[] body;
+
+        Response(int status, byte[] body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        public int status() {
+            return status;
+        }
+
+        public boolean isOk() {
+            return status >= 200 && status < 300;
+        }
+
+        public JsonNode json() throws IOException {
+            return objectMapper.readTree(body);
+        }
+    }
+}
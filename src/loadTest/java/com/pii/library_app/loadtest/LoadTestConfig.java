@@ -0,0 +1,94 @@
+package com.pii.library_app.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Параметры нагрузочного теста из системных свойств {@code loadTest.*}
+ * (в Gradle передаются как {@code -PloadTest.users=50}).
+ *
+ * @param baseUrl      адрес запущенного приложения; пустой - приложение запускается в процессе теста
+ * @param database     БД приложения в процессе теста: {@code h2} или {@code postgres} (настройки из application.yaml)
+ * @param mix          доли операций, например {@code login=5,search=70,borrow=15,return=10}
+ * @param hotBookShare доля выдач, приходящаяся на {@code hotBooks} самых популярных книг
+ * @param baseline     отчет прошлого прогона для сравнения или {@code null}
+ * @param tolerance    допустимое ухудшение p99 и пропускной способности относительно baseline
+ * @param threadMode   потоки приложения в процессе теста: {@code default} (из application.yaml),
+ *                     {@code platform}, {@code virtual} или {@code compare} - два прогона подряд со сравнением
+ */
+public record LoadTestConfig(
+        String baseUrl,
+        String database,
+        int users,
+        Duration warmup,
+        Duration duration,
+        Map<Endpoint, Integer> mix,
+        int books,
+        int hotBooks,
+        double hotBookShare,
+        Duration thinkTime,
+        String adminUsername,
+        String adminPassword,
+        Path reportDir,
+        Path baseline,
+        double tolerance,
+        double maxErrorRate,
+        String threadMode
+) {
+
+    public static final String THREAD_MODE_COMPARE = "compare";
+
+    public static LoadTestConfig fromSystemProperties() {
+        var baseline = property("baseline", "");
+        return new LoadTestConfig(
+                property("baseUrl", ""),
+                property("database", "h2").toLowerCase(Locale.ROOT),
+                Integer.parseInt(property("users", "32")),
+                Duration.ofSeconds(Long.parseLong(property("warmupSeconds", "10"))),
+                Duration.ofSeconds(Long.parseLong(property("durationSeconds", "60"))),
+                parseMix(property("mix", "login=5,search=70,borrow=15,return=10")),
+                Integer.parseInt(property("books", "1000")),
+                Integer.parseInt(property("hotBooks", "10")),
+                Double.parseDouble(property("hotBookShare", "0.2")),
+                Duration.ofMillis(Long.parseLong(property("thinkTimeMs", "0"))),
+                property("adminUsername", ""),
+                property("adminPassword", ""),
+                Path.of(property("reportDir", "build/reports/loadtest")),
+                baseline.isBlank() ? null : Path.of(baseline),
+                Double.parseDouble(property("tolerance", "0.2")),
+                Double.parseDouble(property("maxErrorRate", "0.01")),
+                property("threadMode", "default").toLowerCase(Locale.ROOT)
+        );
+    }
+
+    public boolean inProcess() {
+        return baseUrl.isBlank();
+    }
+
+    /**
+     * Параметры одного прогона из серии: свой режим потоков и свой каталог отчета.
+     */
+    public LoadTestConfig withThreadMode(String mode) {
+        return new LoadTestConfig(baseUrl, database, users, warmup, duration, mix, books, hotBooks, hotBookShare,
+                thinkTime, adminUsername, adminPassword, reportDir.resolve(mode), baseline, tolerance, maxErrorRate, mode);
+    }
+
+    private static String property(String name, String defaultValue) {
+        return System.getProperty("loadTest." + name, defaultValue);
+    }
+
+    private static Map<Endpoint, Integer> parseMix(String value) {
+        var mix = new EnumMap<Endpoint, Integer>(Endpoint.class);
+        for (String part : value.split(",")) {
+            var entry = part.split("=");
+            if (entry.length != 2) {
+                throw new IllegalArgumentException("Некорректная доля операции в loadTest.mix: " + part);
+            }
+            mix.put(Endpoint.valueOf(entry[0].strip().toUpperCase(Locale.ROOT)), Integer.parseInt(entry[1].strip()));
+        }
+        return mix;
+    }
+}
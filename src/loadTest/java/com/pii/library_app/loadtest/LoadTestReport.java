@@ -0,0 +1,179 @@
+package com.pii.library_app.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Итоги прогона: сводка по операциям, JSON-отчет для сравнения между релизами
+ * и распределения задержек HdrHistogram (.hgrm) для построения графиков.
+ */
+public class LoadTestReport {
+
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private final Map<Endpoint, EndpointResult> results;
+    private final Duration measured;
+    private final int users;
+    private final Instant finishedAt = Instant.now();
+
+    public LoadTestReport(Map<Endpoint, EndpointStats> stats, Duration measured, int users) {
+        this.measured = measured;
+        this.users = users;
+        this.results = new LinkedHashMap<>();
+        stats.forEach((endpoint, endpointStats) -> {
+            var histogram = endpointStats.snapshot();
+            if (histogram.getTotalCount() > 0) {
+                results.put(endpoint, new EndpointResult(endpointStats, histogram, measured));
+            }
+        });
+    }
+
+    public void print(PrintStream out) {
+        out.printf(Locale.ROOT, "%n%-26s %9s %10s %8s %8s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "req/s", "errors", "409", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        results.forEach((endpoint, result) -> out.printf(Locale.ROOT,
+                "%-26s %9d %10.1f %8d %8d %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                endpoint.getLabel(), result.requests, result.throughput, result.errors, result.conflicts,
+                result.p50, result.p90, result.p99, result.p999, result.max));
+        out.println();
+    }
+
+    /**
+     * Сравнение прогонов одной нагрузки в разных режимах: пропускная способность, ошибки и p99 по операциям.
+     */
+    public static void printComparison(Map<String, LoadTestReport> reports, PrintStream out) {
+        out.printf(Locale.ROOT, "%n%-26s %-10s %10s %8s %9s %9s%n", "endpoint", "mode", "req/s", "errors", "p99 ms", "max ms");
+        for (Endpoint endpoint : Endpoint.values()) {
+            reports.forEach((mode, report) -> {
+                var result = report.results.get(endpoint);
+                if (result != null) {
+                    out.printf(Locale.ROOT, "%-26s %-10s %10.1f %8d %9.2f %9.2f%n",
+                            endpoint.getLabel(), mode, result.throughput, result.errors, result.p99, result.max);
+                }
+            });
+        }
+        reports.forEach((mode, report) -> out.printf(Locale.ROOT, "%-26s %-10s %10.1f%n",
+                "total", mode, report.results.values().stream().mapToDouble(result -> result.throughput).sum()));
+        out.println();
+    }
+
+    public Path write(Path dir, ObjectMapper objectMapper) throws IOException {
+        Files.createDirectories(dir);
+        for (var entry : results.entrySet()) {
+            var name = entry.getKey().name().toLowerCase(Locale.ROOT);
+            try (var out = new PrintStream(Files.newOutputStream(dir.resolve(name + ".hgrm")))) {
+                entry.getValue().histogram.outputPercentileDistribution(out, MICROS_PER_MILLI);
+            }
+        }
+        var report = new LinkedHashMap<String, Object>();
+        report.put("finishedAt", finishedAt.toString());
+        report.put("durationSeconds", measured.toSeconds());
+        report.put("users", users);
+        var endpoints = new LinkedHashMap<String, Object>();
+        results.forEach((endpoint, result) -> endpoints.put(endpoint.name(), result.toMap()));
+        report.put("endpoints", endpoints);
+
+        var file = dir.resolve("report.json");
+        objectMapper.writer(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), report);
+        return file;
+    }
+
+    /**
+     * Проверка прогона: доля ошибок не выше {@code maxErrorRate}, а при наличии baseline -
+     * p99 и пропускная способность не хуже прошлого прогона больше чем на {@code tolerance}.
+     *
+     * @return найденные нарушения, пустой список - проверка пройдена
+     */
+    public List<String> check(LoadTestConfig config, ObjectMapper objectMapper) throws IOException {
+        var violations = new ArrayList<String>();
+        results.forEach((endpoint, result) -> {
+            var errorRate = (double) result.errors / result.requests;
+            if (errorRate > config.maxErrorRate()) {
+                violations.add(String.format(Locale.ROOT, "%s: доля ошибок %.4f больше допустимой %.4f",
+                        endpoint.getLabel(), errorRate, config.maxErrorRate()));
+            }
+        });
+        if (config.baseline() == null) {
+            return violations;
+        }
+        JsonNode baseline = objectMapper.readTree(config.baseline().toFile()).path("endpoints");
+        results.forEach((endpoint, result) -> {
+            var previous = baseline.path(endpoint.name());
+            if (previous.isMissingNode()) {
+                return;
+            }
+            var previousP99 = previous.path("p99Ms").asDouble();
+            if (result.p99 > previousP99 * (1 + config.tolerance())) {
+                violations.add(String.format(Locale.ROOT, "%s: p99 %.2f мс, в baseline %.2f мс",
+                        endpoint.getLabel(), result.p99, previousP99));
+            }
+            var previousThroughput = previous.path("throughput").asDouble();
+            if (result.throughput < previousThroughput * (1 - config.tolerance())) {
+                violations.add(String.format(Locale.ROOT, "%s: %.1f запросов/с, в baseline %.1f",
+                        endpoint.getLabel(), result.throughput, previousThroughput));
+            }
+        });
+        return violations;
+    }
+
+    private static final class EndpointResult {
+
+        private final Histogram histogram;
+        private final long requests;
+        private final long ok;
+        private final long conflicts;
+        private final long errors;
+        private final double throughput;
+        private final double mean;
+        private final double p50;
+        private final double p90;
+        private final double p99;
+        private final double p999;
+        private final double max;
+
+        EndpointResult(EndpointStats stats, Histogram histogram, Duration measured) {
+            this.histogram = histogram;
+            this.requests = histogram.getTotalCount();
+            this.ok = stats.ok();
+            this.conflicts = stats.conflicts();
+            this.errors = stats.errors();
+            this.throughput = requests / (measured.toMillis() / 1000.0);
+            this.mean = histogram.getMean() / MICROS_PER_MILLI;
+            this.p50 = histogram.getValueAtPercentile(50) / MICROS_PER_MILLI;
+            this.p90 = histogram.getValueAtPercentile(90) / MICROS_PER_MILLI;
+            this.p99 = histogram.getValueAtPercentile(99) / MICROS_PER_MILLI;
+            this.p999 = histogram.getValueAtPercentile(99.9) / MICROS_PER_MILLI;
+            this.max = histogram.getMaxValue() / MICROS_PER_MILLI;
+        }
+
+        Map<String, Object> toMap() {
+            var map = new LinkedHashMap<String, Object>();
+            map.put("requests", requests);
+            map.put("ok", ok);
+            map.put("conflicts", conflicts);
+            map.put("errors", errors);
+            map.put("throughput", throughput);
+            map.put("meanMs", mean);
+            map.put("p50Ms", p50);
+            map.put("p90Ms", p90);
+            map.put("p99Ms", p99);
+            map.put("p999Ms", p999);
+            map.put("maxMs", max);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.pii.library_app.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pii.library_app.LibraryAppApplication;
+import com.pii.library_app.book.model.Book;
+import com.pii.library_app.book.model.Genre;
+import com.pii.library_app.book.repo.BookRepository;
+import com.pii.library_app.book.service.BookImportService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Нагрузочный тест REST API: {@code ./gradlew loadTest}. Без {@code loadTest.baseUrl} запускает приложение
+ * в этом же процессе на H2 (или на локальном PostgreSQL при {@code loadTest.database=postgres}),
+ * заводит книги и пользователей и гоняет смесь входа, поиска, выдачи и возврата книг.
+ * Завершается с кодом 1, если прогон не прошел проверку {@link LoadTestReport#check}.
+ * При {@code loadTest.threadMode=compare} приложение запускается дважды - на платформенных
+ * и на виртуальных потоках - и в конце печатается сравнение пропускной способности и p99.
+ */
+public class LoadTestRunner {
+
+    private static final String DEFAULT_SECRET = "Y/aQcRmTIvybqtIqEfR4KhpqzlKQit+/Yi6igVW1dLg=";
+    private static final String USER_PREFIX = "loadtest-";
+    private static final String USER_PASSWORD = "loadtest-password";
+    private static final int DISCOVERY_PAGE_SIZE = 100;
+    private static final List<String> COMPARED_THREAD_MODES = List.of("platform", "virtual");
+
+    private final Logger LOG = LoggerFactory.getLogger(LoadTestRunner.class);
+
+    private final LoadTestConfig config;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public LoadTestRunner(LoadTestConfig config) {
+        this.config = config;
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.exit(new LoadTestRunner(LoadTestConfig.fromSystemProperties()).run());
+    }
+
+    public int run() throws Exception {
+        if (!LoadTestConfig.THREAD_MODE_COMPARE.equals(config.threadMode())) {
+            return runOnce().exitCode();
+        }
+        if (!config.inProcess()) {
+            throw new IllegalStateException("Сравнение режимов потоков возможно только для приложения в процессе теста");
+        }
+        var reports = new LinkedHashMap<String, LoadTestReport>();
+        int exitCode = 0;
+        for (String mode : COMPARED_THREAD_MODES) {
+            var outcome = new LoadTestRunner(config.withThreadMode(mode)).runOnce();
+            reports.put(mode, outcome.report());
+            exitCode = Math.max(exitCode, outcome.exitCode());
+        }
+        LoadTestReport.printComparison(reports, System.out);
+        return exitCode;
+    }
+
+    private RunOutcome runOnce() throws Exception {
+        ConfigurableApplicationContext context = null;
+        try {
+            var baseUrl = config.baseUrl();
+            if (config.inProcess()) {
+                context = startApplication();
+                baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            }
+            var httpClient = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+            var client = new LibraryClient(httpClient, objectMapper, baseUrl);
+
+            registerUsers(client);
+            var bookIds = context != null ? seedBooks(context) : discoverBooks(client);
+            if (bookIds.isEmpty()) {
+                throw new IllegalStateException("Нет книг для нагрузочного теста: укажите loadTest.adminUsername и "
+                        + "loadTest.adminPassword, чтобы завести их через API");
+            }
+            LOG.info("➤➤➤➤➤➤➤ Нагрузочный тест {} (потоки: {}): {} пользователей, {} книг, прогрев {} с, замер {} с",
+                    baseUrl, config.threadMode(), config.users(), bookIds.size(),
+                    config.warmup().toSeconds(), config.duration().toSeconds());
+
+            var report = drive(client, bookIds);
+            report.print(System.out);
+            var file = report.write(config.reportDir(), objectMapper);
+            LOG.info("➤➤➤➤➤➤➤ Отчет нагрузочного теста: {}", file.toAbsolutePath());
+
+            var violations = report.check(config, objectMapper);
+            violations.forEach(violation -> LOG.error("➤➤➤➤➤➤➤ Регрессия: {}", violation));
+            return new RunOutcome(report, violations.isEmpty() ? 0 : 1);
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    private LoadTestReport drive(LibraryClient client, List<Long> bookIds) throws InterruptedException {
+        var stats = new EnumMap<Endpoint, EndpointStats>(Endpoint.class);
+        for (Endpoint endpoint : Endpoint.values()) {
+            stats.put(endpoint, new EndpointStats());
+        }
+        var deadline = System.nanoTime() + config.warmup().toNanos() + config.duration().toNanos();
+        // клиенты на виртуальных потоках: тысяча пользователей не требует тысячи потоков ОС
+        var executor = Executors.newVirtualThreadPerTaskExecutor();
+        for (int i = 0; i < config.users(); i++) {
+            executor.submit(new VirtualUser(client, config, stats, bookIds, USER_PREFIX + i, USER_PASSWORD, deadline));
+        }
+        executor.shutdown();
+
+        Thread.sleep(config.warmup());
+        stats.values().forEach(EndpointStats::reset);
+        if (!executor.awaitTermination(config.duration().toSeconds() + 60, TimeUnit.SECONDS)) {
+            LOG.warn("➤➤➤➤➤➤➤ Виртуальные пользователи не завершились вовремя, прерываем");
+            executor.shutdownNow();
+        }
+        return new LoadTestReport(stats, config.duration(), config.users());
+    }
+
+    private ConfigurableApplicationContext startApplication() {
+        var properties = new HashMap<String, Object>();
+        properties.put("server.port", 0);
+        properties.put("JWT_SECRET_KEY", Optional.ofNullable(System.getenv("JWT_SECRET_KEY")).orElse(DEFAULT_SECRET));
+        properties.put("spring.jpa.show-sql", false);
+        properties.put("logging.level.root", "WARN");
+        properties.put("logging.level.com.pii.library_app.loadtest", "INFO");
+        if ("h2".equals(config.database())) {
+            properties.put("spring.datasource.url", "jdbc:h2:mem:loadtest-" + config.threadMode() + ";DB_CLOSE_DELAY=-1");
+            properties.put("spring.datasource.username", "sa");
+            properties.put("spring.datasource.password", "");
+            properties.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+            properties.put("spring.flyway.enabled", false);
+        }
+        if (!"default".equals(config.threadMode())) {
+            properties.put("spring.threads.virtual.enabled", "virtual".equals(config.threadMode()));
+        }
+        return new SpringApplicationBuilder(LibraryAppApplication.class)
+                .properties(properties)
+                .run();
+    }
+
+    /**
+     * Регистрирует пользователей параллельно по числу ядер: хеширование паролей упирается в процессор,
+     * а при тысячах пользователей последовательная регистрация заняла бы минуты.
+     */
+    private void registerUsers(LibraryClient client) throws Exception {
+        var executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            var registrations = new ArrayList<Future<?>>();
+            for (int i = 0; i < config.users(); i++) {
+                var username = USER_PREFIX + i;
+                registrations.add(executor.submit(() -> {
+                    var response = client.register(username, USER_PASSWORD);
+                    // 409 - пользователь остался от прошлого прогона
+                    if (!response.isOk() && response.status() != 409) {
+                        throw new IllegalStateException("Не удалось зарегистрировать пользователя " + username
+                                + ": HTTP " + response.status());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> registration : registrations) {
+                registration.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Заводит недостающие книги через пакетный импорт, чтобы их увидели каталог и текстовый индекс.
+     */
+    private List<Long> seedBooks(ConfigurableApplicationContext context) throws IOException {
+        var bookRepository = context.getBean(BookRepository.class);
+        var missing = config.books() - bookRepository.count();
+        if (missing > 0) {
+            var genres = Genre.values();
+            var books = new ArrayList<Map<String, Object>>();
+            for (int i = 0; i < missing; i++) {
+                books.add(Map.of(
+                        "title", "Load test book " + i,
+                        "author", "Author " + i % 100,
+                        "genre", genres[i % genres.length].name(),
+                        "copies", 1 + i % 3
+                ));
+            }
+            var result = context.getBean(BookImportService.class)
+                    .importJson(new ByteArrayInputStream(objectMapper.writeValueAsBytes(books)));
+            LOG.info("➤➤➤➤➤➤➤ Заведено книг для нагрузочного теста: {}", result.imported());
+        }
+        return bookRepository.findAll(PageRequest.of(0, config.books(), Sort.by("id"))).stream()
+                .map(Book::getId)
+                .toList();
+    }
+
+    private record RunOutcome(LoadTestReport report, int exitCode) {
+    }
+
+    private List<Long> discoverBooks(LibraryClient client) throws IOException, InterruptedException {
+        var token = client.login(USER_PREFIX + 0, USER_PASSWORD).json().get("message").asText();
+        var ids = findBookIds(client, token);
+        if (ids.isEmpty() && !config.adminUsername().isBlank()) {
+            var adminLogin = client.login(config.adminUsername(), config.adminPassword());
+            if (!adminLogin.isOk()) {
+                throw new IllegalStateException("Не удалось войти администратором: HTTP " + adminLogin.status());
+            }
+            var adminToken = adminLogin.json().get("message").asText();
+            var genres = Genre.values();
+            for (int i = 0; i < config.books(); i++) {
+                client.createBook(adminToken, Map.of(
+                        "title", "Load test book " + i,
+                        "author", "Author " + i % 100,
+                        "genre", genres[i % genres.length].name(),
+                        "copies", 1 + i % 3
+                ));
+            }
+            ids = findBookIds(client, token);
+        }
+        return ids;
+    }
+
+    private List<Long> findBookIds(LibraryClient client, String token) throws IOException, InterruptedException {
+        var ids = new ArrayList<Long>();
+        Long cursor = null;
+        do {
+            var filter = new HashMap<String, Object>();
+            var path = cursor == null ? "" : "&cursor=" + cursor;
+            var page = client.search(token, filter, DISCOVERY_PAGE_SIZE, path).json();
+            page.path("books").forEach(book -> ids.add(book.get("id").asLong()));
+            cursor = page.path("nextCursor").isNumber() ? page.get("nextCursor").asLong() : null;
+        } while (cursor != null && ids.size() < config.books());
+        return ids.size() > config.books() ? ids.subList(0, config.books()) : ids;
+    }
+}
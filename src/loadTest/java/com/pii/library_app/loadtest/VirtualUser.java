@@ -0,0 +1,159 @@
+package com.pii.library_app.loadtest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Виртуальный пользователь: входит в систему и выполняет операции по заданным долям,
+ * пока не истечет время прогона. Нагрузка замкнутая - следующий запрос после ответа
+ * на предыдущий и паузы {@code thinkTime}.
+ */
+class VirtualUser implements Runnable {
+
+    private static final int PAGE_SIZE = 20;
+    private static final String[] GENRES = {
+            "FANTASY", "DETECTIVE", "ROMANCE", "SCIENCE_FICTION", "THRILLER", "NON_FICTION", "DYSTOPIAN"
+    };
+
+    private final LibraryClient client;
+    private final LoadTestConfig config;
+    private final Map<Endpoint, EndpointStats> stats;
+    private final List<Long> bookIds;
+    private final String username;
+    private final String password;
+    private final long deadlineNanos;
+    private final Endpoint[] schedule;
+    private final List<Long> borrowed = new ArrayList<>();
+
+    private String token;
+
+    VirtualUser(
+            LibraryClient client,
+            LoadTestConfig config,
+            Map<Endpoint, EndpointStats> stats,
+            List<Long> bookIds,
+            String username,
+            String password,
+            long deadlineNanos
+    ) {
+        this.client = client;
+        this.config = config;
+        this.stats = stats;
+        this.bookIds = bookIds;
+        this.username = username;
+        this.password = password;
+        this.deadlineNanos = deadlineNanos;
+        this.schedule = schedule(config.mix());
+    }
+
+    @Override
+    public void run() {
+        var random = ThreadLocalRandom.current();
+        try {
+            login();
+            while (System.nanoTime() < deadlineNanos && !Thread.currentThread().isInterrupted()) {
+                var endpoint = schedule[random.nextInt(schedule.length)];
+                if (endpoint == Endpoint.RETURN && borrowed.isEmpty()) {
+                    endpoint = Endpoint.BORROW;
+                }
+                switch (endpoint) {
+                    case LOGIN -> login();
+                    case SEARCH -> search(random);
+                    case BORROW -> borrow(random);
+                    case RETURN -> giveBack(random);
+                }
+                if (!config.thinkTime().isZero()) {
+                    Thread.sleep(config.thinkTime());
+                }
+            }
+            // возвращаем книги, чтобы следующий прогон начинался с тем же числом свободных экземпляров
+            for (Long bookId : borrowed) {
+                client.giveBack(token, bookId);
+            }
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void login() throws InterruptedException {
+        long start = System.nanoTime();
+        try {
+            var response = client.login(username, password);
+            stats.get(Endpoint.LOGIN).record(System.nanoTime() - start, response.status());
+            if (response.isOk()) {
+                token = response.json().get("message").asText();
+            }
+        } catch (IOException exc) {
+            stats.get(Endpoint.LOGIN).record(System.nanoTime() - start, -1);
+        }
+    }
+
+    private void search(ThreadLocalRandom random) throws InterruptedException {
+        var filter = new HashMap<String, Object>();
+        filter.put("genre", GENRES[random.nextInt(GENRES.length)]);
+        if (random.nextBoolean()) {
+            filter.put("available", true);
+        }
+        long start = System.nanoTime();
+        try {
+            var response = client.search(token, filter, PAGE_SIZE);
+            stats.get(Endpoint.SEARCH).record(System.nanoTime() - start, response.status());
+        } catch (IOException exc) {
+            stats.get(Endpoint.SEARCH).record(System.nanoTime() - start, -1);
+        }
+    }
+
+    private void borrow(ThreadLocalRandom random) throws InterruptedException {
+        var bookId = pickBook(random);
+        long start = System.nanoTime();
+        try {
+            var response = client.borrow(token, bookId);
+            stats.get(Endpoint.BORROW).record(System.nanoTime() - start, response.status());
+            if (response.isOk()) {
+                borrowed.add(bookId);
+            }
+        } catch (IOException exc) {
+            stats.get(Endpoint.BORROW).record(System.nanoTime() - start, -1);
+        }
+    }
+
+    private void giveBack(ThreadLocalRandom random) throws InterruptedException {
+        var bookId = borrowed.remove(random.nextInt(borrowed.size()));
+        long start = System.nanoTime();
+        try {
+            var response = client.giveBack(token, bookId);
+            stats.get(Endpoint.RETURN).record(System.nanoTime() - start, response.status());
+            if (!response.isOk()) {
+                borrowed.add(bookId);
+            }
+        } catch (IOException exc) {
+            stats.get(Endpoint.RETURN).record(System.nanoTime() - start, -1);
+            borrowed.add(bookId);
+        }
+    }
+
+    private long pickBook(ThreadLocalRandom random) {
+        int hot = Math.min(config.hotBooks(), bookIds.size());
+        if (hot > 0 && random.nextDouble() < config.hotBookShare()) {
+            return bookIds.get(random.nextInt(hot));
+        }
+        return bookIds.get(random.nextInt(bookIds.size()));
+    }
+
+    private static Endpoint[] schedule(Map<Endpoint, Integer> mix) {
+        var schedule = new ArrayList<Endpoint>();
+        mix.forEach((endpoint, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                schedule.add(endpoint);
+            }
+        });
+        if (schedule.isEmpty()) {
+            throw new IllegalArgumentException("В loadTest.mix нет ни одной операции");
+        }
+        return schedule.toArray(Endpoint[]::new);
+    }
+}
@@ -2,10 +2,12 @@ package com.pii.library_app.auth.controller;
 
 import com.pii.library_app.auth.dto.AuthRequest;
 import com.pii.library_app.auth.dto.AuthResponse;
+import com.pii.library_app.auth.dto.RefreshTokenRequest;
 import com.pii.library_app.auth.service.AuthService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
@@ -58,18 +60,55 @@ public class AuthController {
             description = "Проверяет учётные данные пользователя и возвращает результат",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Успешная аутентификация"),
-                    @ApiResponse(responseCode = "401", description = "Неверное имя пользователя или пароль")
+                    @ApiResponse(responseCode = "401", description = "Неверное имя пользователя или пароль"),
+                    @ApiResponse(responseCode = "429", description = "Слишком много неудачных попыток входа"),
+                    @ApiResponse(responseCode = "503", description = "Сервер перегружен запросами входа")
             }
     )
     public ResponseEntity<AuthResponse> login(
             @RequestBody AuthRequest request,
-            Principal principal
+            Principal principal,
+            HttpServletRequest httpRequest
     ) {
         LOG.debug(
                 "\"➤➤➤➤➤➤➤ {} пытается войти по данным: {}",
                 Optional.ofNullable(principal).map(Principal::getName).orElse("anonymous"),
                 request
         );
-        return ResponseEntity.ok(authService.login(request));
+        return ResponseEntity.ok(authService.login(request, httpRequest.getRemoteAddr()));
+    }
+
+    @PostMapping("/refresh")
+    @Operation(
+            summary = "Обновление access-токена",
+            description = "Выдает новый access-токен по refresh-токену без проверки пароля и заменяет refresh-токен",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Выданы новые access- и refresh-токены"),
+                    @ApiResponse(responseCode = "401", description = "Refresh-токен недействителен, истек или отозван")
+            }
+    )
+    public ResponseEntity<AuthResponse> refresh(@RequestBody RefreshTokenRequest request) {
+        LOG.debug("\"➤➤➤➤➤➤➤ Обновление access-токена по refresh-токену");
+        return ResponseEntity.ok(authService.refresh(request));
+    }
+
+    @PostMapping("/logout")
+    @Operation(
+            summary = "Выход пользователя",
+            description = "Отзывает текущий JWT-токен пользователя и переданный refresh-токен",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Токен отозван"),
+                    @ApiResponse(responseCode = "401", description = "Пользователь не аутентифицирован")
+            }
+    )
+    public ResponseEntity<AuthResponse> logout(
+            Principal principal,
+            @RequestBody(required = false) RefreshTokenRequest request
+    ) {
+        LOG.debug(
+                "\"➤➤➤➤➤➤➤ {} выходит из системы",
+                Optional.ofNullable(principal).map(Principal::getName).orElse("anonymous")
+        );
+        return ResponseEntity.ok(authService.logout(principal, request));
     }
 }
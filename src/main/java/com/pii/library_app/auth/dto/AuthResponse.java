@@ -1,10 +1,19 @@
 package com.pii.library_app.auth.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import io.swagger.v3.oas.annotations.media.Schema;
 
 @Schema(description = "Ответ на запрос аутентификации")
 public record AuthResponse(
         @Schema(description = "Сообщение с результатом аутентификации")
-        String message
+        String message,
+
+        @Schema(description = "Refresh-токен для получения нового access-токена без пароля")
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        String refreshToken
 ) {
+
+    public AuthResponse(String message) {
+        this(message, null);
+    }
 }
@@ -0,0 +1,10 @@
+package com.pii.library_app.auth.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Запрос с refresh-токеном")
+public record RefreshTokenRequest(
+        @Schema(description = "Refresh-токен, выданный при входе или предыдущем обновлении", required = true)
+        String refreshToken
+) {
+}
@@ -1,8 +1,12 @@
 package com.pii.library_app.auth.exception;
 
+import com.pii.library_app.book.exception.BookAlreadyBorrowedException;
+import com.pii.library_app.book.exception.BookImportException;
 import com.pii.library_app.book.exception.BookNotAvailableException;
 import com.pii.library_app.book.exception.BookNotBorrowedException;
 import com.pii.library_app.book.exception.BookNotFoundException;
+import com.pii.library_app.book.exception.InvalidBookCopiesException;
+import com.pii.library_app.security.PasswordHashingBusyException;
 import com.pii.library_app.user.exception.UserNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -55,12 +59,42 @@ public class GlobalExceptionHandler {
         return buildErrorResponse(HttpStatus.CONFLICT, exc.getMessage());
     }
 
+    @ExceptionHandler(BookAlreadyBorrowedException.class)
+    public ResponseEntity<Object> handleBookAlreadyBorrowedException(BookAlreadyBorrowedException exc) {
+        LOG.error("\"➤➤➤➤➤➤➤ Error: {}", exc.getMessage());
+        return buildErrorResponse(HttpStatus.CONFLICT, exc.getMessage());
+    }
+
     @ExceptionHandler(BookNotBorrowedException.class)
     public ResponseEntity<Object> handleBookNotBorrowedException(BookNotBorrowedException exc) {
         LOG.error("\"➤➤➤➤➤➤➤ Error: {}", exc.getMessage());
         return buildErrorResponse(HttpStatus.BAD_REQUEST, exc.getMessage());
     }
 
+    @ExceptionHandler(BookImportException.class)
+    public ResponseEntity<Object> handleBookImportException(BookImportException exc) {
+        LOG.error("\"➤➤➤➤➤➤➤ Error: {}", exc.getMessage());
+        return buildErrorResponse(HttpStatus.BAD_REQUEST, exc.getMessage());
+    }
+
+    @ExceptionHandler(InvalidBookCopiesException.class)
+    public ResponseEntity<Object> handleInvalidBookCopiesException(InvalidBookCopiesException exc) {
+        LOG.error("\"➤➤➤➤➤➤➤ Error: {}", exc.getMessage());
+        return buildErrorResponse(HttpStatus.BAD_REQUEST, exc.getMessage());
+    }
+
+    @ExceptionHandler(TooManyLoginAttemptsException.class)
+    public ResponseEntity<Object> handleTooManyLoginAttemptsException(TooManyLoginAttemptsException exc) {
+        LOG.error("\"➤➤➤➤➤➤➤ Error: {}", exc.getMessage());
+        return buildErrorResponse(HttpStatus.TOO_MANY_REQUESTS, exc.getMessage());
+    }
+
+    @ExceptionHandler(PasswordHashingBusyException.class)
+    public ResponseEntity<Object> handlePasswordHashingBusyException(PasswordHashingBusyException exc) {
+        LOG.error("\"➤➤➤➤➤➤➤ Error: {}", exc.getMessage());
+        return buildErrorResponse(HttpStatus.SERVICE_UNAVAILABLE, exc.getMessage());
+    }
+
     private ResponseEntity<Object> buildErrorResponse(HttpStatus status, String message) {
         var body = new LinkedHashMap<>();
         body.put("timestamp", LocalDateTime.now());
@@ -0,0 +1,8 @@
+package com.pii.library_app.auth.exception;
+
+public class TooManyLoginAttemptsException extends RuntimeException {
+
+    public TooManyLoginAttemptsException(String message) {
+        super(message);
+    }
+}
@@ -2,32 +2,55 @@ package com.pii.library_app.auth.service;
 
 import com.pii.library_app.auth.dto.AuthRequest;
 import com.pii.library_app.auth.dto.AuthResponse;
+import com.pii.library_app.auth.dto.RefreshTokenRequest;
 import com.pii.library_app.auth.exception.InvalidCredentialsException;
 import com.pii.library_app.auth.exception.UsernameAlreadyExistsException;
+import com.pii.library_app.security.AuthenticatedUser;
+import com.pii.library_app.security.PasswordHashingExecutor;
+import com.pii.library_app.security.TokenRevocationService;
 import com.pii.library_app.security.jwt.JwtUtil;
 import com.pii.library_app.user.model.Role;
+import com.pii.library_app.user.exception.UserNotFoundException;
 import com.pii.library_app.user.model.User;
 import com.pii.library_app.user.service.UserService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.security.Principal;
 import java.util.Set;
 
 @Service
 public class AuthService {
 
+    private final Logger LOG = LoggerFactory.getLogger(AuthService.class);
+
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
     private final UserService userService;
+    private final TokenRevocationService revocationService;
+    private final PasswordHashingExecutor hashingExecutor;
+    private final LoginAttemptThrottle loginThrottle;
+    private final RefreshTokenService refreshTokenService;
 
     public AuthService(
             JwtUtil jwtUtil,
             UserService userService,
-            PasswordEncoder passwordEncoder
+            PasswordEncoder passwordEncoder,
+            TokenRevocationService revocationService,
+            PasswordHashingExecutor hashingExecutor,
+            LoginAttemptThrottle loginThrottle,
+            RefreshTokenService refreshTokenService
     ) {
         this.passwordEncoder = passwordEncoder;
         this.jwtUtil = jwtUtil;
         this.userService = userService;
+        this.revocationService = revocationService;
+        this.hashingExecutor = hashingExecutor;
+        this.loginThrottle = loginThrottle;
+        this.refreshTokenService = refreshTokenService;
     }
 
     public AuthResponse register(AuthRequest request) {
@@ -40,18 +63,75 @@ public class AuthService {
 
         var user = new User(
                 request.username(),
-                passwordEncoder.encode(request.password()),
+                hashingExecutor.call(() -> passwordEncoder.encode(request.password())),
                 Set.of(Role.USER)
         );
         userService.createUser(user);
         return new AuthResponse("Пользователь успешно зарегистрирован");
     }
 
-    public AuthResponse login(AuthRequest request) {
-        var user = userService.findByUsername(request.username());
-        if (user == null || !passwordEncoder.matches(request.password(), user.getPassword())) {
+    public AuthResponse login(AuthRequest request, String clientAddress) {
+        loginThrottle.checkAllowed(request.username(), clientAddress);
+        User user;
+        try {
+            user = userService.findByUsername(request.username());
+        } catch (UserNotFoundException exc) {
+            loginThrottle.recordFailure(request.username(), clientAddress);
+            throw exc;
+        }
+        var check = user == null ? null : hashingExecutor.call(() -> checkPassword(request.password(), user.getPassword()));
+        if (check == null || !check.matches()) {
+            loginThrottle.recordFailure(request.username(), clientAddress);
             throw new InvalidCredentialsException("Неверное имя пользователя или пароль");
         }
-        return new AuthResponse(jwtUtil.generateToken(user));
+        loginThrottle.recordSuccess(request.username(), clientAddress);
+        if (check.upgradedHash() != null) {
+            userService.updatePassword(user.getId(), check.upgradedHash());
+            LOG.info("➤➤➤➤➤➤➤ Хеш пароля пользователя {} пересчитан с текущими параметрами", user.getUsername());
+        }
+        return new AuthResponse(jwtUtil.generateToken(user), refreshTokenService.issue(user.getId()));
+    }
+
+    /**
+     * Новый access-токен по refresh-токену без проверки пароля; refresh-токен при этом заменяется.
+     */
+    public AuthResponse refresh(RefreshTokenRequest request) {
+        var rotation = refreshTokenService.rotate(request == null ? null : request.refreshToken());
+        var user = userService.findUserById(rotation.userId());
+        return new AuthResponse(jwtUtil.generateToken(user), rotation.refreshToken());
+    }
+
+    /**
+     * Проверяет пароль и, если хеш создан другим алгоритмом или с устаревшими параметрами,
+     * сразу считает новый: открытый пароль доступен только при входе.
+     */
+    private PasswordCheck checkPassword(String rawPassword, String hash) {
+        if (!passwordEncoder.matches(rawPassword, hash)) {
+            return new PasswordCheck(false, null);
+        }
+        return new PasswordCheck(true, passwordEncoder.upgradeEncoding(hash) ? passwordEncoder.encode(rawPassword) : null);
+    }
+
+    public AuthResponse logout(Principal principal, RefreshTokenRequest request) {
+        var refreshToken = request == null ? null : request.refreshToken();
+        if (principal == null && refreshToken == null) {
+            throw new InvalidCredentialsException("Пользователь не аутентифицирован");
+        }
+        // refresh-токен отзывается и без access-токена, срок которого мог уже истечь
+        if (refreshToken != null) {
+            refreshTokenService.revoke(refreshToken);
+        }
+        if (principal instanceof Authentication auth && auth.getPrincipal() instanceof AuthenticatedUser user) {
+            revocationService.revokeToken(user.tokenId());
+        } else if (principal != null) {
+            // идентификатор токена неизвестен - выход со всех устройств, включая цепочки refresh-токенов,
+            // иначе по refresh-токену можно было бы сразу получить новый access-токен
+            revocationService.revokeAllTokens(principal.getName());
+            refreshTokenService.revokeAll(userService.findByUsername(principal.getName()).getId());
+        }
+        return new AuthResponse("Пользователь вышел из системы");
+    }
+
+    private record PasswordCheck(boolean matches, String upgradedHash) {
     }
 }
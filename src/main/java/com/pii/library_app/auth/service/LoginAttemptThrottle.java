@@ -0,0 +1,81 @@
+package com.pii.library_app.auth.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pii.library_app.auth.exception.TooManyLoginAttemptsException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Счетчики неудачных попыток входа по паре (имя пользователя, адрес клиента) и по адресу клиента. Когда попыток
+ * за окно {@code window} (от первой неудачи) набирается больше лимита, вход отклоняется
+ * до проверки пароля, и перебор не тратит процессор на хеширование. Счетчик учетной записи привязан к адресу:
+ * иначе чужие неудачные попытки с разных адресов заблокировали бы вход самому владельцу.
+ */
+@Component
+public class LoginAttemptThrottle {
+
+    private final Logger LOG = LoggerFactory.getLogger(LoginAttemptThrottle.class);
+
+    private final int maxFailuresPerAccount;
+    private final int maxFailuresPerAddress;
+    private final Cache<AccountAddress, AtomicInteger> accountFailures;
+    private final Cache<String, AtomicInteger> addressFailures;
+
+    public LoginAttemptThrottle(
+            @Value("${library.security.login.max-failures-per-account:5}") int maxFailuresPerAccount,
+            @Value("${library.security.login.max-failures-per-address:50}") int maxFailuresPerAddress,
+            @Value("${library.security.login.window:15m}") Duration window
+    ) {
+        this.maxFailuresPerAccount = maxFailuresPerAccount;
+        this.maxFailuresPerAddress = maxFailuresPerAddress;
+        this.accountFailures = Caffeine.newBuilder().expireAfterWrite(window).maximumSize(100_000).build();
+        this.addressFailures = Caffeine.newBuilder().expireAfterWrite(window).maximumSize(100_000).build();
+    }
+
+    public void checkAllowed(String username, String address) {
+        if (failures(accountFailures, accountKey(username, address)) >= maxFailuresPerAccount
+                || failures(addressFailures, address) >= maxFailuresPerAddress) {
+            LOG.warn("➤➤➤➤➤➤➤ Вход {} с адреса {} отклонен: превышен лимит неудачных попыток", username, address);
+            throw new TooManyLoginAttemptsException("Слишком много неудачных попыток входа, повторите позже");
+        }
+    }
+
+    public void recordFailure(String username, String address) {
+        increment(accountFailures, accountKey(username, address));
+        increment(addressFailures, address);
+    }
+
+    public void recordSuccess(String username, String address) {
+        var key = accountKey(username, address);
+        if (key != null) {
+            accountFailures.invalidate(key);
+        }
+    }
+
+    private static AccountAddress accountKey(String username, String address) {
+        return username == null ? null : new AccountAddress(username, address);
+    }
+
+    private static <K> int failures(Cache<K, AtomicInteger> cache, K key) {
+        if (key == null) {
+            return 0;
+        }
+        var counter = cache.getIfPresent(key);
+        return counter == null ? 0 : counter.get();
+    }
+
+    private static <K> void increment(Cache<K, AtomicInteger> cache, K key) {
+        if (key != null) {
+            cache.get(key, k -> new AtomicInteger()).incrementAndGet();
+        }
+    }
+
+    private record AccountAddress(String username, String address) {
+    }
+}
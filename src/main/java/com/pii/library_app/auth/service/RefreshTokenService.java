@@ -0,0 +1,129 @@
+package com.pii.library_app.auth.service;
+
+import com.pii.library_app.auth.exception.InvalidCredentialsException;
+import com.pii.library_app.auth.model.RefreshToken;
+import com.pii.library_app.auth.repo.RefreshTokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Выдача, ротация и отзыв refresh-токенов. Токен - 256 случайных бит, поэтому для хранения
+ * достаточно SHA-256 без соли и стоимости: проверка не нагружает процессор, в отличие от пароля.
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final Logger LOG = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final Duration ttl;
+    private final SecureRandom random = new SecureRandom();
+
+    public RefreshTokenService(
+            RefreshTokenRepository refreshTokenRepository,
+            @Value("${library.security.refresh-token.ttl:30d}") Duration ttl
+    ) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.ttl = ttl;
+    }
+
+    /**
+     * Выдает токен новой цепочки ротации.
+     *
+     * @return значение токена для клиента
+     */
+    @Transactional
+    public String issue(Long userId) {
+        return create(userId, UUID.randomUUID().toString(), Instant.now());
+    }
+
+    /**
+     * Заменяет токен новым той же цепочки. Предъявление уже замененного или отозванного токена
+     * отзывает всю цепочку: одна из копий токена оказалась у постороннего.
+     *
+     * @throws InvalidCredentialsException если токен неизвестен, истек или отозван
+     */
+    @Transactional(noRollbackFor = InvalidCredentialsException.class)
+    public Rotation rotate(String rawToken) {
+        var now = Instant.now();
+        var token = rawToken == null ? null : refreshTokenRepository.findByTokenHash(hash(rawToken)).orElse(null);
+        if (token == null || !token.getExpiresAt().isAfter(now)) {
+            throw invalidToken();
+        }
+        if (token.getRevokedAt() != null || refreshTokenRepository.revoke(token.getId(), now) == 0) {
+            refreshTokenRepository.revokeFamily(token.getFamilyId(), now);
+            LOG.warn("➤➤➤➤➤➤➤ Предъявлен отозванный refresh-токен пользователя {}, цепочка {} отозвана",
+                    token.getUserId(), token.getFamilyId());
+            throw invalidToken();
+        }
+        return new Rotation(token.getUserId(), create(token.getUserId(), token.getFamilyId(), now));
+    }
+
+    /**
+     * Отзывает цепочку, к которой относится токен (выход с одного устройства).
+     */
+    @Transactional
+    public void revoke(String rawToken) {
+        refreshTokenRepository.findByTokenHash(hash(rawToken))
+                .ifPresent(token -> refreshTokenRepository.revokeFamily(token.getFamilyId(), Instant.now()));
+    }
+
+    @Transactional
+    public void revokeAll(Long userId) {
+        int revoked = refreshTokenRepository.revokeAllForUser(userId, Instant.now());
+        LOG.info("➤➤➤➤➤➤➤ Отозвано refresh-токенов пользователя {}: {}", userId, revoked);
+    }
+
+    /**
+     * Удаляет истекшие токены. Отозванные хранятся до истечения, чтобы распознать их повторное предъявление.
+     */
+    @Scheduled(cron = "${library.security.refresh-token.cleanup-cron:0 15 3 * * *}")
+    @Transactional
+    public void deleteExpired() {
+        int deleted = refreshTokenRepository.deleteExpired(Instant.now());
+        LOG.info("➤➤➤➤➤➤➤ Удалено истекших refresh-токенов: {}", deleted);
+    }
+
+    private String create(Long userId, String familyId, Instant now) {
+        var bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        var rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        refreshTokenRepository.save(new RefreshToken(userId, hash(rawToken), familyId, now, now.plus(ttl)));
+        return rawToken;
+    }
+
+    private static InvalidCredentialsException invalidToken() {
+        return new InvalidCredentialsException("Недействительный refresh-токен");
+    }
+
+    private static String hash(String rawToken) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256").digest(rawToken.getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException exc) {
+            throw new IllegalStateException(exc);
+        }
+    }
+
+    /**
+     * Результат ротации: владелец и новое значение токена.
+     */
+    public record Rotation(Long userId, String refreshToken) {
+    }
+}
@@ -1,9 +1,14 @@
 package com.pii.library_app.book.controller;
 
 import com.pii.library_app.book.dto.*;
-import com.pii.library_app.book.model.Book;
+import com.pii.library_app.book.model.Genre;
+import com.pii.library_app.book.service.BookExportService;
+import com.pii.library_app.book.service.BookImportService;
+import com.pii.library_app.book.service.BookLoanHistoryService;
 import com.pii.library_app.book.service.BookService;
+import com.pii.library_app.book.stream.BookAvailabilityStream;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -11,12 +16,21 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.security.Principal;
 import java.util.Optional;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/books")
@@ -26,9 +40,29 @@ public class BookController {
     private final Logger LOG = LoggerFactory.getLogger(BookController.class);
 
     private final BookService bookService;
+    private final BookExportService exportService;
+    private final BookImportService importService;
+    private final BookLoanHistoryService loanHistoryService;
+    private final BookAvailabilityStream availabilityStream;
+    private final int defaultPageSize;
+    private final int maxPageSize;
 
-    public BookController(BookService bookService) {
+    public BookController(
+            BookService bookService,
+            BookExportService exportService,
+            BookImportService importService,
+            BookLoanHistoryService loanHistoryService,
+            BookAvailabilityStream availabilityStream,
+            @Value("${library.books.search.default-page-size:20}") int defaultPageSize,
+            @Value("${library.books.search.max-page-size:100}") int maxPageSize
+    ) {
         this.bookService = bookService;
+        this.exportService = exportService;
+        this.importService = importService;
+        this.loanHistoryService = loanHistoryService;
+        this.availabilityStream = availabilityStream;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
     }
 
     @PostMapping
@@ -41,13 +75,13 @@ public class BookController {
             @ApiResponse(
                     responseCode = "200",
                     description = "Книга успешно добавлена",
-                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = Book.class))
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = BookDto.class))
             ),
             @ApiResponse(
                     responseCode = "403", description = "Доступ запрещен. Требуется роль ADMIN."
             )
     })
-    public ResponseEntity<Book> createBook(
+    public ResponseEntity<BookDto> createBook(
             @RequestBody CreateBookDto book,
             Principal principal
     ) {
@@ -56,7 +90,7 @@ public class BookController {
                 Optional.ofNullable(principal).map(Principal::getName).orElse("anonymous"),
                 book.title()
         );
-        return ResponseEntity.ok(bookService.createBook(book));
+        return ResponseEntity.ok(BookDto.fromEntity(bookService.createBook(book)));
     }
 
     @PutMapping("/{id}")
@@ -69,14 +103,14 @@ public class BookController {
             @ApiResponse(
                     responseCode = "200",
                     description = "Книга успешно обновлена",
-                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = Book.class))),
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = BookDto.class))),
             @ApiResponse(
                     responseCode = "403",
                     description = "Доступ запрещен. Требуется роль ADMIN"
             ),
             @ApiResponse(responseCode = "404", description = "Книга не найдена")
     })
-    public ResponseEntity<Book> updateBook(
+    public ResponseEntity<BookDto> updateBook(
             @PathVariable Long id,
             @RequestBody CreateBookDto book,
             Principal principal
@@ -86,7 +120,7 @@ public class BookController {
                 Optional.ofNullable(principal).map(Principal::getName).orElse("anonymous"),
                 id
         );
-        return ResponseEntity.ok(bookService.updateBook(id, book));
+        return ResponseEntity.ok(BookDto.fromEntity(bookService.updateBook(id, book)));
     }
 
     @DeleteMapping("/{id}")
@@ -117,7 +151,8 @@ public class BookController {
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
     @Operation(
             summary = "Поиск книг",
-            description = "Поиск книг по названию, автору или жанру"
+            description = "Поиск книг по названию, автору или жанру. Результат выдается постранично, "
+                    + "для получения следующей страницы передайте nextCursor из ответа в параметре cursor"
     )
     @ApiResponses(value = {
             @ApiResponse(
@@ -130,14 +165,157 @@ public class BookController {
     })
     public ResponseEntity<SearchBookResponseDto> searchBooks(
             @RequestBody SearchBookFilterDto filter,
+            @Parameter(description = "Курсор страницы (nextCursor из предыдущего ответа)")
+            @RequestParam(required = false) Long cursor,
+            @Parameter(description = "Размер страницы, ограничен сверху настройкой library.books.search.max-page-size")
+            @RequestParam(required = false) Integer size,
+            @Parameter(description = "Способ подсчета общего количества книг")
+            @RequestParam(defaultValue = "EXACT") SearchCountMode count,
+            Principal principal
+    ) {
+        var page = new BookPageRequest(cursor, pageSize(size), count);
+        LOG.debug(
+                "➤➤➤➤➤➤➤ Пользователь '{}' ищет книги по фильтру {}, страница {}",
+                Optional.ofNullable(principal).map(Principal::getName).orElse("anonymous"),
+                filter,
+                page
+        );
+        return ResponseEntity.ok(bookService.searchBooks(filter, page));
+    }
+
+    @GetMapping("/search/ranked")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @Operation(
+            summary = "Полнотекстовый поиск книг",
+            description = "Поиск книг по словам в названии и авторе с сортировкой по релевантности. "
+                    + "Слова запроса ищутся по префиксу"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200", description = "Успешный поиск книг",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = SearchBookResponseDto.class))
+            )
+    })
+    public ResponseEntity<SearchBookResponseDto> searchBooksRanked(
+            @Parameter(description = "Слова для поиска", example = "дейт базы")
+            @RequestParam String q,
+            @Parameter(description = "Максимальное количество книг в ответе")
+            @RequestParam(required = false) Integer limit,
+            Principal principal
+    ) {
+        LOG.debug(
+                "➤➤➤➤➤➤➤ Пользователь '{}' ищет книги по запросу '{}'",
+                Optional.ofNullable(principal).map(Principal::getName).orElse("anonymous"),
+                q
+        );
+        return ResponseEntity.ok(bookService.searchRanked(q, pageSize(limit)));
+    }
+
+    @GetMapping(value = "/availability/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @Operation(
+            summary = "Поток изменений доступности книг",
+            description = "Server-Sent Events: событие availability на каждую выданную, возвращенную или измененную книгу, "
+                    + "подходящую под фильтр. Изменения одной книги за короткий интервал приходят одним событием. "
+                    + "Событие resync означает, что часть изменений пропущена и доступность нужно запросить поиском"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200", description = "Подписка открыта",
+                    content = @Content(mediaType = "text/event-stream", schema = @Schema(implementation = BookAvailabilityDto.class))
+            ),
+            @ApiResponse(responseCode = "503", description = "Достигнут лимит подписок, повторите позже")
+    })
+    public ResponseEntity<SseEmitter> streamAvailability(
+            @Parameter(description = "ID книг, по умолчанию - все книги")
+            @RequestParam(required = false) Set<Long> bookIds,
+            @Parameter(description = "Жанр книг")
+            @RequestParam(required = false) Genre genre,
             Principal principal
     ) {
         LOG.debug(
-                "➤➤➤➤➤➤➤ Пользователь '{}' ищет книги по фильтру {}",
+                "➤➤➤➤➤➤➤ Пользователь '{}' подписывается на доступность книг {}, жанр {}",
                 Optional.ofNullable(principal).map(Principal::getName).orElse("anonymous"),
-                filter
+                bookIds,
+                genre
+        );
+        return availabilityStream.subscribe(bookIds, genre)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "5")
+                        .build());
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Массовый импорт книг из JSON",
+            description = "Добавляет книги из JSON-массива объектов {title, author, genre}. Строки с ошибками "
+                    + "пропускаются и перечисляются в ответе. Только для пользователей с ролью ADMIN."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200", description = "Импорт выполнен",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = BookImportResultDto.class))
+            ),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен. Требуется роль ADMIN.")
+    })
+    public ResponseEntity<BookImportResultDto> importBooksJson(InputStream body, Principal principal) throws IOException {
+        LOG.debug(
+                "➤➤➤➤➤➤➤ Пользователь '{}' импортирует книги из JSON",
+                Optional.ofNullable(principal).map(Principal::getName).orElse("anonymous")
+        );
+        return ResponseEntity.ok(importService.importJson(body));
+    }
+
+    @PostMapping(value = "/import", consumes = "text/csv")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Массовый импорт книг из CSV",
+            description = "Добавляет книги из CSV с заголовком title,author,genre. Строки с ошибками "
+                    + "пропускаются и перечисляются в ответе. Только для пользователей с ролью ADMIN."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200", description = "Импорт выполнен",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = BookImportResultDto.class))
+            ),
+            @ApiResponse(responseCode = "400", description = "В заголовке CSV нет обязательных колонок"),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен. Требуется роль ADMIN.")
+    })
+    public ResponseEntity<BookImportResultDto> importBooksCsv(InputStream body, Principal principal) throws IOException {
+        LOG.debug(
+                "➤➤➤➤➤➤➤ Пользователь '{}' импортирует книги из CSV",
+                Optional.ofNullable(principal).map(Principal::getName).orElse("anonymous")
         );
-        return ResponseEntity.ok(bookService.searchBooks(filter));
+        return ResponseEntity.ok(importService.importCsv(body));
+    }
+
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Выгрузка каталога",
+            description = "Потоковая выгрузка всех книг в формате NDJSON или CSV. Только для пользователей с ролью ADMIN."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Каталог выгружается"),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен. Требуется роль ADMIN.")
+    })
+    public ResponseEntity<StreamingResponseBody> exportBooks(
+            @Parameter(description = "Формат выгрузки")
+            @RequestParam(defaultValue = "NDJSON") BookExportFormat format,
+            Principal principal
+    ) {
+        LOG.debug(
+                "➤➤➤➤➤➤➤ Пользователь '{}' выгружает каталог в формате {}",
+                Optional.ofNullable(principal).map(Principal::getName).orElse("anonymous"),
+                format
+        );
+        StreamingResponseBody body = out -> exportService.export(format, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"books." + format.getExtension() + "\"")
+                .body(body);
     }
 
     @PostMapping("/{bookId}/borrow")
@@ -201,4 +379,118 @@ public class BookController {
         var returnedBook = bookService.returnBook(bookId, principal.getName());
         return ResponseEntity.ok(ReturnedBookDto.fromEntity(returnedBook));
     }
+
+    @GetMapping("/loans/my")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @Operation(
+            summary = "Моя история выдач",
+            description = "История выдач текущего пользователя от новых к старым. Для получения следующей страницы "
+                    + "передайте nextCursor из ответа в параметре cursor"
+    )
+    @ApiResponse(
+            responseCode = "200", description = "История выдач",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = LoanHistoryPageDto.class))
+    )
+    public ResponseEntity<LoanHistoryPageDto> getOwnLoanHistory(
+            @Parameter(description = "Курсор страницы (nextCursor из предыдущего ответа)")
+            @RequestParam(required = false) Long cursor,
+            @Parameter(description = "Размер страницы, ограничен сверху настройкой library.books.search.max-page-size")
+            @RequestParam(required = false) Integer size,
+            Principal principal
+    ) {
+        LOG.debug("➤➤➤➤➤➤➤ Пользователь '{}' запрашивает свою историю выдач", principal.getName());
+        return ResponseEntity.ok(loanHistoryService.getOwnHistory(principal.getName(), cursor, pageSize(size)));
+    }
+
+    @GetMapping("/loans/users/{userId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "История выдач пользователя",
+            description = "История выдач пользователя по его ID от новых к старым. Только для пользователей с ролью ADMIN."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200", description = "История выдач",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = LoanHistoryPageDto.class))
+            ),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен. Требуется роль ADMIN.")
+    })
+    public ResponseEntity<LoanHistoryPageDto> getUserLoanHistory(
+            @PathVariable Long userId,
+            @Parameter(description = "Курсор страницы (nextCursor из предыдущего ответа)")
+            @RequestParam(required = false) Long cursor,
+            @Parameter(description = "Размер страницы, ограничен сверху настройкой library.books.search.max-page-size")
+            @RequestParam(required = false) Integer size,
+            Principal principal
+    ) {
+        LOG.debug(
+                "➤➤➤➤➤➤➤ Пользователь '{}' запрашивает историю выдач пользователя с id: {}",
+                Optional.ofNullable(principal).map(Principal::getName).orElse("anonymous"),
+                userId
+        );
+        return ResponseEntity.ok(loanHistoryService.getUserHistory(userId, cursor, pageSize(size)));
+    }
+
+    @GetMapping("/{bookId}/loans")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "История выдач книги",
+            description = "История выдач книги по её ID от новых к старым. Только для пользователей с ролью ADMIN."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200", description = "История выдач",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = LoanHistoryPageDto.class))
+            ),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен. Требуется роль ADMIN.")
+    })
+    public ResponseEntity<LoanHistoryPageDto> getBookLoanHistory(
+            @PathVariable Long bookId,
+            @Parameter(description = "Курсор страницы (nextCursor из предыдущего ответа)")
+            @RequestParam(required = false) Long cursor,
+            @Parameter(description = "Размер страницы, ограничен сверху настройкой library.books.search.max-page-size")
+            @RequestParam(required = false) Integer size,
+            Principal principal
+    ) {
+        LOG.debug(
+                "➤➤➤➤➤➤➤ Пользователь '{}' запрашивает историю выдач книги с id: {}",
+                Optional.ofNullable(principal).map(Principal::getName).orElse("anonymous"),
+                bookId
+        );
+        return ResponseEntity.ok(loanHistoryService.getBookHistory(bookId, cursor, pageSize(size)));
+    }
+
+    @GetMapping("/loans/active")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Невозвращенные книги",
+            description = "Все активные бронирования от новых к старым. Только для пользователей с ролью ADMIN."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200", description = "Активные бронирования",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = LoanHistoryPageDto.class))
+            ),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен. Требуется роль ADMIN.")
+    })
+    public ResponseEntity<LoanHistoryPageDto> getActiveLoans(
+            @Parameter(description = "Курсор страницы (nextCursor из предыдущего ответа)")
+            @RequestParam(required = false) Long cursor,
+            @Parameter(description = "Размер страницы, ограничен сверху настройкой library.books.search.max-page-size")
+            @RequestParam(required = false) Integer size,
+            Principal principal
+    ) {
+        LOG.debug(
+                "➤➤➤➤➤➤➤ Пользователь '{}' запрашивает активные бронирования",
+                Optional.ofNullable(principal).map(Principal::getName).orElse("anonymous")
+        );
+        return ResponseEntity.ok(loanHistoryService.getActiveLoans(cursor, pageSize(size)));
+    }
+
+    private int pageSize(Integer requested) {
+        if (requested == null || requested < 1) {
+            return defaultPageSize;
+        }
+        return Math.min(requested, maxPageSize);
+    }
 }
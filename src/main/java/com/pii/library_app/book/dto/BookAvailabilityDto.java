@@ -0,0 +1,33 @@
+package com.pii.library_app.book.dto;
+
+import com.pii.library_app.book.event.BookChangedEvent;
+import com.pii.library_app.book.model.Genre;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Изменение доступности книги в потоке {@code GET /books/availability/stream}.
+ */
+@Schema(description = "Изменение доступности книги")
+public record BookAvailabilityDto(
+        @Schema(description = "Идентификатор книги", example = "1")
+        Long bookId,
+
+        @Schema(description = "Жанр книги", example = "DYSTOPIAN")
+        Genre genre,
+
+        @Schema(description = "Есть ли свободный экземпляр", example = "true")
+        boolean available,
+
+        @Schema(description = "Количество свободных экземпляров", example = "2")
+        int availableCopies,
+
+        @Schema(description = "Версия счетчиков книги: растет с каждой выдачей, возвратом и сменой числа экземпляров. "
+                + "Событие с меньшей версией, чем уже полученное по этой книге, устарело", example = "128")
+        long version
+) {
+
+    public static BookAvailabilityDto fromEvent(BookChangedEvent event) {
+        return new BookAvailabilityDto(event.bookId(), event.genre(), event.available(), event.availableCopies(),
+                event.copiesVersion());
+    }
+}
@@ -0,0 +1,46 @@
+package com.pii.library_app.book.dto;
+
+import com.pii.library_app.book.model.Book;
+import com.pii.library_app.book.model.Genre;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Книга в ответах API. Собирается до выхода из транзакции, поэтому сериализация ответа
+ * не обращается к БД.
+ */
+@Schema(description = "Книга в библиотеке")
+public record BookDto(
+        @Schema(description = "Идентификатор книги", example = "1")
+        Long id,
+
+        @Schema(description = "Название книги", example = "Введение в системы баз данных")
+        String title,
+
+        @Schema(description = "Автор книги", example = "Дейт К.Дж.")
+        String author,
+
+        @Schema(description = "Жанр книги", example = "PROGRAMMING")
+        Genre genre,
+
+        @Schema(description = "Есть ли свободные экземпляры", example = "true")
+        boolean available,
+
+        @Schema(description = "Общее число экземпляров", example = "3")
+        int totalCopies,
+
+        @Schema(description = "Число свободных экземпляров", example = "2")
+        int availableCopies
+) {
+
+    public static BookDto fromEntity(Book book) {
+        return new BookDto(
+                book.getId(),
+                book.getTitle(),
+                book.getAuthor(),
+                book.getGenre(),
+                book.isAvailable(),
+                book.getTotalCopies(),
+                book.getAvailableCopies()
+        );
+    }
+}
@@ -0,0 +1,28 @@
+package com.pii.library_app.book.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Формат выгрузки каталога")
+public enum BookExportFormat {
+
+    @Schema(description = "JSON-объект на строку")
+    NDJSON("application/x-ndjson", "ndjson"),
+    @Schema(description = "CSV с заголовком")
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    BookExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
@@ -0,0 +1,13 @@
+package com.pii.library_app.book.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Ошибка импорта строки")
+public record BookImportErrorDto(
+        @Schema(description = "Номер записи в файле, начиная с 1 (без учета заголовка CSV)", example = "3")
+        long row,
+
+        @Schema(description = "Причина ошибки", example = "Не указано название книги")
+        String message
+) {
+}
@@ -0,0 +1,18 @@
+package com.pii.library_app.book.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Результат импорта книг")
+public record BookImportResultDto(
+        @Schema(description = "Количество добавленных книг", example = "9998")
+        long imported,
+
+        @Schema(description = "Количество строк с ошибками", example = "2")
+        long failed,
+
+        @Schema(description = "Ошибки по строкам, список ограничен настройкой library.books.import.max-reported-errors")
+        List<BookImportErrorDto> errors
+) {
+}
@@ -0,0 +1,15 @@
+package com.pii.library_app.book.dto;
+
+/**
+ * Параметры страницы поиска книг.
+ *
+ * @param cursor    ID последней книги предыдущей страницы, {@code null} для первой страницы
+ * @param size      размер страницы
+ * @param countMode способ подсчета общего количества
+ */
+public record BookPageRequest(
+        Long cursor,
+        int size,
+        SearchCountMode countMode
+) {
+}
@@ -14,10 +14,17 @@ public record CreateBookDto(
         String author,
 
         @Schema(description = "Жанр книги", example = "PROGRAMMING")
-        Genre genre
+        Genre genre,
+
+        @Schema(description = "Число экземпляров книги, по умолчанию 1", example = "3")
+        Integer copies
 ) {
 
+    public CreateBookDto(String title, String author, Genre genre) {
+        this(title, author, genre, null);
+    }
+
     public Book toBook() {
-        return new Book(title(), author(), genre());
+        return new Book(title(), author(), genre(), copies() == null ? 1 : copies());
     }
 }
@@ -0,0 +1,37 @@
+package com.pii.library_app.book.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDateTime;
+
+/**
+ * Запись истории выдач. Заполняется прямо из запроса, без загрузки сущностей {@code BorrowedBook},
+ * {@code User} и {@code Book}.
+ */
+@Schema(description = "Запись истории выдачи книги")
+public record LoanHistoryDto(
+        @Schema(description = "Идентификатор бронирования", example = "42")
+        Long id,
+
+        @Schema(description = "Идентификатор книги", example = "1")
+        Long bookId,
+
+        @Schema(description = "Название книги", example = "История России")
+        String bookTitle,
+
+        @Schema(description = "Автор книги", example = "Сергей Соловьев")
+        String bookAuthor,
+
+        @Schema(description = "Идентификатор пользователя", example = "7")
+        Long userId,
+
+        @Schema(description = "Имя пользователя", example = "username")
+        String username,
+
+        @Schema(description = "Дата и время бронирования", example = "2025-01-01T12:00:00")
+        LocalDateTime borrowedAt,
+
+        @Schema(description = "Дата и время возврата, отсутствует у невозвращенной книги", example = "2025-01-14T12:00:00")
+        LocalDateTime returnedAt
+) {
+}
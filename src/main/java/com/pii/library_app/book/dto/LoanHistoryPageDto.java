@@ -0,0 +1,15 @@
+package com.pii.library_app.book.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Страница истории выдач, от новых к старым")
+public record LoanHistoryPageDto(
+        @Schema(description = "Выдачи на странице")
+        List<LoanHistoryDto> loans,
+
+        @Schema(description = "Курсор следующей страницы, отсутствует на последней странице", example = "17")
+        Long nextCursor
+) {
+}
@@ -12,6 +12,13 @@ public record SearchBookFilterDto(
         String author,
 
         @Schema(description = "Жанр книги", example = "PROGRAMMING")
-        Genre genre
+        Genre genre,
+
+        @Schema(description = "Только доступные (true) или только выданные (false) книги", example = "true")
+        Boolean available
 ) {
+
+    public SearchBookFilterDto(String title, String author, Genre genre) {
+        this(title, author, genre, null);
+    }
 }
@@ -1,6 +1,5 @@
 package com.pii.library_app.book.dto;
 
-import com.pii.library_app.book.model.Book;
 import io.swagger.v3.oas.annotations.media.Schema;
 
 import java.util.List;
@@ -8,9 +7,16 @@ import java.util.List;
 @Schema(description = "Ответ на запрос поиска книг")
 public record SearchBookResponseDto(
         @Schema(description = "Список найденных книг")
-        List<Book> books,
+        List<BookDto> books,
 
-        @Schema(description = "Общее количество найденных книг", example = "1")
-        long totalCount
+        @Schema(description = "Общее количество найденных книг, отсутствует при count=NONE", example = "1")
+        Long totalCount,
+
+        @Schema(description = "Курсор следующей страницы, отсутствует на последней странице", example = "42")
+        Long nextCursor
 ) {
+
+    public SearchBookResponseDto(List<BookDto> books, long totalCount) {
+        this(books, totalCount, null);
+    }
 }
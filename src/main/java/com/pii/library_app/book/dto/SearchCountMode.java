@@ -0,0 +1,13 @@
+package com.pii.library_app.book.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Способ подсчета общего количества найденных книг")
+public enum SearchCountMode {
+    /** Точный подсчет запросом COUNT */
+    EXACT,
+    /** Без подсчета */
+    NONE,
+    /** Оценка по статистике БД для поиска без фильтров, иначе точный подсчет */
+    ESTIMATE
+}
@@ -0,0 +1,39 @@
+package com.pii.library_app.book.event;
+
+import com.pii.library_app.book.model.Book;
+import com.pii.library_app.book.model.Genre;
+
+/**
+ * Событие изменения книги. Содержит снимок полей книги на момент изменения,
+ * для удаленной книги заполнен только ID. Обработчики после коммита разных транзакций выполняются
+ * в разных потоках без порядка: снимок с {@code copiesVersion} меньше уже примененного устарел.
+ */
+public record BookChangedEvent(
+        ChangeType type,
+        Long bookId,
+        String title,
+        String author,
+        Genre genre,
+        boolean available,
+        int totalCopies,
+        int availableCopies,
+        long copiesVersion
+) {
+
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        DELETED,
+        BORROWED,
+        RETURNED
+    }
+
+    public static BookChangedEvent of(ChangeType type, Book book) {
+        return new BookChangedEvent(type, book.getId(), book.getTitle(), book.getAuthor(), book.getGenre(), book.isAvailable(),
+                book.getTotalCopies(), book.getAvailableCopies(), book.getCopiesVersion());
+    }
+
+    public static BookChangedEvent deleted(Long bookId) {
+        return new BookChangedEvent(ChangeType.DELETED, bookId, null, null, null, false, 0, 0, 0);
+    }
+}
@@ -0,0 +1,8 @@
+package com.pii.library_app.book.exception;
+
+public class BookAlreadyBorrowedException extends RuntimeException {
+
+    public BookAlreadyBorrowedException(Long bookId) {
+        super("Книга уже забронирована этим пользователем ID=" + bookId);
+    }
+}
@@ -0,0 +1,8 @@
+package com.pii.library_app.book.exception;
+
+public class BookImportException extends RuntimeException {
+
+    public BookImportException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.pii.library_app.book.exception;
+
+public class InvalidBookCopiesException extends RuntimeException {
+
+    public InvalidBookCopiesException(String message) {
+        super(message);
+    }
+}
@@ -1,13 +1,18 @@
 package com.pii.library_app.book.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
 @Table(name = "books")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "books")
 public class Book {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "books_seq")
+    @SequenceGenerator(name = "books_seq", sequenceName = "books_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -20,15 +25,36 @@ public class Book {
     @Enumerated(EnumType.STRING)
     private Genre genre;
 
-    @Column(nullable = false)
+    // счетчики экземпляров меняются только условными UPDATE в BookRepository, сохранение сущности их не трогает
+    @Column(nullable = false, updatable = false)
     private boolean available = true;
 
+    @Column(nullable = false, updatable = false)
+    @ColumnDefault("1")
+    private int totalCopies = 1;
+
+    @Column(nullable = false, updatable = false)
+    @ColumnDefault("1")
+    private int availableCopies = 1;
+
+    // растет с каждым изменением счетчиков: по нему обработчики событий отбрасывают устаревшие снимки
+    @Column(nullable = false, updatable = false)
+    @ColumnDefault("0")
+    private long copiesVersion;
+
     public Book() {}
 
     public Book(String title, String author, Genre genre) {
+        this(title, author, genre, 1);
+    }
+
+    public Book(String title, String author, Genre genre, int copies) {
         this.title = title;
         this.author = author;
         this.genre = genre;
+        this.totalCopies = copies;
+        this.availableCopies = copies;
+        this.available = copies > 0;
     }
 
     public Long getId() {
@@ -63,6 +89,27 @@ public class Book {
         this.available = available;
     }
 
+    public int getTotalCopies() {
+        return totalCopies;
+    }
+
+    public void setTotalCopies(int totalCopies) {
+        this.totalCopies = totalCopies;
+    }
+
+    public int getAvailableCopies() {
+        return availableCopies;
+    }
+
+    public void setAvailableCopies(int availableCopies) {
+        this.availableCopies = availableCopies;
+        this.available = availableCopies > 0;
+    }
+
+    public long getCopiesVersion() {
+        return copiesVersion;
+    }
+
     public Genre getGenre() {
         return genre;
     }
@@ -7,7 +7,13 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "borrowed_books")
+@Table(
+        name = "borrowed_books",
+        indexes = {
+                @Index(name = "idx_borrowed_books_user_id", columnList = "user_id, id"),
+                @Index(name = "idx_borrowed_books_book_id", columnList = "book_id, id")
+        }
+)
 @Schema(description = "Бронирование книги в библиотеке")
 public class BorrowedBook {
 
@@ -16,12 +22,12 @@ public class BorrowedBook {
     @Schema(description = "Уникальный идентификатор бронирования")
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     @Schema(description = "Идентификатор пользователя, забронировавшего книгу")
     private User user;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "book_id", nullable = false)
     @Schema(description = "Идентификатор книги, забронированной пользователем")
     private Book book;
@@ -0,0 +1,29 @@
+package com.pii.library_app.book.repo;
+
+/**
+ * Условные UPDATE счетчиков экземпляров книги. Выполняются в обход сущности, поэтому из кэша второго уровня
+ * вытесняется только запись измененной книги, а не весь регион {@code books}.
+ */
+public interface BookCopiesRepository {
+
+    /**
+     * Атомарно выдает один экземпляр книги, если есть свободные.
+     *
+     * @return 1, если экземпляр выдан, иначе 0
+     */
+    int takeCopy(Long id);
+
+    /**
+     * Атомарно возвращает один экземпляр книги, если выдан хотя бы один.
+     *
+     * @return 1, если экземпляр возвращен, иначе 0
+     */
+    int releaseCopy(Long id);
+
+    /**
+     * Меняет общее число экземпляров книги, сдвигая число свободных на ту же величину.
+     *
+     * @return 1, если изменено, 0 - если книги нет или выдано больше экземпляров, чем {@code copies}
+     */
+    int resizeCopies(Long id, int copies);
+}
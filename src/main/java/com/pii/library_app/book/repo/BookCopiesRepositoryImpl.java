@@ -0,0 +1,86 @@
+package com.pii.library_app.book.repo;
+
+import com.pii.library_app.book.model.Book;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.hibernate.query.NativeQuery;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Массовый UPDATE через HQL заставляет Hibernate вытеснить весь регион {@code books} - при частых выдачах кэш книг
+ * постоянно пуст. Здесь UPDATE нативный с пустым пространством синхронизации: Hibernate не трогает кэш,
+ * а запись книги вытесняется вручную сразу после UPDATE и еще раз после завершения транзакции - на случай,
+ * если параллельное чтение успело положить в кэш строку до коммита.
+ */
+class BookCopiesRepositoryImpl implements BookCopiesRepository {
+
+    private static final String TAKE_COPY_SQL = """
+            UPDATE books
+            SET available_copies = available_copies - 1,
+                available = (CASE WHEN available_copies > 1 THEN TRUE ELSE FALSE END),
+                copies_version = copies_version + 1
+            WHERE id = :id AND available_copies > 0""";
+
+    private static final String RELEASE_COPY_SQL = """
+            UPDATE books
+            SET available_copies = available_copies + 1, available = TRUE, copies_version = copies_version + 1
+            WHERE id = :id AND available_copies < total_copies""";
+
+    private static final String RESIZE_COPIES_SQL = """
+            UPDATE books
+            SET available_copies = available_copies + :copies - total_copies,
+                total_copies = :copies,
+                available = (CASE WHEN available_copies + :copies - total_copies > 0 THEN TRUE ELSE FALSE END),
+                copies_version = copies_version + 1
+            WHERE id = :id AND total_copies - available_copies <= :copies""";
+
+    private final EntityManager entityManager;
+
+    BookCopiesRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public int takeCopy(Long id) {
+        return update(id, entityManager.createNativeQuery(TAKE_COPY_SQL));
+    }
+
+    @Override
+    public int releaseCopy(Long id) {
+        return update(id, entityManager.createNativeQuery(RELEASE_COPY_SQL));
+    }
+
+    @Override
+    public int resizeCopies(Long id, int copies) {
+        return update(id, entityManager.createNativeQuery(RESIZE_COPIES_SQL).setParameter("copies", copies));
+    }
+
+    private int update(Long id, Query query) {
+        // как @Modifying(flushAutomatically = true, clearAutomatically = true): несохраненные изменения уходят в БД
+        // до UPDATE, а управляемые сущности со старыми счетчиками отсоединяются после
+        entityManager.flush();
+        int updated = query.setParameter("id", id)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace("")
+                .executeUpdate();
+        entityManager.clear();
+        if (updated > 0) {
+            evict(id);
+        }
+        return updated;
+    }
+
+    private void evict(Long id) {
+        var cache = entityManager.getEntityManagerFactory().getCache();
+        cache.evict(Book.class, id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.evict(Book.class, id);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.pii.library_app.book.repo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Оценка количества книг по статистике планировщика PostgreSQL без полного COUNT по таблице.
+ */
+@Component
+public class BookCountEstimator {
+
+    private static final String ESTIMATE_SQL =
+            "SELECT reltuples::bigint FROM pg_class WHERE oid = 'books'::regclass";
+
+    private final Logger LOG = LoggerFactory.getLogger(BookCountEstimator.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Boolean postgres;
+
+    public BookCountEstimator(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @return оценка количества книг или пустое значение, если БД не поддерживает оценку
+     * или статистика по таблице еще не собрана
+     */
+    public Optional<Long> estimateTotal() {
+        if (!isPostgres()) {
+            return Optional.empty();
+        }
+        try {
+            var estimate = jdbcTemplate.queryForObject(ESTIMATE_SQL, Long.class);
+            return estimate == null || estimate < 0 ? Optional.empty() : Optional.of(estimate);
+        } catch (DataAccessException exc) {
+            LOG.warn("➤➤➤➤➤➤➤ Не удалось оценить количество книг: {}", exc.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            postgres = Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())));
+        }
+        return postgres;
+    }
+}
@@ -3,8 +3,15 @@ package com.pii.library_app.book.repo;
 import com.pii.library_app.book.model.Book;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
 @Repository
-public interface BookRepository extends JpaRepository<Book, Long>, JpaSpecificationExecutor<Book> {
+public interface BookRepository extends JpaRepository<Book, Long>, JpaSpecificationExecutor<Book>, BookCopiesRepository {
+
+    @Query("SELECT b.availableCopies FROM Book b WHERE b.id = :id")
+    Optional<Integer> findAvailableCopies(@Param("id") Long id);
 }
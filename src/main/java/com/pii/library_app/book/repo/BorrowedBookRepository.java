@@ -1,19 +1,74 @@
 package com.pii.library_app.book.repo;
 
+import com.pii.library_app.book.dto.LoanHistoryDto;
 import com.pii.library_app.book.model.Book;
 import com.pii.library_app.book.model.BorrowedBook;
 import com.pii.library_app.user.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 public interface BorrowedBookRepository extends JpaRepository<BorrowedBook, Long> {
 
-    List<BorrowedBook> findByUser(User user);
+    Optional<BorrowedBook> findByUserAndBookAndReturnedAtIsNull(User user, Book book);
 
-    List<BorrowedBook> findByBook(Book book);
+    /**
+     * История выдач пользователя с ID меньше {@code before}, от новых к старым, одним запросом с join.
+     */
+    @Query("""
+            SELECT new com.pii.library_app.book.dto.LoanHistoryDto(
+                bb.id, b.id, b.title, b.author, u.id, u.username, bb.borrowedAt, bb.returnedAt)
+            FROM BorrowedBook bb JOIN bb.book b JOIN bb.user u
+            WHERE u.id = :userId AND bb.id < :before
+            ORDER BY bb.id DESC
+            """)
+    List<LoanHistoryDto> findHistoryByUser(
+            @Param("userId") Long userId,
+            @Param("before") Long before,
+            Pageable pageable
+    );
 
-    Optional<BorrowedBook> findByUserAndBookAndReturnedAtIsNull(User user, Book book);
+    /**
+     * История выдач книги с ID меньше {@code before}, от новых к старым.
+     */
+    @Query("""
+            SELECT new com.pii.library_app.book.dto.LoanHistoryDto(
+                bb.id, b.id, b.title, b.author, u.id, u.username, bb.borrowedAt, bb.returnedAt)
+            FROM BorrowedBook bb JOIN bb.book b JOIN bb.user u
+            WHERE b.id = :bookId AND bb.id < :before
+            ORDER BY bb.id DESC
+            """)
+    List<LoanHistoryDto> findHistoryByBook(
+            @Param("bookId") Long bookId,
+            @Param("before") Long before,
+            Pageable pageable
+    );
+
+    /**
+     * Невозвращенные книги с ID бронирования меньше {@code before}, от новых к старым.
+     */
+    @Query("""
+            SELECT new com.pii.library_app.book.dto.LoanHistoryDto(
+                bb.id, b.id, b.title, b.author, u.id, u.username, bb.borrowedAt, bb.returnedAt)
+            FROM BorrowedBook bb JOIN bb.book b JOIN bb.user u
+            WHERE bb.returnedAt IS NULL AND bb.id < :before
+            ORDER BY bb.id DESC
+            """)
+    List<LoanHistoryDto> findActiveLoans(@Param("before") Long before, Pageable pageable);
+
+    /**
+     * Атомарно отмечает возврат, если бронирование еще не закрыто.
+     *
+     * @return 1, если бронирование было активным, иначе 0
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE BorrowedBook bb SET bb.returnedAt = :returnedAt WHERE bb.id = :id AND bb.returnedAt IS NULL")
+    int markReturned(@Param("id") Long id, @Param("returnedAt") LocalDateTime returnedAt);
 
 }
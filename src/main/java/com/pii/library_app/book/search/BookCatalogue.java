@@ -0,0 +1,330 @@
+package com.pii.library_app.book.search;
+
+import com.pii.library_app.book.dto.BookPageRequest;
+import com.pii.library_app.book.dto.BookDto;
+import com.pii.library_app.book.dto.SearchBookResponseDto;
+import com.pii.library_app.book.dto.SearchCountMode;
+import com.pii.library_app.book.event.BookChangedEvent;
+import com.pii.library_app.book.model.Genre;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Модель каталога книг для чтения в памяти процесса. Книги хранятся по колонкам в порядке возрастания ID,
+ * фильтры по жанру и доступности вычисляются пересечением битовых множеств.
+ * Загружается при старте приложения и обновляется после фиксации изменений книг.
+ */
+@Component
+public class BookCatalogue {
+
+    private static final String LOAD_SQL = "SELECT id, title, author, genre, available, total_copies, available_copies, copies_version FROM books ORDER BY id";
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final Genre[] GENRES = Genre.values();
+
+    private final Logger LOG = LoggerFactory.getLogger(BookCatalogue.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Columns columns = new Columns();
+    // изменения, зафиксированные во время загрузки: применяются к загруженным колонкам перед заменой
+    private List<BookChangedEvent> changedDuringLoad;
+
+    private volatile boolean ready;
+
+    public BookCatalogue(
+            JdbcTemplate jdbcTemplate,
+            @Value("${library.books.catalogue.enabled:true}") boolean enabled
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Колонки читаются из БД без блокировки и подменяют текущие под блокировкой записи, поэтому обработчики
+     * изменений книг не ждут окончания полного чтения таблицы. Изменения, пришедшие во время чтения,
+     * применяются к загруженным колонкам повторно; устаревшие счетчики отбрасывает проверка версии.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            LOG.info("➤➤➤➤➤➤➤ Каталог книг в памяти отключен");
+            return;
+        }
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            changedDuringLoad = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        var loaded = new Columns();
+        try {
+            jdbcTemplate.query(LOAD_SQL, rs -> {
+                loaded.put(
+                        rs.getLong("id"),
+                        rs.getString("title"),
+                        rs.getString("author"),
+                        Genre.valueOf(rs.getString("genre")),
+                        rs.getBoolean("available"),
+                        rs.getInt("total_copies"),
+                        rs.getInt("available_copies"),
+                        rs.getLong("copies_version")
+                );
+            });
+        } catch (RuntimeException exc) {
+            lock.writeLock().lock();
+            try {
+                changedDuringLoad = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw exc;
+        }
+        int replayed;
+        lock.writeLock().lock();
+        try {
+            replayed = changedDuringLoad.size();
+            changedDuringLoad.forEach(loaded::apply);
+            changedDuringLoad = null;
+            columns = loaded;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        LOG.info("➤➤➤➤➤➤➤ Каталог книг загружен в память: {} книг за {} мс, изменений во время загрузки: {}",
+                loaded.live.cardinality(), System.currentTimeMillis() - start, replayed);
+    }
+
+    // раньше смены версии в BookSearchCache
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onBookChanged(BookChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            columns.apply(event);
+            if (changedDuringLoad != null) {
+                changedDuringLoad.add(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Страница книг, подходящих под фильтр, по возрастанию ID.
+     *
+     * @param candidates ID книг, найденных по тексту, или {@code null}, если текстового условия нет
+     * @param genre      жанр или {@code null}
+     * @param onlyAvailable {@code true} - только доступные, {@code false} - только выданные, {@code null} - все
+     */
+    public SearchBookResponseDto search(NavigableSet<Long> candidates, Genre genre, Boolean onlyAvailable, BookPageRequest page) {
+        lock.readLock().lock();
+        try {
+            var c = columns;
+            var matched = (BitSet) c.live.clone();
+            if (genre != null) {
+                matched.and(c.byGenre[genre.ordinal()]);
+            }
+            if (onlyAvailable != null) {
+                if (onlyAvailable) {
+                    matched.and(c.available);
+                } else {
+                    matched.andNot(c.available);
+                }
+            }
+            if (candidates != null) {
+                matched.and(c.slotsOf(candidates));
+            }
+
+            var books = new ArrayList<BookDto>(Math.min(page.size(), c.size));
+            int slot = page.cursor() == null ? matched.nextSetBit(0) : matched.nextSetBit(c.firstSlotAfter(page.cursor()));
+            while (slot >= 0 && books.size() < page.size()) {
+                books.add(c.toDto(slot));
+                slot = matched.nextSetBit(slot + 1);
+            }
+            var nextCursor = slot >= 0 && !books.isEmpty() ? books.getLast().id() : null;
+            var totalCount = page.countMode() == SearchCountMode.NONE ? null : (long) matched.cardinality();
+            return new SearchBookResponseDto(books, totalCount, nextCursor);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return columns.live.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Колонки каталога. Не потокобезопасны: доступ под блокировкой каталога либо до публикации при загрузке.
+     */
+    private static final class Columns {
+
+        private long[] ids = new long[INITIAL_CAPACITY];
+        private String[] titles = new String[INITIAL_CAPACITY];
+        private String[] authors = new String[INITIAL_CAPACITY];
+        private byte[] genres = new byte[INITIAL_CAPACITY];
+        private int[] totalCopies = new int[INITIAL_CAPACITY];
+        private int[] availableCopies = new int[INITIAL_CAPACITY];
+        private long[] copiesVersions = new long[INITIAL_CAPACITY];
+        private final BitSet live = new BitSet();
+        private final BitSet available = new BitSet();
+        private final BitSet[] byGenre = new BitSet[GENRES.length];
+        private final Map<String, String> authorPool = new HashMap<>();
+        private int size;
+
+        Columns() {
+            Arrays.setAll(byGenre, i -> new BitSet());
+        }
+
+        void apply(BookChangedEvent event) {
+            switch (event.type()) {
+                case CREATED, UPDATED -> put(event.bookId(), event.title(), event.author(), event.genre(), event.available(),
+                        event.totalCopies(), event.availableCopies(), event.copiesVersion());
+                case BORROWED, RETURNED -> {
+                    int slot = slotOf(event.bookId());
+                    // снимок более ранней транзакции, пришедший после более нового, пропускаем
+                    if (slot >= 0 && live.get(slot) && event.copiesVersion() >= copiesVersions[slot]) {
+                        available.set(slot, event.available());
+                        availableCopies[slot] = event.availableCopies();
+                        copiesVersions[slot] = event.copiesVersion();
+                    }
+                }
+                case DELETED -> {
+                    int slot = slotOf(event.bookId());
+                    if (slot >= 0) {
+                        clearSlot(slot);
+                    }
+                }
+            }
+        }
+
+        BitSet slotsOf(NavigableSet<Long> bookIds) {
+            var slots = new BitSet(size);
+            for (Long bookId : bookIds) {
+                int slot = slotOf(bookId);
+                if (slot >= 0) {
+                    slots.set(slot);
+                }
+            }
+            return slots;
+        }
+
+        BookDto toDto(int slot) {
+            return new BookDto(ids[slot], titles[slot], authors[slot], GENRES[genres[slot]], available.get(slot),
+                    totalCopies[slot], availableCopies[slot]);
+        }
+
+        void put(long bookId, String title, String author, Genre genre, boolean isAvailable, int total, int free,
+                 long copiesVersion) {
+            int slot = slotOf(bookId);
+            boolean staleCopies = false;
+            if (slot < 0) {
+                slot = -slot - 1;
+                insertSlot(slot);
+                ids[slot] = bookId;
+            } else if (live.get(slot)) {
+                byGenre[genres[slot]].clear(slot);
+                staleCopies = copiesVersion < copiesVersions[slot];
+            }
+            titles[slot] = title;
+            authors[slot] = authorPool.computeIfAbsent(author, a -> a);
+            genres[slot] = (byte) genre.ordinal();
+            byGenre[genre.ordinal()].set(slot);
+            if (!staleCopies) {
+                totalCopies[slot] = total;
+                availableCopies[slot] = free;
+                copiesVersions[slot] = copiesVersion;
+                available.set(slot, isAvailable);
+            }
+            live.set(slot);
+        }
+
+        private void clearSlot(int slot) {
+            // слот остается на месте, чтобы не сдвигать колонки; освобождается только содержимое
+            if (live.get(slot)) {
+                byGenre[genres[slot]].clear(slot);
+            }
+            live.clear(slot);
+            available.clear(slot);
+            titles[slot] = null;
+            authors[slot] = null;
+        }
+
+        private void insertSlot(int slot) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                titles = Arrays.copyOf(titles, capacity);
+                authors = Arrays.copyOf(authors, capacity);
+                genres = Arrays.copyOf(genres, capacity);
+                totalCopies = Arrays.copyOf(totalCopies, capacity);
+                availableCopies = Arrays.copyOf(availableCopies, capacity);
+                copiesVersions = Arrays.copyOf(copiesVersions, capacity);
+            }
+            if (slot < size) {
+                // ID пришел не по порядку (транзакции зафиксированы в другом порядке) - сдвигаем хвост
+                System.arraycopy(ids, slot, ids, slot + 1, size - slot);
+                System.arraycopy(titles, slot, titles, slot + 1, size - slot);
+                System.arraycopy(authors, slot, authors, slot + 1, size - slot);
+                System.arraycopy(genres, slot, genres, slot + 1, size - slot);
+                System.arraycopy(totalCopies, slot, totalCopies, slot + 1, size - slot);
+                System.arraycopy(availableCopies, slot, availableCopies, slot + 1, size - slot);
+                System.arraycopy(copiesVersions, slot, copiesVersions, slot + 1, size - slot);
+                shiftRight(live, slot);
+                shiftRight(available, slot);
+                for (BitSet genreSlots : byGenre) {
+                    shiftRight(genreSlots, slot);
+                }
+            }
+            size++;
+        }
+
+        private void shiftRight(BitSet bits, int from) {
+            for (int i = bits.previousSetBit(size - 1); i >= from; i = bits.previousSetBit(i - 1)) {
+                bits.clear(i);
+                bits.set(i + 1);
+            }
+        }
+
+        private int slotOf(long bookId) {
+            return Arrays.binarySearch(ids, 0, size, bookId);
+        }
+
+        int firstSlotAfter(long bookId) {
+            int slot = slotOf(bookId);
+            return slot >= 0 ? slot + 1 : -slot - 1;
+        }
+    }
+}
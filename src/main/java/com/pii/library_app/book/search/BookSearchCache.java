@@ -0,0 +1,92 @@
+package com.pii.library_app.book.search;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pii.library_app.book.dto.BookPageRequest;
+import com.pii.library_app.book.dto.SearchBookFilterDto;
+import com.pii.library_app.book.dto.SearchBookResponseDto;
+import com.pii.library_app.book.event.BookChangedEvent;
+import com.pii.library_app.config.datasource.ReplicaLagGuard;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Кэш страниц поиска книг по нормализованному фильтру. В ключ входит версия каталога, которая растет
+ * после каждого изменения книг, поэтому результат, посчитанный до изменения, больше не выдается.
+ * Одинаковые одновременные промахи считаются один раз: остальные запросы ждут результат первого.
+ * Страницы для кэша читаются из основной БД: реплика может еще не содержать изменение, после которого
+ * выросла версия, и отставшая страница осталась бы в кэше под новой версией до следующего изменения.
+ */
+@Component
+public class BookSearchCache {
+
+    private final ReplicaLagGuard lagGuard;
+    private final boolean enabled;
+    private final AtomicLong version = new AtomicLong();
+    private final Cache<Key, SearchBookResponseDto> cache;
+
+    public BookSearchCache(
+            MeterRegistry meterRegistry,
+            ReplicaLagGuard lagGuard,
+            @Value("${library.books.search.cache.enabled:true}") boolean enabled,
+            @Value("${library.books.search.cache.max-size:10000}") long maxSize,
+            @Value("${library.books.search.cache.ttl:10m}") Duration ttl
+    ) {
+        this.lagGuard = lagGuard;
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "library.books.search");
+    }
+
+    /**
+     * Страница поиска из кэша или из {@code search} при промахе. Фильтр должен быть нормализован
+     * {@link #normalize}, иначе одинаковые запросы попадут в разные записи.
+     */
+    public SearchBookResponseDto get(SearchBookFilterDto filter, BookPageRequest page, Supplier<SearchBookResponseDto> search) {
+        if (!enabled) {
+            return search.get();
+        }
+        return cache.get(new Key(version.get(), filter, page), key -> lagGuard.onPrimary(search));
+    }
+
+    /**
+     * Фильтр без различий в регистре и пробелах по краям, пустые строки заменены на {@code null}.
+     */
+    public static SearchBookFilterDto normalize(SearchBookFilterDto filter) {
+        return new SearchBookFilterDto(normalize(filter.title()), normalize(filter.author()), filter.genre(), filter.available());
+    }
+
+    private static String normalize(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Версия меняется последней, после обновления каталога и текстового индекса: иначе запрос между сменой
+     * версии и обновлением каталога сохранил бы устаревшую страницу под новой версией.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onBookChanged(BookChangedEvent event) {
+        version.incrementAndGet();
+    }
+
+    private record Key(long version, SearchBookFilterDto filter, BookPageRequest page) {
+    }
+}
@@ -0,0 +1,237 @@
+package com.pii.library_app.book.search;
+
+import com.pii.library_app.book.event.BookChangedEvent;
+import com.pii.library_app.book.model.Genre;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Инвертированный индекс по названию и автору книги: слово → ID книг.
+ * Слова запроса ищутся по префиксу, все слова запроса должны найтись в книге.
+ * Индекс строится при старте приложения и обновляется после фиксации изменений книг.
+ */
+@Component
+public class BookTextIndex {
+
+    private static final String LOAD_SQL = "SELECT id, title, author, genre FROM books";
+
+    private static final double TITLE_WEIGHT = 2.0;
+    private static final double AUTHOR_WEIGHT = 1.0;
+    private static final double PREFIX_MATCH_FACTOR = 0.5;
+
+    private final Logger LOG = LoggerFactory.getLogger(BookTextIndex.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ConcurrentSkipListMap<String, Set<Long>> titleTerms = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<String, Set<Long>> authorTerms = new ConcurrentSkipListMap<>();
+    private final Map<Long, IndexedBook> books = new ConcurrentHashMap<>();
+    // блокировка вместо synchronized: виртуальный поток, ждущий монитор, занимает поток-носитель
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private volatile boolean ready;
+
+    public BookTextIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        return books.size();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        writeLock.lock();
+        try {
+            jdbcTemplate.query(LOAD_SQL, rs -> {
+                index(
+                        rs.getLong("id"),
+                        rs.getString("title"),
+                        rs.getString("author"),
+                        Genre.valueOf(rs.getString("genre"))
+                );
+            });
+            ready = true;
+        } finally {
+            writeLock.unlock();
+        }
+        LOG.info("➤➤➤➤➤➤➤ Поисковый индекс книг построен: {} книг за {} мс", books.size(), System.currentTimeMillis() - start);
+    }
+
+    // раньше смены версии в BookSearchCache
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onBookChanged(BookChangedEvent event) {
+        switch (event.type()) {
+            case CREATED, UPDATED -> index(event.bookId(), event.title(), event.author(), event.genre());
+            case DELETED -> remove(event.bookId());
+            case BORROWED, RETURNED -> {
+            }
+        }
+    }
+
+    public void index(Long bookId, String title, String author, Genre genre) {
+        writeLock.lock();
+        try {
+            remove(bookId);
+            var book = new IndexedBook(tokenize(title), tokenize(author), genre);
+            book.titleTerms().forEach(term -> titleTerms.computeIfAbsent(term, k -> ConcurrentHashMap.newKeySet()).add(bookId));
+            book.authorTerms().forEach(term -> authorTerms.computeIfAbsent(term, k -> ConcurrentHashMap.newKeySet()).add(bookId));
+            books.put(bookId, book);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void remove(Long bookId) {
+        writeLock.lock();
+        try {
+            var book = books.remove(bookId);
+            if (book == null) {
+                return;
+            }
+            book.titleTerms().forEach(term -> removePosting(titleTerms, term, bookId));
+            book.authorTerms().forEach(term -> removePosting(authorTerms, term, bookId));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * ID книг, подходящих под фильтр, по возрастанию. {@code null} в параметре означает отсутствие условия.
+     */
+    public NavigableSet<Long> match(String title, String author, Genre genre) {
+        Set<Long> result = null;
+        result = intersect(result, title, titleTerms);
+        result = intersect(result, author, authorTerms);
+        var sorted = new TreeSet<Long>();
+        for (Long id : result == null ? books.keySet() : result) {
+            var book = books.get(id);
+            if (book != null && (genre == null || genre == book.genre())) {
+                sorted.add(id);
+            }
+        }
+        return sorted;
+    }
+
+    /**
+     * ID книг, в названии или авторе которых есть все слова запроса, по убыванию релевантности.
+     * Вес слова тем больше, чем реже оно встречается; совпадение в названии весит больше,
+     * чем в авторе, а совпадение по префиксу меньше, чем полное.
+     */
+    public List<Long> rank(String query, int limit) {
+        var queryTerms = tokenize(query);
+        if (queryTerms.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Double> scores = null;
+        for (String queryTerm : queryTerms) {
+            var termScores = new HashMap<Long, Double>();
+            score(termScores, queryTerm, titleTerms, TITLE_WEIGHT);
+            score(termScores, queryTerm, authorTerms, AUTHOR_WEIGHT);
+            if (scores == null) {
+                scores = termScores;
+            } else {
+                scores.keySet().retainAll(termScores.keySet());
+                scores.replaceAll((id, score) -> score + termScores.get(id));
+            }
+            if (scores.isEmpty()) {
+                return List.of();
+            }
+        }
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.<Long, Double>comparingByKey()))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    private void score(Map<Long, Double> scores, String queryTerm, NavigableMap<String, Set<Long>> terms, double weight) {
+        int total = Math.max(books.size(), 1);
+        prefixRange(terms, queryTerm).forEach((term, ids) -> {
+            double idf = Math.log(1 + (double) total / Math.max(ids.size(), 1));
+            double score = weight * idf * (term.equals(queryTerm) ? 1 : PREFIX_MATCH_FACTOR);
+            ids.forEach(id -> scores.merge(id, score, Math::max));
+        });
+    }
+
+    private Set<Long> intersect(Set<Long> current, String text, NavigableMap<String, Set<Long>> terms) {
+        if (text == null || text.isBlank()) {
+            return current;
+        }
+        var queryTerms = tokenize(text);
+        if (queryTerms.isEmpty()) {
+            // в запросе только знаки препинания: условие задано, но ни одно слово под него не подходит
+            return new HashSet<>();
+        }
+        var result = current;
+        for (String queryTerm : queryTerms) {
+            var matched = new HashSet<Long>();
+            prefixRange(terms, queryTerm).values().forEach(matched::addAll);
+            if (result == null) {
+                result = matched;
+            } else {
+                result.retainAll(matched);
+            }
+        }
+        return result;
+    }
+
+    private static NavigableMap<String, Set<Long>> prefixRange(NavigableMap<String, Set<Long>> terms, String prefix) {
+        return terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    private static void removePosting(ConcurrentSkipListMap<String, Set<Long>> terms, String term, Long bookId) {
+        var ids = terms.get(term);
+        if (ids != null) {
+            ids.remove(bookId);
+            if (ids.isEmpty()) {
+                terms.remove(term, ids);
+            }
+        }
+    }
+
+    static Set<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return Set.of();
+        }
+        var normalized = text.toLowerCase(Locale.ROOT).replace('ё', 'е');
+        return Set.copyOf(
+                Arrays.stream(normalized.split("[^\\p{L}\\p{N}]+"))
+                        .filter(term -> !term.isEmpty())
+                        .toList()
+        );
+    }
+
+    private record IndexedBook(Collection<String> titleTerms, Collection<String> authorTerms, Genre genre) {
+    }
+}
@@ -0,0 +1,105 @@
+package com.pii.library_app.book.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pii.library_app.book.event.BookChangedEvent;
+import com.pii.library_app.book.repo.BookRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Учет свободных экземпляров книг в памяти процесса. Пропускает к условному UPDATE в БД не больше
+ * запросов, чем осталось экземпляров, а остальные отклоняет сразу, не выстраивая их в очередь
+ * на блокировку строки книги. Источник истины - БД: запись учета живет {@code ledger-ttl}
+ * и сбрасывается, если БД отказала в выдаче или книга изменилась.
+ */
+@Component
+public class BookCopyLedger {
+
+    private final BookRepository bookRepository;
+    private final boolean enabled;
+    private final Cache<Long, AtomicInteger> remaining;
+
+    public BookCopyLedger(
+            BookRepository bookRepository,
+            @Value("${library.books.copies.ledger-enabled:true}") boolean enabled,
+            @Value("${library.books.copies.ledger-ttl:5s}") Duration ttl,
+            @Value("${library.books.copies.ledger-max-size:10000}") long maxSize
+    ) {
+        this.bookRepository = bookRepository;
+        this.enabled = enabled;
+        this.remaining = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Резервирует экземпляр книги в памяти.
+     *
+     * @return {@code false}, если свободных экземпляров заведомо нет
+     */
+    public boolean tryReserve(Long bookId) {
+        if (!enabled) {
+            return true;
+        }
+        var copies = remaining.get(bookId, id -> bookRepository.findAvailableCopies(id)
+                .map(AtomicInteger::new)
+                .orElse(null));
+        if (copies == null) {
+            // книги нет - ошибку вернет БД
+            return true;
+        }
+        int current;
+        do {
+            current = copies.get();
+            if (current <= 0) {
+                return false;
+            }
+        } while (!copies.compareAndSet(current, current - 1));
+        return true;
+    }
+
+    /**
+     * БД не выдала экземпляр: учет разошелся с БД, следующая резервация перечитает остаток из БД.
+     * Обнулять запись нельзя - параллельный возврат успел бы ее увеличить, и учет снова разошелся бы с БД.
+     */
+    public void markExhausted(Long bookId) {
+        remaining.invalidate(bookId);
+    }
+
+    /**
+     * Возвращает в учет экземпляр, зарезервированный {@link #tryReserve}, если выдача не дошла до БД.
+     */
+    public void release(Long bookId) {
+        var copies = remaining.getIfPresent(bookId);
+        if (copies != null) {
+            copies.incrementAndGet();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        switch (event.type()) {
+            case RETURNED -> release(event.bookId());
+            case UPDATED, DELETED -> remaining.invalidate(event.bookId());
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Выдача откатилась после резервирования - возвращаем экземпляр в учет.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_ROLLBACK)
+    public void onBookChangeRolledBack(BookChangedEvent event) {
+        if (event.type() == BookChangedEvent.ChangeType.BORROWED) {
+            release(event.bookId());
+        }
+    }
+}
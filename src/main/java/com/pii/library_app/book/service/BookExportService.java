@@ -0,0 +1,138 @@
+package com.pii.library_app.book.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pii.library_app.book.dto.BookExportFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Потоковая выгрузка каталога книг. Строки читаются курсором БД порциями по {@code fetch-size}
+ * и сразу пишутся в выходной поток, поэтому расход памяти не зависит от размера каталога.
+ */
+@Service
+public class BookExportService {
+
+    private static final String EXPORT_SQL = "SELECT id, title, author, genre, available FROM books ORDER BY id";
+    private static final String CSV_HEADER = "id,title,author,genre,available";
+
+    private final Logger LOG = LoggerFactory.getLogger(BookExportService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    public BookExportService(
+            DataSource dataSource,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            @Value("${library.books.export.fetch-size:1000}") int fetchSize
+    ) {
+        // отдельный JdbcTemplate, чтобы fetch size не влиял на остальные запросы
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        // PostgreSQL читает курсором только при выключенном autocommit, т.е. внутри транзакции
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @return количество выгруженных книг
+     */
+    public long export(BookExportFormat format, OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        long rows;
+        try {
+            rows = switch (format) {
+                case NDJSON -> exportNdjson(out);
+                case CSV -> exportCsv(out);
+            };
+        } catch (UncheckedIOException exc) {
+            throw exc.getCause();
+        }
+        LOG.info("➤➤➤➤➤➤➤ Выгружено {} книг в формате {} за {} мс", rows, format, System.currentTimeMillis() - start);
+        return rows;
+    }
+
+    private long exportNdjson(OutputStream out) throws IOException {
+        try (var generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            var rows = streamRows(rs -> {
+                try {
+                    generator.writeStartObject();
+                    generator.writeNumberField("id", rs.getLong("id"));
+                    generator.writeStringField("title", rs.getString("title"));
+                    generator.writeStringField("author", rs.getString("author"));
+                    generator.writeStringField("genre", rs.getString("genre"));
+                    generator.writeBooleanField("available", rs.getBoolean("available"));
+                    generator.writeEndObject();
+                    generator.writeRaw('\n');
+                } catch (IOException exc) {
+                    throw new UncheckedIOException(exc);
+                }
+            });
+            generator.flush();
+            return rows;
+        }
+    }
+
+    private long exportCsv(OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        var rows = streamRows(rs -> {
+            try {
+                writer.write(Long.toString(rs.getLong("id")));
+                writer.write(',');
+                writeCsvValue(writer, rs.getString("title"));
+                writer.write(',');
+                writeCsvValue(writer, rs.getString("author"));
+                writer.write(',');
+                writer.write(rs.getString("genre"));
+                writer.write(',');
+                writer.write(Boolean.toString(rs.getBoolean("available")));
+                writer.write('\n');
+            } catch (IOException exc) {
+                throw new UncheckedIOException(exc);
+            }
+        });
+        writer.flush();
+        return rows;
+    }
+
+    private long streamRows(RowCallbackHandler rowHandler) {
+        var rows = new long[1];
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(EXPORT_SQL, (RowCallbackHandler) rs -> {
+            rowHandler.processRow(rs);
+            rows[0]++;
+        }));
+        return rows[0];
+    }
+
+    private static void writeCsvValue(Writer writer, String value) throws IOException {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,232 @@
+package com.pii.library_app.book.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pii.library_app.book.dto.BookImportErrorDto;
+import com.pii.library_app.book.dto.BookImportResultDto;
+import com.pii.library_app.book.dto.CreateBookDto;
+import com.pii.library_app.book.event.BookChangedEvent;
+import com.pii.library_app.book.event.BookChangedEvent.ChangeType;
+import com.pii.library_app.book.exception.BookImportException;
+import com.pii.library_app.book.model.Book;
+import com.pii.library_app.book.model.Genre;
+import com.pii.library_app.book.repo.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Массовый импорт книг из JSON-массива или CSV. Файл читается потоково, корректные строки
+ * сохраняются пакетами в отдельных транзакциях, ошибки собираются по строкам и не прерывают импорт.
+ */
+@Service
+public class BookImportService {
+
+    private static final int MAX_LENGTH = 255;
+
+    private final Logger LOG = LoggerFactory.getLogger(BookImportService.class);
+
+    private final BookRepository bookRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+    private final int maxReportedErrors;
+
+    public BookImportService(
+            BookRepository bookRepository,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${library.books.import.batch-size:500}") int batchSize,
+            @Value("${library.books.import.max-reported-errors:1000}") int maxReportedErrors
+    ) {
+        this.bookRepository = bookRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    public BookImportResultDto importJson(InputStream in) throws IOException {
+        var importer = new Importer();
+        // для JSON-массива итератор проходит по его элементам, не загружая массив целиком
+        try (var iterator = objectMapper.readerFor(CreateBookDto.class).<CreateBookDto>readValues(in)) {
+            long row = 0;
+            while (true) {
+                row++;
+                try {
+                    if (!iterator.hasNextValue()) {
+                        break;
+                    }
+                    importer.add(row, iterator.nextValue());
+                } catch (JsonParseException exc) {
+                    importer.reject(row, "Некорректный JSON: " + exc.getOriginalMessage());
+                    break;
+                } catch (JsonMappingException exc) {
+                    importer.reject(row, "Некорректная запись: " + exc.getOriginalMessage());
+                }
+            }
+        }
+        return importer.finish();
+    }
+
+    public BookImportResultDto importCsv(InputStream in) throws IOException {
+        var importer = new Importer();
+        var reader = new CsvRecordReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+        var header = reader.next();
+        if (header == null) {
+            return importer.finish();
+        }
+        var columns = new HashMap<String, Integer>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).replace("\uFEFF", "").strip().toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.keySet().containsAll(List.of("title", "author", "genre"))) {
+            throw new BookImportException("В заголовке CSV должны быть колонки title, author, genre");
+        }
+        long row = 0;
+        List<String> values;
+        while ((values = reader.next()) != null) {
+            if (values.size() == 1 && values.getFirst().isBlank()) {
+                continue;
+            }
+            row++;
+            var genre = column(values, columns, "genre");
+            var copies = columns.containsKey("copies") ? column(values, columns, "copies") : null;
+            Genre parsedGenre;
+            try {
+                parsedGenre = genre == null || genre.isBlank() ? null : Genre.valueOf(genre.strip().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException exc) {
+                importer.reject(row, "Неизвестный жанр: " + genre);
+                continue;
+            }
+            try {
+                importer.add(row, new CreateBookDto(
+                        column(values, columns, "title"),
+                        column(values, columns, "author"),
+                        parsedGenre,
+                        copies == null || copies.isBlank() ? null : Integer.valueOf(copies.strip())
+                ));
+            } catch (NumberFormatException exc) {
+                importer.reject(row, "Некорректное число экземпляров: " + copies);
+            }
+        }
+        return importer.finish();
+    }
+
+    private static String column(List<String> values, Map<String, Integer> columns, String name) {
+        int index = columns.get(name);
+        return index < values.size() ? values.get(index) : null;
+    }
+
+    private static String validate(CreateBookDto dto) {
+        if (dto == null) {
+            return "Пустая запись";
+        }
+        if (dto.title() == null || dto.title().isBlank()) {
+            return "Не указано название книги";
+        }
+        if (dto.author() == null || dto.author().isBlank()) {
+            return "Не указан автор книги";
+        }
+        if (dto.genre() == null) {
+            return "Не указан жанр книги";
+        }
+        if (dto.copies() != null && dto.copies() < 1) {
+            return "Число экземпляров книги должно быть положительным";
+        }
+        if (dto.title().length() > MAX_LENGTH || dto.author().length() > MAX_LENGTH) {
+            return "Название и автор должны быть не длиннее " + MAX_LENGTH + " символов";
+        }
+        return null;
+    }
+
+    /**
+     * Состояние одного импорта: текущий пакет и счетчики.
+     */
+    private class Importer {
+
+        private final List<Long> batchRows = new ArrayList<>(batchSize);
+        private final List<Book> batch = new ArrayList<>(batchSize);
+        private final List<BookImportErrorDto> errors = new ArrayList<>();
+        private long imported;
+        private long failed;
+
+        void add(long row, CreateBookDto dto) {
+            var error = validate(dto);
+            if (error != null) {
+                reject(row, error);
+                return;
+            }
+            batchRows.add(row);
+            batch.add(dto.toBook());
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void reject(long row, String message) {
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new BookImportErrorDto(row, message));
+            }
+        }
+
+        BookImportResultDto finish() {
+            flush();
+            LOG.info("➤➤➤➤➤➤➤ Импорт книг завершен: добавлено {}, ошибок {}", imported, failed);
+            return new BookImportResultDto(imported, failed, List.copyOf(errors));
+        }
+
+        private void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> save(batch));
+                imported += batch.size();
+            } catch (DataAccessException | TransactionException exc) {
+                // пакет откатился целиком - сохраняем по одной книге, чтобы найти строки с ошибкой
+                LOG.warn("➤➤➤➤➤➤➤ Пакет импорта из {} книг не сохранен, сохраняем по одной: {}", batch.size(), exc.getMessage());
+                for (int i = 0; i < batch.size(); i++) {
+                    var book = batch.get(i);
+                    book.setId(null);
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> save(List.of(book)));
+                        imported++;
+                    } catch (DataAccessException | TransactionException rowExc) {
+                        reject(batchRows.get(i), "Ошибка сохранения: " + rowExc.getMostSpecificCause().getMessage());
+                    }
+                }
+            }
+            batch.clear();
+            batchRows.clear();
+        }
+
+        private void save(List<Book> books) {
+            bookRepository.saveAll(books);
+            bookRepository.flush();
+            books.forEach(book -> eventPublisher.publishEvent(BookChangedEvent.of(ChangeType.CREATED, book)));
+        }
+    }
+}
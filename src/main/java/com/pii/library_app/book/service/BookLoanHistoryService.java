@@ -0,0 +1,58 @@
+package com.pii.library_app.book.service;
+
+import com.pii.library_app.book.dto.LoanHistoryDto;
+import com.pii.library_app.book.dto.LoanHistoryPageDto;
+import com.pii.library_app.book.repo.BorrowedBookRepository;
+import com.pii.library_app.user.service.UserIdResolver;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * История выдач книг. Страницы идут от новых бронирований к старым, курсор - ID последнего бронирования
+ * предыдущей страницы. Записи собираются проекцией одним запросом, сущности пользователей и книг не загружаются.
+ */
+@Service
+public class BookLoanHistoryService {
+
+    private final BorrowedBookRepository borrowedBookRepository;
+    private final UserIdResolver userIdResolver;
+
+    public BookLoanHistoryService(BorrowedBookRepository borrowedBookRepository, UserIdResolver userIdResolver) {
+        this.borrowedBookRepository = borrowedBookRepository;
+        this.userIdResolver = userIdResolver;
+    }
+
+    @Transactional(readOnly = true)
+    public LoanHistoryPageDto getOwnHistory(String username, Long cursor, int size) {
+        return getUserHistory(userIdResolver.resolve(username), cursor, size);
+    }
+
+    @Transactional(readOnly = true)
+    public LoanHistoryPageDto getUserHistory(Long userId, Long cursor, int size) {
+        return page(cursor, size, (before, limit) -> borrowedBookRepository.findHistoryByUser(userId, before, limit));
+    }
+
+    @Transactional(readOnly = true)
+    public LoanHistoryPageDto getBookHistory(Long bookId, Long cursor, int size) {
+        return page(cursor, size, (before, limit) -> borrowedBookRepository.findHistoryByBook(bookId, before, limit));
+    }
+
+    @Transactional(readOnly = true)
+    public LoanHistoryPageDto getActiveLoans(Long cursor, int size) {
+        return page(cursor, size, borrowedBookRepository::findActiveLoans);
+    }
+
+    private LoanHistoryPageDto page(Long cursor, int size, BiFunction<Long, Pageable, List<LoanHistoryDto>> query) {
+        var before = cursor == null ? Long.MAX_VALUE : cursor;
+        // запрашиваем на одну запись больше, чтобы понять, есть ли следующая страница
+        var found = query.apply(before, PageRequest.of(0, size + 1));
+        var hasNext = found.size() > size;
+        var loans = hasNext ? found.subList(0, size) : found;
+        return new LoanHistoryPageDto(loans, hasNext ? loans.getLast().id() : null);
+    }
+}
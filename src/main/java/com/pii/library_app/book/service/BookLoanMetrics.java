@@ -0,0 +1,46 @@
+package com.pii.library_app.book.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Счетчики исходов выдачи и возврата книг: {@code library.loans} с тегами операции и исхода.
+ */
+@Component
+public class BookLoanMetrics {
+
+    public static final String COUNTER_NAME = "library.loans";
+
+    private final MeterRegistry meterRegistry;
+
+    public BookLoanMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void borrowed() {
+        record("borrow", "success");
+    }
+
+    /**
+     * @param reason {@code sold_out} - отклонено учетом экземпляров в памяти, {@code not_available},
+     *               {@code not_found}
+     */
+    public void borrowRejected(String reason) {
+        record("borrow", reason);
+    }
+
+    public void returned() {
+        record("return", "success");
+    }
+
+    /**
+     * @param reason {@code not_found} или {@code not_borrowed}
+     */
+    public void returnRejected(String reason) {
+        record("return", reason);
+    }
+
+    private void record(String operation, String outcome) {
+        meterRegistry.counter(COUNTER_NAME, "operation", operation, "outcome", outcome).increment();
+    }
+}
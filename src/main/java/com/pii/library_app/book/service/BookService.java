@@ -1,50 +1,108 @@
 package com.pii.library_app.book.service;
 
+import com.pii.library_app.book.dto.BookDto;
+import com.pii.library_app.book.dto.BookPageRequest;
 import com.pii.library_app.book.dto.CreateBookDto;
 import com.pii.library_app.book.dto.SearchBookFilterDto;
 import com.pii.library_app.book.dto.SearchBookResponseDto;
+import com.pii.library_app.book.dto.SearchCountMode;
+import com.pii.library_app.book.event.BookChangedEvent;
+import com.pii.library_app.book.event.BookChangedEvent.ChangeType;
+import com.pii.library_app.book.exception.BookAlreadyBorrowedException;
 import com.pii.library_app.book.exception.BookNotAvailableException;
 import com.pii.library_app.book.exception.BookNotBorrowedException;
 import com.pii.library_app.book.exception.BookNotFoundException;
+import com.pii.library_app.book.exception.InvalidBookCopiesException;
 import com.pii.library_app.book.model.Book;
 import com.pii.library_app.book.model.BorrowedBook;
+import com.pii.library_app.book.repo.BookCountEstimator;
 import com.pii.library_app.book.repo.BookRepository;
 import com.pii.library_app.book.repo.BorrowedBookRepository;
+import com.pii.library_app.book.search.BookCatalogue;
+import com.pii.library_app.book.search.BookSearchCache;
+import com.pii.library_app.book.search.BookTextIndex;
+import com.pii.library_app.config.datasource.ReplicaLagGuard;
 import com.pii.library_app.user.service.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class BookService {
 
+    private static final String ACTIVE_LOAN_CONSTRAINT = "uq_borrowed_books_active_loan";
+
     private final Logger LOG = LoggerFactory.getLogger(BookService.class);
 
     private final BookRepository bookRepository;
     private final UserService userService;
     private final BorrowedBookRepository borrowedBookRepository;
+    private final BookCountEstimator countEstimator;
+    private final BookTextIndex textIndex;
+    private final BookCatalogue catalogue;
+    private final BookSearchCache searchCache;
+    private final TransactionTemplate readOnlyTransaction;
+    private final BookCopyLedger copyLedger;
+    private final BookLoanMetrics loanMetrics;
+    private final ReplicaLagGuard lagGuard;
+    private final ApplicationEventPublisher eventPublisher;
 
     public BookService(
             UserService userService,
             BorrowedBookRepository borrowedBookRepository,
-            BookRepository bookRepository
+            BookRepository bookRepository,
+            BookCountEstimator countEstimator,
+            BookTextIndex textIndex,
+            BookCatalogue catalogue,
+            BookSearchCache searchCache,
+            BookCopyLedger copyLedger,
+            BookLoanMetrics loanMetrics,
+            ReplicaLagGuard lagGuard,
+            ApplicationEventPublisher eventPublisher,
+            PlatformTransactionManager transactionManager
     ) {
         this.bookRepository = bookRepository;
         this.userService = userService;
         this.borrowedBookRepository = borrowedBookRepository;
+        this.countEstimator = countEstimator;
+        this.textIndex = textIndex;
+        this.catalogue = catalogue;
+        this.searchCache = searchCache;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.copyLedger = copyLedger;
+        this.loanMetrics = loanMetrics;
+        this.lagGuard = lagGuard;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
     public Book createBook(CreateBookDto dto) {
-        return bookRepository.save(dto.toBook());
+        checkCopies(dto.copies());
+        var saved = bookRepository.save(dto.toBook());
+        eventPublisher.publishEvent(BookChangedEvent.of(ChangeType.CREATED, saved));
+        return saved;
     }
 
     @Transactional
     public Book updateBook(Long id, CreateBookDto dto) {
+        checkCopies(dto.copies());
         var foundResult = bookRepository.findById(id);
         if (foundResult.isEmpty()) {
             throw new BookNotFoundException(id);
@@ -53,7 +111,22 @@ public class BookService {
         existingBook.setTitle(dto.title());
         existingBook.setAuthor(dto.author());
         existingBook.setGenre(dto.genre());
-        return bookRepository.save(existingBook);
+        var saved = bookRepository.save(existingBook);
+        if (dto.copies() != null && dto.copies() != saved.getTotalCopies()) {
+            if (bookRepository.resizeCopies(id, dto.copies()) == 0) {
+                throw new InvalidBookCopiesException(
+                        "Число экземпляров книги ID=" + id + " нельзя сделать меньше числа выданных");
+            }
+            saved = bookRepository.findById(id).orElseThrow(() -> new BookNotFoundException(id));
+        }
+        eventPublisher.publishEvent(BookChangedEvent.of(ChangeType.UPDATED, saved));
+        return saved;
+    }
+
+    private void checkCopies(Integer copies) {
+        if (copies != null && copies < 1) {
+            throw new InvalidBookCopiesException("Число экземпляров книги должно быть положительным");
+        }
     }
 
     @Transactional
@@ -62,27 +135,115 @@ public class BookService {
             throw new BookNotFoundException(id);
         }
         bookRepository.deleteById(id);
+        eventPublisher.publishEvent(BookChangedEvent.deleted(id));
+    }
+
+    /**
+     * Поиск книг с постраничной выдачей по курсору: страница начинается после книги с ID {@code page.cursor()},
+     * книги упорядочены по ID. Страницы кэшируются в {@link BookSearchCache} до следующего изменения книг.
+     */
+    public SearchBookResponseDto searchBooks(SearchBookFilterDto filter, BookPageRequest page) {
+        var normalized = BookSearchCache.normalize(filter);
+        // транзакция открывается только при промахе кэша
+        return searchCache.get(normalized, page, () -> readOnlyTransaction.execute(status -> findBooks(normalized, page)));
     }
 
-    public SearchBookResponseDto searchBooks(SearchBookFilterDto filter) {
-        if (isFilterEmpty(filter)) {
-            var books = bookRepository.findAll();
-            return new SearchBookResponseDto(books, books.size());
+    private SearchBookResponseDto findBooks(SearchBookFilterDto filter, BookPageRequest page) {
+        var textFilter = hasTextFilter(filter);
+        if (catalogue.isReady() && (!textFilter || textIndex.isReady())) {
+            var candidates = textFilter ? textIndex.match(filter.title(), filter.author(), null) : null;
+            return catalogue.search(candidates, filter.genre(), filter.available(), page);
+        }
+        if (textFilter && textIndex.isReady() && filter.available() == null) {
+            return searchIndexed(filter, page);
         }
 
         Specification<Book> spec = Specification.where(null);
         spec = addLikeSpec(spec, "title", filter.title());
         spec = addLikeSpec(spec, "author", filter.author());
         spec = addEqualSpec(spec, "genre", filter.genre());
+        spec = addEqualSpec(spec, "available", filter.available());
+
+        var pageSpec = addAfterCursorSpec(spec, page.cursor());
+        // запрашиваем на одну книгу больше, чтобы понять, есть ли следующая страница
+        List<Book> found = bookRepository.findBy(pageSpec, query -> query
+                .sortBy(Sort.by("id"))
+                .limit(page.size() + 1)
+                .all());
+        var hasNext = found.size() > page.size();
+        var books = hasNext ? found.subList(0, page.size()) : found;
+        var nextCursor = hasNext ? books.getLast().getId() : null;
 
-        var books = bookRepository.findAll(spec);
+        return new SearchBookResponseDto(toDtos(books), countBooks(filter, spec, page.countMode()), nextCursor);
+    }
+
+    /**
+     * Поиск книг по словам запроса в названии и авторе с сортировкой по релевантности.
+     */
+    @Transactional(readOnly = true)
+    public SearchBookResponseDto searchRanked(String query, int limit) {
+        if (!textIndex.isReady()) {
+            var spec = addLikeSpec(Specification.where(null), "title", query)
+                    .or(addLikeSpec(Specification.where(null), "author", query));
+            List<Book> books = bookRepository.findBy(spec, q -> q.sortBy(Sort.by("id")).limit(limit).all());
+            return new SearchBookResponseDto(toDtos(books), books.size());
+        }
+        var rankedIds = textIndex.rank(query, limit);
+        var byId = bookRepository.findAllById(rankedIds).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        var books = rankedIds.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .map(BookDto::fromEntity)
+                .toList();
         return new SearchBookResponseDto(books, books.size());
     }
 
+    private SearchBookResponseDto searchIndexed(SearchBookFilterDto filter, BookPageRequest page) {
+        var ids = textIndex.match(filter.title(), filter.author(), filter.genre());
+        var afterCursor = page.cursor() == null ? ids : ids.tailSet(page.cursor(), false);
+        var pageIds = afterCursor.stream().limit(page.size() + 1).toList();
+        var hasNext = pageIds.size() > page.size();
+        if (hasNext) {
+            pageIds = pageIds.subList(0, page.size());
+        }
+
+        var books = new ArrayList<>(bookRepository.findAllById(pageIds));
+        books.sort(Comparator.comparing(Book::getId));
+        var nextCursor = hasNext ? pageIds.getLast() : null;
+        var totalCount = page.countMode() == SearchCountMode.NONE ? null : (long) ids.size();
+        return new SearchBookResponseDto(toDtos(books), totalCount, nextCursor);
+    }
+
+    private List<BookDto> toDtos(List<Book> books) {
+        return books.stream().map(BookDto::fromEntity).toList();
+    }
+
+    private boolean hasTextFilter(SearchBookFilterDto filter) {
+        return (filter.title() != null && !filter.title().isBlank())
+                || (filter.author() != null && !filter.author().isBlank());
+    }
+
+    private Long countBooks(SearchBookFilterDto filter, Specification<Book> spec, SearchCountMode countMode) {
+        return switch (countMode) {
+            case NONE -> null;
+            case EXACT -> bookRepository.count(spec);
+            case ESTIMATE -> isFilterEmpty(filter)
+                    ? countEstimator.estimateTotal().orElseGet(() -> bookRepository.count())
+                    : bookRepository.count(spec);
+        };
+    }
+
+    private Specification<Book> addAfterCursorSpec(Specification<Book> spec, Long cursor) {
+        if (cursor == null) return spec;
+        return spec.and((root, query, cb) -> cb.greaterThan(root.get("id"), cursor));
+    }
+
     private boolean isFilterEmpty(SearchBookFilterDto filter) {
         return filter.title() == null &&
                 filter.author() == null &&
-                filter.genre() == null;
+                filter.genre() == null &&
+                filter.available() == null;
     }
 
     private Specification<Book> addLikeSpec(Specification<Book> spec, String field, String value) {
@@ -98,35 +259,88 @@ public class BookService {
 
     @Transactional
     public BorrowedBook borrowBook(Long bookId, String username) {
-        var book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new BookNotFoundException(bookId));
-        if (!book.isAvailable()) {
+        var user = userService.findByUsername(username);
+        // разобранную книгу отклоняем без обращения к БД, не занимая очередь на блокировку строки
+        if (!copyLedger.tryReserve(bookId)) {
+            loanMetrics.borrowRejected("sold_out");
             throw new BookNotAvailableException(bookId);
         }
-
-        book.setAvailable(false);
-        bookRepository.save(book);
-        var user = userService.findByUsername(username);
+        Book book;
+        try {
+            // уменьшение счетчика одним условным UPDATE, чтобы параллельные запросы не выдали лишний экземпляр
+            if (bookRepository.takeCopy(bookId) == 0) {
+                if (!bookRepository.existsById(bookId)) {
+                    loanMetrics.borrowRejected("not_found");
+                    throw new BookNotFoundException(bookId);
+                }
+                copyLedger.markExhausted(bookId);
+                loanMetrics.borrowRejected("not_available");
+                throw new BookNotAvailableException(bookId);
+            }
+            book = bookRepository.findById(bookId)
+                    .orElseThrow(() -> new BookNotFoundException(bookId));
+        } catch (RuntimeException exc) {
+            // до события BORROWED резерв не вернется по откату транзакции - возвращаем его сами
+            copyLedger.release(bookId);
+            throw exc;
+        }
+        eventPublisher.publishEvent(BookChangedEvent.of(ChangeType.BORROWED, book));
 
         var borrowedBook = new BorrowedBook(user, book, LocalDateTime.now());
-        LOG.info("➤➤➤➤➤➤➤ Книга '{}' бронируется пользователем {}", bookId, username);
-        return borrowedBookRepository.save(borrowedBook);
+        LOG.info("➤➤➤➤➤➤➤ Книга '{}' бронируется пользователем {}, свободно экземпляров: {}",
+                bookId, username, book.getAvailableCopies());
+        BorrowedBook saved;
+        try {
+            saved = borrowedBookRepository.save(borrowedBook);
+        } catch (DataIntegrityViolationException exc) {
+            // вторую активную выдачу той же книги отклоняет уникальный индекс; транзакция откатится вместе
+            // со списанием экземпляра, а учет экземпляров вернет резерв по событию отката
+            if (!isActiveLoanViolation(exc)) {
+                throw exc;
+            }
+            loanMetrics.borrowRejected("already_borrowed");
+            throw new BookAlreadyBorrowedException(bookId);
+        }
+        // следующие чтения пользователя идут в основную БД, пока реплика может не содержать эту выдачу
+        lagGuard.recordWrite(username);
+        loanMetrics.borrowed();
+        return saved;
+    }
+
+    private boolean isActiveLoanViolation(DataIntegrityViolationException exc) {
+        return exc.getCause() instanceof ConstraintViolationException violation
+                && ACTIVE_LOAN_CONSTRAINT.equalsIgnoreCase(violation.getConstraintName());
     }
 
     @Transactional
     public BorrowedBook returnBook(Long bookId, String username) {
         var book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new BookNotFoundException(bookId));
+                .orElseThrow(() -> rejectReturn("not_found", new BookNotFoundException(bookId)));
         var user = userService.findByUsername(username);
+        // user и book уже загружены в этой транзакции, ленивые связи бронирования ссылаются на них, а не на прокси
         var borrowedBook = borrowedBookRepository.findByUserAndBookAndReturnedAtIsNull(user, book)
-                .orElseThrow(() -> new BookNotBorrowedException(bookId));
-
-        book.setAvailable(true);
-        bookRepository.save(book);
+                .orElseThrow(() -> rejectReturn("not_borrowed", new BookNotBorrowedException(bookId)));
 
-        borrowedBook.setReturnedAt(LocalDateTime.now());
-        var saved = borrowedBookRepository.save(borrowedBook);
+        var returnedAt = LocalDateTime.now();
+        // параллельный возврат того же бронирования обновит 0 строк
+        if (borrowedBookRepository.markReturned(borrowedBook.getId(), returnedAt) == 0) {
+            throw rejectReturn("not_borrowed", new BookNotBorrowedException(bookId));
+        }
+        if (bookRepository.releaseCopy(bookId) == 0) {
+            LOG.warn("➤➤➤➤➤➤➤ У книги '{}' нет выданных экземпляров, счетчик не изменен", bookId);
+        }
+        var returned = bookRepository.findById(bookId).orElse(book);
+        borrowedBook.setBook(returned);
+        borrowedBook.setReturnedAt(returnedAt);
+        eventPublisher.publishEvent(BookChangedEvent.of(ChangeType.RETURNED, returned));
         LOG.info("➤➤➤➤➤➤➤ Книга '{}' возвращена в библиотеку пользователем '{}'", book.getId(), username);
-        return saved;
+        lagGuard.recordWrite(username);
+        loanMetrics.returned();
+        return borrowedBook;
+    }
+
+    private RuntimeException rejectReturn(String reason, RuntimeException exc) {
+        loanMetrics.returnRejected(reason);
+        return exc;
     }
 }
@@ -0,0 +1,78 @@
+package com.pii.library_app.book.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Потоковое чтение CSV по RFC 4180: значения в кавычках могут содержать запятые, переводы строк
+ * и удвоенные кавычки.
+ */
+class CsvRecordReader {
+
+    private final Reader reader;
+    private int pending = -2;
+
+    CsvRecordReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * @return значения следующей записи или {@code null}, если записи закончились
+     */
+    List<String> next() throws IOException {
+        int ch = read();
+        if (ch == -1) {
+            return null;
+        }
+        var values = new ArrayList<String>();
+        var value = new StringBuilder();
+        var quoted = false;
+        while (true) {
+            if (quoted) {
+                if (ch == -1) {
+                    throw new IOException("Незакрытая кавычка в CSV");
+                }
+                if (ch == '"') {
+                    int next = read();
+                    if (next == '"') {
+                        value.append('"');
+                    } else {
+                        quoted = false;
+                        ch = next;
+                        continue;
+                    }
+                } else {
+                    value.append((char) ch);
+                }
+            } else if (ch == '"' && value.isEmpty()) {
+                quoted = true;
+            } else if (ch == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else if (ch == '\r' || ch == '\n' || ch == -1) {
+                if (ch == '\r') {
+                    int next = read();
+                    if (next != '\n') {
+                        pending = next;
+                    }
+                }
+                values.add(value.toString());
+                return values;
+            } else {
+                value.append((char) ch);
+            }
+            ch = read();
+        }
+    }
+
+    private int read() throws IOException {
+        if (pending != -2) {
+            int ch = pending;
+            pending = -2;
+            return ch;
+        }
+        return reader.read();
+    }
+}
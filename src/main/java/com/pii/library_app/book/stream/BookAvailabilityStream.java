@@ -0,0 +1,296 @@
+package com.pii.library_app.book.stream;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pii.library_app.book.dto.BookAvailabilityDto;
+import com.pii.library_app.book.event.BookChangedEvent;
+import com.pii.library_app.book.event.BookChangedEvent.ChangeType;
+import com.pii.library_app.book.model.Genre;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Поток изменений доступности книг для подписчиков SSE. Изменение после выдачи, возврата или правки книги
+ * попадает в буфер каждого подписчика с подходящим фильтром и рассылается раз в {@code flush-interval}:
+ * несколько изменений одной книги за интервал схлопываются в последнее. Буфер подписчика ограничен числом книг,
+ * при переполнении изменения заменяются одним событием {@code resync} - клиент должен заново запросить поиск.
+ * Отправка идет в виртуальных потоках, медленный клиент задерживает только свою рассылку.
+ * <p>
+ * Обработчики после коммита разных транзакций приходят в произвольном порядке, поэтому изменения сравниваются
+ * по версии счетчиков книги: снимок старше уже принятого отбрасывается, при схлопывании остается самый новый.
+ */
+@Component
+public class BookAvailabilityStream implements SmartLifecycle {
+
+    public static final String EVENTS_COUNTER_NAME = "library.books.availability.events";
+    public static final String SUBSCRIBERS_GAUGE_NAME = "library.books.availability.subscribers";
+
+    static final String AVAILABILITY_EVENT = "availability";
+    static final String RESYNC_EVENT = "resync";
+
+    private static final int TRACKED_BOOKS = 100_000;
+
+    private final Logger LOG = LoggerFactory.getLogger(BookAvailabilityStream.class);
+
+    // последняя принятая версия счетчиков книги; запоздавший снимок старше нее не рассылается
+    private final Cache<Long, Long> latestVersions = Caffeine.newBuilder()
+            .maximumSize(TRACKED_BOOKS)
+            .expireAfterAccess(Duration.ofMinutes(10))
+            .build();
+    private final Executor senders;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final int maxSubscribers;
+    private final int bufferCapacity;
+    private final long flushIntervalMillis;
+    private final long heartbeatNanos;
+    private final long timeoutMillis;
+    private final Counter sent;
+    private final Counter coalesced;
+    private final Counter overflowed;
+
+    private volatile boolean running;
+    private ScheduledExecutorService flusher;
+
+    @Autowired
+    public BookAvailabilityStream(
+            MeterRegistry meterRegistry,
+            @Value("${library.books.availability.max-subscribers:10000}") int maxSubscribers,
+            @Value("${library.books.availability.buffer-capacity:256}") int bufferCapacity,
+            @Value("${library.books.availability.flush-interval:250ms}") Duration flushInterval,
+            @Value("${library.books.availability.heartbeat:30s}") Duration heartbeat,
+            @Value("${library.books.availability.timeout:30m}") Duration timeout
+    ) {
+        this(meterRegistry, Executors.newVirtualThreadPerTaskExecutor(),
+                maxSubscribers, bufferCapacity, flushInterval, heartbeat, timeout);
+    }
+
+    BookAvailabilityStream(
+            MeterRegistry meterRegistry,
+            Executor senders,
+            int maxSubscribers,
+            int bufferCapacity,
+            Duration flushInterval,
+            Duration heartbeat,
+            Duration timeout
+    ) {
+        this.senders = senders;
+        this.maxSubscribers = maxSubscribers;
+        this.bufferCapacity = bufferCapacity;
+        this.flushIntervalMillis = flushInterval.toMillis();
+        this.heartbeatNanos = heartbeat.toNanos();
+        this.timeoutMillis = timeout.toMillis();
+        Gauge.builder(SUBSCRIBERS_GAUGE_NAME, subscribers, Set::size)
+                .description("Открытые подписки на изменения доступности книг")
+                .register(meterRegistry);
+        this.sent = counter(meterRegistry, "sent");
+        this.coalesced = counter(meterRegistry, "coalesced");
+        this.overflowed = counter(meterRegistry, "overflow");
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder(EVENTS_COUNTER_NAME)
+                .description("Изменения доступности книг: отправленные, схлопнутые и потерянные при переполнении буфера")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Подписка на изменения доступности книг.
+     *
+     * @param bookIds ID книг, пустое множество - все книги
+     * @param genre   жанр или {@code null} - все жанры
+     * @return пусто, если достигнут лимит {@code max-subscribers}
+     */
+    public Optional<SseEmitter> subscribe(Set<Long> bookIds, Genre genre) {
+        if (subscribers.size() >= maxSubscribers) {
+            return Optional.empty();
+        }
+        var emitter = new SseEmitter(timeoutMillis);
+        register(emitter, bookIds, genre);
+        return Optional.of(emitter);
+    }
+
+    void register(SseEmitter emitter, Set<Long> bookIds, Genre genre) {
+        var subscriber = new Subscriber(emitter, bookIds == null ? Set.of() : Set.copyOf(bookIds), genre);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onError(exc -> subscribers.remove(subscriber));
+        // клиент EventSource переподключится сам
+        emitter.onTimeout(emitter::complete);
+        subscribers.add(subscriber);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        if (event.type() == ChangeType.CREATED || event.type() == ChangeType.DELETED || isStale(event)) {
+            return;
+        }
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        var change = BookAvailabilityDto.fromEvent(event);
+        for (var subscriber : subscribers) {
+            if (subscriber.matches(change)) {
+                subscriber.offer(change);
+            }
+        }
+    }
+
+    private boolean isStale(BookChangedEvent event) {
+        var version = event.copiesVersion();
+        var latest = latestVersions.asMap().merge(event.bookId(), version, Long::max);
+        return latest > version;
+    }
+
+    /**
+     * Запускает отправку подписчикам, у которых есть изменения или пора отправить heartbeat.
+     * Подписчик, которому еще идет прошлая отправка, пропускается, его изменения копятся в буфере.
+     */
+    void flush() {
+        long now = System.nanoTime();
+        for (var subscriber : subscribers) {
+            if (subscriber.isDue(now) && subscriber.sending.compareAndSet(false, true)) {
+                senders.execute(() -> deliver(subscriber));
+            }
+        }
+    }
+
+    private void deliver(Subscriber subscriber) {
+        try {
+            var batch = subscriber.drain();
+            if (batch.resync()) {
+                subscriber.emitter.send(SseEmitter.event().name(RESYNC_EVENT).data(""));
+            }
+            for (var change : batch.changes()) {
+                subscriber.emitter.send(SseEmitter.event()
+                        .id(Long.toString(change.version()))
+                        .name(AVAILABILITY_EVENT)
+                        .data(change, MediaType.APPLICATION_JSON));
+                sent.increment();
+            }
+            if (!batch.resync() && batch.changes().isEmpty()) {
+                // комментарий не дает прокси закрыть простаивающее соединение и выявляет отключившихся клиентов
+                subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+            }
+            subscriber.lastSentNanos = System.nanoTime();
+        } catch (IOException | IllegalStateException exc) {
+            // клиент отключился или подписка уже завершена; ответ закроет контейнер
+            subscribers.remove(subscriber);
+            LOG.debug("➤➤➤➤➤➤➤ Подписка на доступность книг закрыта: {}", exc.getMessage());
+        } finally {
+            subscriber.sending.set(false);
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        flusher = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("book-availability-stream")
+                .daemon(true)
+                .factory());
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        LOG.info("➤➤➤➤➤➤➤ Поток доступности книг запущен: рассылка раз в {} мс, буфер {} книг",
+                flushIntervalMillis, bufferCapacity);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        flusher.shutdownNow();
+        // клиенты переподключатся к другому экземпляру приложения
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+        if (senders instanceof ExecutorService executor) {
+            executor.shutdown();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private record Batch(boolean resync, List<BookAvailabilityDto> changes) {
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Set<Long> bookIds;
+        private final Genre genre;
+        // самое новое изменение каждой книги с прошлой отправки
+        private final Map<Long, BookAvailabilityDto> pending = new LinkedHashMap<>();
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private boolean overflow;
+        private volatile long lastSentNanos = System.nanoTime();
+
+        private Subscriber(SseEmitter emitter, Set<Long> bookIds, Genre genre) {
+            this.emitter = emitter;
+            this.bookIds = bookIds;
+            this.genre = genre;
+        }
+
+        boolean matches(BookAvailabilityDto change) {
+            return (bookIds.isEmpty() || bookIds.contains(change.bookId()))
+                    && (genre == null || genre == change.genre());
+        }
+
+        synchronized void offer(BookAvailabilityDto change) {
+            if (overflow) {
+                coalesced.increment();
+                return;
+            }
+            var previous = pending.get(change.bookId());
+            if (previous != null) {
+                if (change.version() >= previous.version()) {
+                    pending.put(change.bookId(), change);
+                }
+                coalesced.increment();
+                return;
+            }
+            pending.put(change.bookId(), change);
+            if (pending.size() > bufferCapacity) {
+                overflowed.increment(pending.size());
+                pending.clear();
+                overflow = true;
+            }
+        }
+
+        synchronized boolean isDue(long now) {
+            return overflow || !pending.isEmpty() || now - lastSentNanos >= heartbeatNanos;
+        }
+
+        synchronized Batch drain() {
+            var batch = new Batch(overflow, new ArrayList<>(pending.values()));
+            pending.clear();
+            overflow = false;
+            return batch;
+        }
+    }
+}
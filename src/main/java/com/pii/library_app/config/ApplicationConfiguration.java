@@ -2,8 +2,10 @@ package com.pii.library_app.config;
 
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @Configuration
 @EnableAspectJAutoProxy
+@EnableScheduling
 public class ApplicationConfiguration {
 }
@@ -0,0 +1,66 @@
+package com.pii.library_app.config.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Чтение с реплики: транзакции {@code @Transactional(readOnly = true)} получают соединение из пула реплики,
+ * остальные - из основного пула {@code spring.datasource}. Включается, когда задан {@code library.datasource.replica.url}.
+ * <p>
+ * Соединение берется лениво, при первом запросе, когда признак read-only транзакции уже известен.
+ * В read-only транзакции Hibernate не делает снимков загруженных сущностей и не выполняет flush.
+ */
+@Configuration
+@ConditionalOnExpression("!'${library.datasource.replica.url:}'.isEmpty()")
+public class ReadReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        var dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("library.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(
+            @Value("${library.datasource.replica.url}") String url,
+            @Value("${library.datasource.replica.username:${spring.datasource.username:}}") String username,
+            @Value("${library.datasource.replica.password:${spring.datasource.password:}}") String password
+    ) {
+        var dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        dataSource.setPoolName("replica");
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(
+            @Qualifier("primaryDataSource") DataSource primary,
+            @Qualifier("replicaDataSource") DataSource replica,
+            ReplicaLagGuard lagGuard,
+            @Value("${library.datasource.replica.retry-after:5s}") Duration retryAfter
+    ) {
+        var dataSource = new LazyConnectionDataSourceProxy(primary);
+        dataSource.setReadOnlyDataSource(new ReplicaFallbackDataSource(replica, primary, lagGuard, retryAfter));
+        return dataSource;
+    }
+}
@@ -0,0 +1,62 @@
+package com.pii.library_app.config.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+
+/**
+ * Источник соединений для read-only транзакций. Отдает соединение реплики, кроме двух случаев: текущий пользователь
+ * недавно писал в БД ({@link ReplicaLagGuard}) или реплика не выдала соединение - тогда в течение
+ * {@code retryAfter} чтение идет в основную БД.
+ */
+public class ReplicaFallbackDataSource extends AbstractDataSource {
+
+    private final Logger LOG = LoggerFactory.getLogger(ReplicaFallbackDataSource.class);
+
+    private final DataSource replica;
+    private final DataSource primary;
+    private final ReplicaLagGuard lagGuard;
+    private final long retryAfterMillis;
+    private volatile long replicaRetryAt;
+
+    public ReplicaFallbackDataSource(DataSource replica, DataSource primary, ReplicaLagGuard lagGuard, Duration retryAfter) {
+        this.replica = replica;
+        this.primary = primary;
+        this.lagGuard = lagGuard;
+        this.retryAfterMillis = retryAfter.toMillis();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connect(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connect(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    private Connection connect(ConnectionSource source) throws SQLException {
+        if (lagGuard.requiresPrimary() || System.currentTimeMillis() < replicaRetryAt) {
+            return source.open(primary);
+        }
+        try {
+            return source.open(replica);
+        } catch (SQLException exc) {
+            replicaRetryAt = System.currentTimeMillis() + retryAfterMillis;
+            LOG.warn("➤➤➤➤➤➤➤ Реплика недоступна, чтение переключено на основную БД на {} мс: {}",
+                    retryAfterMillis, exc.getMessage());
+            return source.open(primary);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSource {
+        Connection open(DataSource dataSource) throws SQLException;
+    }
+}
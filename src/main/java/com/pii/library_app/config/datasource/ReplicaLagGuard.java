@@ -0,0 +1,63 @@
+package com.pii.library_app.config.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Чтение своих записей при отставании реплики: пользователь, который только что выдал или вернул книгу,
+ * в течение {@code read-your-writes-window} читает из основной БД, а не из реплики.
+ */
+@Component
+public class ReplicaLagGuard {
+
+    private final Cache<String, Boolean> recentWriters;
+    private final ThreadLocal<Boolean> forcePrimary = ThreadLocal.withInitial(() -> false);
+
+    public ReplicaLagGuard(
+            @Value("${library.datasource.replica.read-your-writes-window:5s}") Duration window,
+            @Value("${library.datasource.replica.read-your-writes-max-users:100000}") long maxUsers
+    ) {
+        this.recentWriters = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(window)
+                .build();
+    }
+
+    public void recordWrite(String username) {
+        recentWriters.put(username, Boolean.TRUE);
+    }
+
+    /**
+     * Выполняет {@code action} с чтением из основной БД, в том числе в read-only транзакциях.
+     * Нужно для результатов, которые переживут запрос, например записей кэша: реплика может отдать данные
+     * старше уже обработанного события об изменении.
+     */
+    public <T> T onPrimary(Supplier<T> action) {
+        if (forcePrimary.get()) {
+            return action.get();
+        }
+        forcePrimary.set(true);
+        try {
+            return action.get();
+        } finally {
+            forcePrimary.remove();
+        }
+    }
+
+    /**
+     * @return true, если чтение идет внутри {@link #onPrimary} или текущий пользователь недавно менял данные и реплика может их еще не содержать
+     */
+    public boolean requiresPrimary() {
+        if (forcePrimary.get()) {
+            return true;
+        }
+        var authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && recentWriters.getIfPresent(authentication.getName()) != null;
+    }
+}
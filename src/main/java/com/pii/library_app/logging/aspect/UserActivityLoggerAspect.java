@@ -1,8 +1,9 @@
 package com.pii.library_app.logging.aspect;
 
-import com.pii.library_app.logging.model.UserActivityLog;
-import com.pii.library_app.logging.repo.UserActivityLogRepository;
-import com.pii.library_app.user.service.UserService;
+import com.pii.library_app.logging.writer.ActivityLogEvent;
+import com.pii.library_app.logging.writer.ActivityLogWriter;
+import com.pii.library_app.security.AuthenticatedUser;
+import com.pii.library_app.user.service.UserIdResolver;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
@@ -10,21 +11,22 @@ import org.aspectj.lang.annotation.Pointcut;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDateTime;
 import java.util.Objects;
 
 @Aspect
 @Component
 public class UserActivityLoggerAspect {
 
-    private final UserActivityLogRepository logRepository;
-    private final UserService userService;
+    private final ActivityLogWriter logWriter;
+    private final UserIdResolver userIdResolver;
 
     public UserActivityLoggerAspect(
-            UserActivityLogRepository logRepository,
-            UserService userService
+            ActivityLogWriter logWriter,
+            UserIdResolver userIdResolver
     ) {
-        this.logRepository = logRepository;
-        this.userService = userService;
+        this.logWriter = logWriter;
+        this.userIdResolver = userIdResolver;
     }
 
     @Pointcut("execution(* com.pii.library_app..controller..*(..))")
@@ -39,8 +41,10 @@ public class UserActivityLoggerAspect {
         Long userId;
         if (isAuthenticated) {
             username = auth.getName();
-            if (!Objects.equals("anonymousUser", username)) {
-                userId = userService.findByUsername(username).getId();
+            if (auth.getPrincipal() instanceof AuthenticatedUser user && user.id() != null) {
+                userId = user.id();
+            } else if (!Objects.equals("anonymousUser", username)) {
+                userId = userIdResolver.resolve(username);
             } else {
                 userId = -1L;
             }
@@ -51,8 +55,7 @@ public class UserActivityLoggerAspect {
         var methodName = joinPoint.getSignature().getName();
         var className = joinPoint.getTarget().getClass().getSimpleName();
 
-        var logEntry = new UserActivityLog(userId, methodName, className);
-        logRepository.save(logEntry);
+        logWriter.enqueue(new ActivityLogEvent(userId, methodName, className, LocalDateTime.now()));
 
         return joinPoint.proceed();
     }
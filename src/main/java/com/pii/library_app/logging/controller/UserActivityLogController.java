@@ -2,6 +2,7 @@ package com.pii.library_app.logging.controller;
 
 import com.pii.library_app.logging.dto.UserActivityLogDto;
 import com.pii.library_app.logging.service.UserActivityLogService;
+import com.pii.library_app.logging.writer.ActivityLogWriterStats;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -60,4 +61,24 @@ public class UserActivityLogController {
         );
         return logService.getLogsForUserLast24Hours(userId);
     }
+
+    @Operation(
+            summary = "Состояние записи лога активности",
+            description = "Возвращает глубину буфера, количество отброшенных записей и длительность пакетной записи"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200", description = "Состояние успешно получено",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ActivityLogWriterStats.class)
+                    )
+            ),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен. Требуется роль ADMIN")
+    })
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/writer-stats")
+    public ActivityLogWriterStats getWriterStats() {
+        return logService.getWriterStats();
+    }
 }
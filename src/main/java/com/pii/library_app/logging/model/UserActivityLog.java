@@ -5,7 +5,10 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "user_activity_logs")
+@Table(
+        name = "user_activity_logs",
+        indexes = @Index(name = "idx_user_activity_logs_user_timestamp", columnList = "user_id, timestamp")
+)
 public final class UserActivityLog {
 
     @Id
@@ -9,6 +9,7 @@ import java.util.List;
 
 public interface  UserActivityLogRepository extends JpaRepository<UserActivityLog, Long> {
 
-    @Query("SELECT log FROM UserActivityLog log WHERE log.userId = :userId AND log.timestamp >= :since")
-    List<UserActivityLog> findLogsByUserSince(Long userId, LocalDateTime since);
+    // обе границы по timestamp: в PostgreSQL запрос читает только секции за эти дни
+    @Query("SELECT log FROM UserActivityLog log WHERE log.userId = :userId AND log.timestamp >= :from AND log.timestamp < :to")
+    List<UserActivityLog> findLogsByUserBetween(Long userId, LocalDateTime from, LocalDateTime to);
 }
@@ -0,0 +1,127 @@
+package com.pii.library_app.logging.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Обслуживание дневных секций {@code user_activity_logs} в PostgreSQL: заранее создает секции
+ * на ближайшие дни и удаляет целиком секции, все строки которых старше срока хранения.
+ * Для несекционированной таблицы (H2 в тестах) ничего не делает.
+ */
+@Component
+public class ActivityLogPartitionMaintenance {
+
+    static final String PARTITION_PREFIX = "user_activity_logs_p";
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private static final String IS_PARTITIONED_SQL = """
+            SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass('user_activity_logs'))
+            """;
+
+    private static final String CREATE_PARTITION_SQL =
+            "CREATE TABLE IF NOT EXISTS %s PARTITION OF user_activity_logs FOR VALUES FROM ('%s') TO ('%s')";
+
+    // верхняя граница секции из ее описания "FOR VALUES FROM (...) TO ('...')", у DEFAULT - null
+    private static final String EXPIRED_PARTITIONS_SQL = """
+            SELECT name
+            FROM (SELECT c.relname AS name,
+                         substring(pg_get_expr(c.relpartbound, c.oid) FROM 'TO \\(''([^'']+)''\\)')::timestamp AS upper_bound
+                  FROM pg_inherits i
+                           JOIN pg_class c ON c.oid = i.inhrelid
+                  WHERE i.inhparent = 'user_activity_logs'::regclass) partitions
+            WHERE upper_bound <= ?
+            ORDER BY upper_bound
+            """;
+
+    private static final String DEFAULT_PARTITION_ROWS_SQL = "SELECT count(*) FROM user_activity_logs_default";
+
+    private final Logger LOG = LoggerFactory.getLogger(ActivityLogPartitionMaintenance.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration retention;
+    private final int premakeDays;
+
+    private volatile boolean partitioned;
+
+    public ActivityLogPartitionMaintenance(
+            JdbcTemplate jdbcTemplate,
+            @Value("${library.activity-log.partitions.retention:90d}") Duration retention,
+            @Value("${library.activity-log.partitions.premake-days:3}") int premakeDays
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.retention = retention;
+        this.premakeDays = premakeDays;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        partitioned = isPartitioned();
+        if (!partitioned) {
+            LOG.info("➤➤➤➤➤➤➤ Таблица user_activity_logs не секционирована, обслуживание секций отключено");
+            return;
+        }
+        maintain();
+    }
+
+    @Scheduled(cron = "${library.activity-log.partitions.cron:0 5 0 * * *}")
+    public void maintain() {
+        if (partitioned) {
+            maintain(LocalDateTime.now());
+        }
+    }
+
+    void maintain(LocalDateTime now) {
+        var today = now.toLocalDate();
+        for (int day = 0; day <= premakeDays; day++) {
+            createPartition(today.plusDays(day));
+        }
+        dropPartitionsBefore(now.minus(retention));
+        var defaultRows = jdbcTemplate.queryForObject(DEFAULT_PARTITION_ROWS_SQL, Long.class);
+        if (defaultRows != null && defaultRows > 0) {
+            LOG.warn("➤➤➤➤➤➤➤ В секции user_activity_logs_default {} строк: для их дней не было секций", defaultRows);
+        }
+    }
+
+    private void createPartition(LocalDate day) {
+        var name = PARTITION_PREFIX + PARTITION_SUFFIX.format(day);
+        try {
+            jdbcTemplate.execute(CREATE_PARTITION_SQL.formatted(name, day, day.plusDays(1)));
+        } catch (DataAccessException exc) {
+            // например, строки этого дня уже лежат в секции по умолчанию
+            LOG.error("➤➤➤➤➤➤➤ Не удалось создать секцию {}: {}", name, exc.getMostSpecificCause().getMessage());
+        }
+    }
+
+    /**
+     * Удаляет секции, верхняя граница которых не позже {@code cutoff}: DROP TABLE вместо
+     * построчного DELETE не оставляет мертвых строк и не нагружает WAL.
+     */
+    private void dropPartitionsBefore(LocalDateTime cutoff) {
+        var expired = jdbcTemplate.queryForList(EXPIRED_PARTITIONS_SQL, String.class, cutoff);
+        for (String name : expired) {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS \"" + name + "\"");
+            LOG.info("➤➤➤➤➤➤➤ Удалена секция лога активности {} (срок хранения {})", name, retention);
+        }
+    }
+
+    private boolean isPartitioned() {
+        var database = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        return "PostgreSQL".equals(database)
+                && Boolean.TRUE.equals(jdbcTemplate.queryForObject(IS_PARTITIONED_SQL, Boolean.class));
+    }
+}
@@ -2,8 +2,11 @@ package com.pii.library_app.logging.service;
 
 import com.pii.library_app.logging.dto.UserActivityLogDto;
 import com.pii.library_app.logging.repo.UserActivityLogRepository;
+import com.pii.library_app.logging.writer.ActivityLogWriter;
+import com.pii.library_app.logging.writer.ActivityLogWriterStats;
 import com.pii.library_app.user.service.UserService;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -13,18 +16,23 @@ public class UserActivityLogService {
 
     private final UserActivityLogRepository logRepository;
     private final UserService userService;
+    private final ActivityLogWriter logWriter;
 
     public UserActivityLogService(
             UserActivityLogRepository logRepository,
-            UserService userService
+            UserService userService,
+            ActivityLogWriter logWriter
     ) {
         this.logRepository = logRepository;
         this.userService = userService;
+        this.logWriter = logWriter;
     }
 
+    @Transactional(readOnly = true)
     public List<UserActivityLogDto> getLogsForUserLast24Hours(Long userId) {
         var user = userService.findUserById(userId);
-        var logs = logRepository.findLogsByUserSince(userId, LocalDateTime.now().minusDays(1));
+        var now = LocalDateTime.now();
+        var logs = logRepository.findLogsByUserBetween(userId, now.minusDays(1), now);
         return logs.stream()
                 .map(log -> new UserActivityLogDto(
                         log.getId(),
@@ -34,4 +42,8 @@ public class UserActivityLogService {
                         log.getTimestamp()))
                 .toList();
     }
+
+    public ActivityLogWriterStats getWriterStats() {
+        return logWriter.stats();
+    }
 }
@@ -0,0 +1,11 @@
+package com.pii.library_app.logging.writer;
+
+import java.time.LocalDateTime;
+
+public record ActivityLogEvent(
+        long userId,
+        String action,
+        String endpoint,
+        LocalDateTime timestamp
+) {
+}
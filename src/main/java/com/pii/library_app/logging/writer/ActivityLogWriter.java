@@ -0,0 +1,208 @@
+package com.pii.library_app.logging.writer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Буферизует записи лога активности и пишет их в БД пакетами из фонового потока,
+ * чтобы вставка не выполнялась в потоке запроса.
+ */
+@Component
+public class ActivityLogWriter implements SmartLifecycle {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO user_activity_logs (user_id, action, endpoint, timestamp) VALUES (?, ?, ?, ?)";
+
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5_000;
+    private static final long IDLE_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final Logger LOG = LoggerFactory.getLogger(ActivityLogWriter.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BlockingQueue<ActivityLogEvent> queue;
+    private final int capacity;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long blockTimeoutMillis;
+    private final BackpressurePolicy backpressurePolicy;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong flushNanosTotal = new AtomicLong();
+    private final LongAccumulator flushNanosMax = new LongAccumulator(Long::max, 0);
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public ActivityLogWriter(
+            JdbcTemplate jdbcTemplate,
+            @Value("${library.activity-log.buffer-capacity:8192}") int capacity,
+            @Value("${library.activity-log.batch-size:256}") int batchSize,
+            @Value("${library.activity-log.flush-interval-ms:200}") long flushIntervalMillis,
+            @Value("${library.activity-log.block-timeout-ms:50}") long blockTimeoutMillis,
+            @Value("${library.activity-log.backpressure:DROP}") BackpressurePolicy backpressurePolicy
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.blockTimeoutMillis = blockTimeoutMillis;
+        this.backpressurePolicy = backpressurePolicy;
+    }
+
+    public void enqueue(ActivityLogEvent event) {
+        if (!running) {
+            // до старта и после остановки пишем напрямую, чтобы не терять записи
+            flush(List.of(event));
+            return;
+        }
+        if (queue.offer(event)) {
+            enqueued.incrementAndGet();
+            return;
+        }
+        switch (backpressurePolicy) {
+            case DROP -> dropped.incrementAndGet();
+            case BLOCK -> offerBlocking(event);
+            case SPILL -> {
+                spilled.incrementAndGet();
+                flush(List.of(event));
+            }
+        }
+    }
+
+    private void offerBlocking(ActivityLogEvent event) {
+        try {
+            if (queue.offer(event, blockTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                enqueued.incrementAndGet();
+            } else {
+                dropped.incrementAndGet();
+            }
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            dropped.incrementAndGet();
+        }
+    }
+
+    public ActivityLogWriterStats stats() {
+        long flushCount = flushes.get();
+        double avgFlushMillis = flushCount == 0 ? 0 : flushNanosTotal.get() / (double) flushCount / 1_000_000;
+        return new ActivityLogWriterStats(
+                queue.size(),
+                capacity,
+                enqueued.get(),
+                written.get(),
+                dropped.get(),
+                spilled.get(),
+                failed.get(),
+                flushCount,
+                avgFlushMillis,
+                flushNanosMax.get() / 1_000_000.0
+        );
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        worker = Thread.ofPlatform()
+                .name("activity-log-writer")
+                .daemon(true)
+                .start(this::drainLoop);
+        LOG.info("➤➤➤➤➤➤➤ Запись лога активности запущена: буфер {}, пакет {}, политика {}",
+                capacity, batchSize, backpressurePolicy);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            worker.join(SHUTDOWN_TIMEOUT_MILLIS);
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+        }
+        var rest = new ArrayList<ActivityLogEvent>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) {
+            flush(rest);
+        }
+        LOG.info("➤➤➤➤➤➤➤ Запись лога активности остановлена: {}", stats());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void drainLoop() {
+        var batch = new ArrayList<ActivityLogEvent>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                var first = queue.poll(IDLE_POLL_NANOS, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                        break;
+                    }
+                    var next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+                batch.clear();
+            } catch (InterruptedException exc) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (!batch.isEmpty()) {
+            flush(batch);
+        }
+    }
+
+    private void flush(List<ActivityLogEvent> batch) {
+        long start = System.nanoTime();
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, event) -> {
+                ps.setLong(1, event.userId());
+                ps.setString(2, event.action());
+                ps.setString(3, event.endpoint());
+                ps.setTimestamp(4, Timestamp.valueOf(event.timestamp()));
+            });
+            written.addAndGet(batch.size());
+        } catch (DataAccessException exc) {
+            failed.addAndGet(batch.size());
+            LOG.error("➤➤➤➤➤➤➤ Не удалось записать {} записей лога активности: {}", batch.size(), exc.getMessage());
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            flushes.incrementAndGet();
+            flushNanosTotal.addAndGet(elapsed);
+            flushNanosMax.accumulate(elapsed);
+        }
+    }
+}
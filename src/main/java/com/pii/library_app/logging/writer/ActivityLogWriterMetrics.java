@@ -0,0 +1,48 @@
+package com.pii.library_app.logging.writer;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Публикует состояние фоновой записи лога активности ({@link ActivityLogWriter#stats()}) в метриках.
+ */
+@Component
+public class ActivityLogWriterMetrics implements MeterBinder {
+
+    private final ActivityLogWriter writer;
+
+    public ActivityLogWriterMetrics(ActivityLogWriter writer) {
+        this.writer = writer;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("library.activity_log.queue.depth", writer, w -> w.stats().queueDepth())
+                .description("Записей в буфере лога активности")
+                .register(registry);
+        Gauge.builder("library.activity_log.queue.capacity", writer, w -> w.stats().capacity())
+                .description("Ёмкость буфера лога активности")
+                .register(registry);
+        Gauge.builder("library.activity_log.flush.max", writer, w -> w.stats().maxFlushMillis())
+                .description("Максимальная длительность пакетной записи")
+                .baseUnit("milliseconds")
+                .register(registry);
+        counter(registry, "enqueued", "Принято записей в буфер", w -> w.stats().enqueued());
+        counter(registry, "written", "Записано в БД", w -> w.stats().written());
+        counter(registry, "dropped", "Отброшено из-за переполнения буфера", w -> w.stats().dropped());
+        counter(registry, "spilled", "Записано синхронно в потоке запроса", w -> w.stats().spilled());
+        counter(registry, "failed", "Не удалось записать из-за ошибки БД", w -> w.stats().failed());
+        counter(registry, "flushes", "Количество пакетных записей", w -> w.stats().flushes());
+    }
+
+    private void counter(MeterRegistry registry, String name, String description, ToDoubleFunction<ActivityLogWriter> value) {
+        FunctionCounter.builder("library.activity_log." + name, writer, value)
+                .description(description)
+                .register(registry);
+    }
+}
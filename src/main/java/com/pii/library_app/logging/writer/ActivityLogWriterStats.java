@@ -0,0 +1,37 @@
+package com.pii.library_app.logging.writer;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Состояние фоновой записи лога активности")
+public record ActivityLogWriterStats(
+        @Schema(description = "Текущее количество записей в буфере", example = "12")
+        int queueDepth,
+
+        @Schema(description = "Ёмкость буфера", example = "8192")
+        int capacity,
+
+        @Schema(description = "Принято записей в буфер", example = "1000")
+        long enqueued,
+
+        @Schema(description = "Записано в БД", example = "988")
+        long written,
+
+        @Schema(description = "Отброшено из-за переполнения буфера", example = "0")
+        long dropped,
+
+        @Schema(description = "Записано синхронно в потоке запроса", example = "0")
+        long spilled,
+
+        @Schema(description = "Не удалось записать из-за ошибки БД", example = "0")
+        long failed,
+
+        @Schema(description = "Количество пакетных записей", example = "40")
+        long flushes,
+
+        @Schema(description = "Средняя длительность пакетной записи, мс", example = "1.7")
+        double avgFlushMillis,
+
+        @Schema(description = "Максимальная длительность пакетной записи, мс", example = "12.3")
+        double maxFlushMillis
+) {
+}
@@ -0,0 +1,18 @@
+package com.pii.library_app.logging.writer;
+
+/**
+ * Поведение при переполненном буфере лога активности.
+ */
+public enum BackpressurePolicy {
+
+    /** Запись отбрасывается, запрос не ждёт. */
+    DROP,
+
+    /** Запрос ждёт освобождения места не дольше block-timeout, затем запись отбрасывается. */
+    BLOCK,
+
+    /** Запись пишется в БД синхронно в потоке запроса, минуя буфер. */
+    SPILL,
+
+    ;
+}
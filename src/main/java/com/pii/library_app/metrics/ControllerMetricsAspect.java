@@ -0,0 +1,44 @@
+package com.pii.library_app.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * Таймеры методов контроллеров: {@code library.controller.requests} с тегами контроллера, метода
+ * и исхода ({@code success} или простое имя класса исключения).
+ */
+@Aspect
+@Component
+public class ControllerMetricsAspect {
+
+    public static final String TIMER_NAME = "library.controller.requests";
+
+    private final MeterRegistry meterRegistry;
+
+    public ControllerMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("com.pii.library_app.logging.aspect.UserActivityLoggerAspect.allControllerMethods()")
+    public Object timeControllerMethod(ProceedingJoinPoint joinPoint) throws Throwable {
+        var sample = Timer.start(meterRegistry);
+        var outcome = "success";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable exc) {
+            outcome = exc.getClass().getSimpleName();
+            throw exc;
+        } finally {
+            sample.stop(Timer.builder(TIMER_NAME)
+                    .description("Время выполнения методов контроллеров")
+                    .tag("controller", joinPoint.getSignature().getDeclaringType().getSimpleName())
+                    .tag("method", joinPoint.getSignature().getName())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+}
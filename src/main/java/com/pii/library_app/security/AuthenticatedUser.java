@@ -0,0 +1,22 @@
+package com.pii.library_app.security;
+
+import com.pii.library_app.user.model.Role;
+
+import java.security.Principal;
+import java.util.Set;
+
+/**
+ * Пользователь, восстановленный из проверенных claims JWT без обращения к БД.
+ */
+public record AuthenticatedUser(
+        Long id,
+        String username,
+        Set<Role> roles,
+        String tokenId
+) implements Principal {
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
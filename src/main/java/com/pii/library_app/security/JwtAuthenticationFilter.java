@@ -1,14 +1,19 @@
 package com.pii.library_app.security;
 
 
+import com.pii.library_app.security.jwt.JwtClaims;
 import com.pii.library_app.security.jwt.JwtUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -16,21 +21,44 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    public static final String VALIDATION_TIMER_NAME = "library.jwt.validation";
+
     private final Logger LOG = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
     private final JwtUtil jwtUtil;
     private final UserDetailsService userDetailsService;
+    private final TokenRevocationService revocationService;
+    private final boolean stateless;
+    private final Timer validTokens;
+    private final Timer invalidTokens;
+    private final Timer revokedTokens;
 
     public JwtAuthenticationFilter(
             JwtUtil jwtUtil,
-            UserDetailsService userDetailsService
+            UserDetailsService userDetailsService,
+            TokenRevocationService revocationService,
+            MeterRegistry meterRegistry,
+            @Value("${library.security.jwt.stateless:true}") boolean stateless
     ) {
         this.jwtUtil = jwtUtil;
         this.userDetailsService = userDetailsService;
+        this.revocationService = revocationService;
+        this.stateless = stateless;
+        this.validTokens = validationTimer(meterRegistry, "valid");
+        this.invalidTokens = validationTimer(meterRegistry, "invalid");
+        this.revokedTokens = validationTimer(meterRegistry, "revoked");
+    }
+
+    private static Timer validationTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder(VALIDATION_TIMER_NAME)
+                .description("Проверка JWT: разбор, подпись, срок действия и отзыв")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
     }
 
     @Override
@@ -50,37 +78,63 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         var token = authHeader.substring(7);
         LOG.debug("➤➤➤➤➤➤➤ Extracted JWT Token: {}", token);
 
-        String username;
+        if (SecurityContextHolder.getContext().getAuthentication() != null) {
+            LOG.warn("➤➤➤➤➤➤➤ Skipping authentication setup: user is already authenticated.");
+            chain.doFilter(request, response);
+            return;
+        }
+
+        long validationStart = System.nanoTime();
+        JwtClaims claims;
         try {
-            username = jwtUtil.extractUsername(token);
-            LOG.debug("➤➤➤➤➤➤➤ Extracted Username: {}", username);
+            claims = jwtUtil.parseToken(token);
+            LOG.debug("➤➤➤➤➤➤➤ Extracted Username: {}", claims.username());
         } catch (Exception e) {
-            LOG.error("➤➤➤➤➤➤➤ Failed to extract username from token: {}", token, e);
+            invalidTokens.record(System.nanoTime() - validationStart, TimeUnit.NANOSECONDS);
+            LOG.error("➤➤➤➤➤➤➤ Token validation failed, token: {}", token, e);
             chain.doFilter(request, response);
             return;
         }
 
-
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            var userDetails = userDetailsService.loadUserByUsername(username);
-            LOG.debug("➤➤➤➤➤➤➤ UserDetails loaded: {}", userDetails.getUsername());
-            LOG.debug("User roles: {}", userDetails.getAuthorities());
-
-            if (jwtUtil.validateToken(token)) {
-                var authentication = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities()
-                );
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authentication);
-                LOG.info("➤➤➤➤➤➤➤ User authenticated successfully: {}", userDetails.getUsername());
-                LOG.debug("➤➤➤➤➤➤➤ SecurityContext updated with authentication: {}", authentication);
-            } else {
-                LOG.error("➤➤➤➤➤➤➤ Token validation failed for user: {}", username);
-            }
-        } else {
-            LOG.warn("➤➤➤➤➤➤➤ Skipping authentication setup: user is already authenticated or username is null.");
+        var username = claims.username();
+        if (username == null) {
+            invalidTokens.record(System.nanoTime() - validationStart, TimeUnit.NANOSECONDS);
+            LOG.warn("➤➤➤➤➤➤➤ Skipping authentication setup: username is null.");
+            chain.doFilter(request, response);
+            return;
         }
+        if (revocationService.isRevoked(claims.tokenId(), username, claims.issuedAt())) {
+            revokedTokens.record(System.nanoTime() - validationStart, TimeUnit.NANOSECONDS);
+            LOG.warn("➤➤➤➤➤➤➤ Token has been revoked for user: {}", username);
+            chain.doFilter(request, response);
+            return;
+        }
+        validTokens.record(System.nanoTime() - validationStart, TimeUnit.NANOSECONDS);
+
+        var authentication = stateless
+                ? authenticateFromClaims(claims)
+                : authenticateFromUserDetails(username);
+        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        LOG.info("➤➤➤➤➤➤➤ User authenticated successfully: {}", username);
+        LOG.debug("➤➤➤➤➤➤➤ SecurityContext updated with authentication: {}", authentication);
 
         chain.doFilter(request, response);
     }
+
+    private UsernamePasswordAuthenticationToken authenticateFromClaims(JwtClaims claims) {
+        var user = new AuthenticatedUser(claims.userId(), claims.username(), claims.roles(), claims.tokenId());
+        var authorities = claims.roles().stream()
+                .map(role -> new SimpleGrantedAuthority("ROLE_" + role.name()))
+                .toList();
+        LOG.debug("User roles: {}", authorities);
+        return new UsernamePasswordAuthenticationToken(user, null, authorities);
+    }
+
+    private UsernamePasswordAuthenticationToken authenticateFromUserDetails(String username) {
+        var userDetails = userDetailsService.loadUserByUsername(username);
+        LOG.debug("➤➤➤➤➤➤➤ UserDetails loaded: {}", userDetails.getUsername());
+        LOG.debug("User roles: {}", userDetails.getAuthorities());
+        return new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+    }
 }
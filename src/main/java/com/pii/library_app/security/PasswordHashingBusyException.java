@@ -0,0 +1,8 @@
+package com.pii.library_app.security;
+
+public class PasswordHashingBusyException extends RuntimeException {
+
+    public PasswordHashingBusyException(String message) {
+        super(message);
+    }
+}
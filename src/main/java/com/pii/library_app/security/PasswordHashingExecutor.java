@@ -0,0 +1,88 @@
+package com.pii.library_app.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Отдельный ограниченный пул для хеширования и проверки паролей. Хеширование нагружает процессор,
+ * поэтому вход и регистрация используют не больше {@code threads} ядер, а при переполненной
+ * очереди сразу отвечают 503, не отнимая процессор у остальных запросов.
+ */
+@Component
+public class PasswordHashingExecutor implements DisposableBean {
+
+    private final ExecutorService executor;
+    private final long timeoutNanos;
+
+    public PasswordHashingExecutor(
+            MeterRegistry meterRegistry,
+            @Value("${library.security.password.hashing-threads:2}") int threads,
+            @Value("${library.security.password.hashing-queue:64}") int queueCapacity,
+            @Value("${library.security.password.hashing-timeout:3s}") Duration timeout
+    ) {
+        var threadNumber = new AtomicInteger();
+        var pool = new ThreadPoolExecutor(
+                threads,
+                threads,
+                0,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                task -> Thread.ofPlatform()
+                        .name("password-hashing-" + threadNumber.incrementAndGet())
+                        .daemon(true)
+                        .unstarted(task),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        this.executor = ExecutorServiceMetrics.monitor(meterRegistry, pool, "password.hashing");
+        this.timeoutNanos = timeout.toNanos();
+    }
+
+    /**
+     * Выполняет задачу в пуле и ждет результат не дольше {@code hashing-timeout}.
+     *
+     * @throws PasswordHashingBusyException если очередь заполнена или результат не получен вовремя
+     */
+    public <T> T call(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException exc) {
+            throw new PasswordHashingBusyException("Сервер перегружен запросами входа, повторите позже");
+        }
+        try {
+            return future.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException exc) {
+            future.cancel(true);
+            throw new PasswordHashingBusyException("Сервер перегружен запросами входа, повторите позже");
+        } catch (InterruptedException exc) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingBusyException("Проверка пароля прервана");
+        } catch (ExecutionException exc) {
+            if (exc.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Ошибка проверки пароля", exc.getCause());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
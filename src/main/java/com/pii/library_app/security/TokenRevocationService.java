@@ -0,0 +1,60 @@
+package com.pii.library_app.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Список отозванных токенов. Записи живут не дольше access-токена,
+ * после этого токен отклоняется по сроку действия.
+ */
+@Service
+public class TokenRevocationService {
+
+    private final Logger LOG = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private final Cache<String, Boolean> revokedTokens;
+    private final Cache<String, Instant> revokedUsers;
+
+    public TokenRevocationService(
+            @Value("${library.security.jwt.revocation-ttl:1h}") Duration ttl,
+            @Value("${library.security.jwt.revocation-max-size:100000}") long maxSize
+    ) {
+        this.revokedTokens = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+        this.revokedUsers = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public void revokeToken(String tokenId) {
+        if (tokenId != null) {
+            revokedTokens.put(tokenId, Boolean.TRUE);
+            LOG.info("➤➤➤➤➤➤➤ Токен {} отозван", tokenId);
+        }
+    }
+
+    public void revokeAllTokens(String username) {
+        revokedUsers.put(username, Instant.now());
+        LOG.info("➤➤➤➤➤➤➤ Отозваны все токены пользователя {}", username);
+    }
+
+    public boolean isRevoked(String tokenId, String username, Instant issuedAt) {
+        if (tokenId != null && revokedTokens.getIfPresent(tokenId) != null) {
+            return true;
+        }
+        var revokedAt = revokedUsers.getIfPresent(username);
+        // iat хранится с точностью до секунды, поэтому токен той же секунды тоже считается отозванным
+        return revokedAt != null
+                && (issuedAt == null || issuedAt.getEpochSecond() <= revokedAt.getEpochSecond());
+    }
+}
@@ -2,17 +2,18 @@ package com.pii.library_app.security.config;
 
 import com.pii.library_app.security.JwtAuthenticationFilter;
 import com.pii.library_app.user.model.Role;
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.ProviderManager;
-import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -20,32 +21,41 @@ import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 import org.springframework.security.web.util.matcher.OrRequestMatcher;
 import org.springframework.security.web.util.matcher.RequestMatcher;
 
+import java.util.Map;
+
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
 
+    private static final String BCRYPT = "bcrypt";
+    private static final String ARGON2 = "argon2";
+
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
-    private final UserDetailsService userDetailsService;
 
-    public SecurityConfig(
-            JwtAuthenticationFilter jwtAuthenticationFilter,
-            UserDetailsService userDetailsService
-    ) {
+    public SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter) {
         this.jwtAuthenticationFilter = jwtAuthenticationFilter;
-        this.userDetailsService = userDetailsService;
-    }
-
-    @Bean
-    public AuthenticationManager authenticationManager() {
-        var provider = new DaoAuthenticationProvider();
-        provider.setUserDetailsService(userDetailsService);
-        provider.setPasswordEncoder(passwordEncoder());
-        return new ProviderManager(provider);
     }
 
+    /**
+     * Новые хеши создаются алгоритмом {@code encoder} с префиксом {@code {id}}, проверяются хеши
+     * любого из алгоритмов. При входе хеш другого алгоритма или с меньшей стоимостью пересчитывается.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            @Value("${library.security.password.encoder:bcrypt}") String encoderId,
+            @Value("${library.security.password.bcrypt-strength:10}") int bcryptStrength,
+            @Value("${library.security.password.argon2-memory-kib:16384}") int argon2MemoryKib,
+            @Value("${library.security.password.argon2-iterations:2}") int argon2Iterations
+    ) {
+        var bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+        var encoders = Map.<String, PasswordEncoder>of(
+                BCRYPT, bcrypt,
+                ARGON2, new Argon2PasswordEncoder(16, 32, 1, argon2MemoryKib, argon2Iterations)
+        );
+        var encoder = new DelegatingPasswordEncoder(encoderId, encoders);
+        // хеши без префикса созданы до перехода на DelegatingPasswordEncoder - это BCrypt
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
     }
 
     @Bean
@@ -53,6 +63,9 @@ public class SecurityConfig {
         http.csrf(csrf -> csrf.disable())
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        // JWT-фильтр не сохраняет контекст, и повторный ASYNC-диспетчинг потокового ответа (выгрузка,
+                        // подписка SSE) шел бы анонимно; доступ к самому запросу уже проверен при первом диспетчинге
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
                         .requestMatchers(
                                 "/api/auth/**",
                                 "/swagger-ui/**",
@@ -60,9 +73,17 @@ public class SecurityConfig {
                                 "/swagger-resources/**",
                                 "/webjars/**"
                         ).permitAll()
+                        // health и prometheus - для балансировщика и сборщика метрик, остальное - только ADMIN
+                        .requestMatchers(EndpointRequest.to("health", "prometheus")).permitAll()
+                        .requestMatchers(EndpointRequest.toAnyEndpoint()).hasRole("ADMIN")
                         .requestMatchers(HttpMethod.GET, "/api/logs/**").hasRole("ADMIN")
+                        // @PreAuthorize без @EnableMethodSecurity не проверяется: доступ задают только эти правила
+                        .requestMatchers(HttpMethod.GET, "/books/export").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.GET, "/books/loans/users/**", "/books/loans/active", "/books/*/loans")
+                        .hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.POST, "/books/search", "/books/*/borrow", "/books/*/return")
+                        .hasAnyRole(Role.roles())
                         .requestMatchers(manageBooksEndpoints()).hasRole("ADMIN")
-                        .requestMatchers(HttpMethod.POST, "/books/search").hasAnyRole(Role.roles())
                         .anyRequest().authenticated()
                 )
                 .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
@@ -0,0 +1,19 @@
+package com.pii.library_app.security.jwt;
+
+import com.pii.library_app.user.model.Role;
+
+import java.time.Instant;
+import java.util.Set;
+
+/**
+ * Проверенное содержимое JWT.
+ */
+public record JwtClaims(
+        String tokenId,
+        String username,
+        Long userId,
+        Set<Role> roles,
+        Instant issuedAt,
+        Instant expiresAt
+) {
+}
@@ -1,48 +1,114 @@
 package com.pii.library_app.security.jwt;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.pii.library_app.user.model.Role;
 import com.pii.library_app.user.model.User;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Base64;
 import java.util.Date;
+import java.util.EnumSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Component
 public class JwtUtil {
 
-    private static final long EXPIRATION_TIME = 1000 * 60 * 60;
+    public static final String ROLES_CLAIM = "roles";
+    public static final String USER_ID_CLAIM = "uid";
+
+    private static final Duration DEFAULT_ACCESS_TOKEN_TTL = Duration.ofHours(1);
 
     private final SecretKey key ;
+    private final JwtParser parser;
+    private final Cache<String, JwtClaims> verifiedTokens;
+    private final long expirationMillis;
+
+    public JwtUtil(String secret) {
+        this(secret, 0);
+    }
 
-    public JwtUtil(@Value("${JWT_SECRET_KEY}") String secret) {
+    public JwtUtil(String secret, long verifiedCacheSize) {
+        this(secret, verifiedCacheSize, DEFAULT_ACCESS_TOKEN_TTL);
+    }
+
+    @Autowired
+    public JwtUtil(
+            @Value("${JWT_SECRET_KEY}") String secret,
+            @Value("${library.security.jwt.verified-cache-size:10000}") long verifiedCacheSize,
+            @Value("${library.security.jwt.access-token-ttl:1h}") Duration accessTokenTtl
+    ) {
+        this.expirationMillis = accessTokenTtl.toMillis();
         byte[] decodedKey = Base64.getDecoder().decode(secret);
         this.key = Keys.hmacShaKeyFor(decodedKey);
+        this.parser = Jwts.parser().setSigningKey(key).build();
+        this.verifiedTokens = verifiedCacheSize > 0
+                ? Caffeine.newBuilder()
+                        .maximumSize(verifiedCacheSize)
+                        .expireAfter(new UntilTokenExpiration())
+                        .build()
+                : null;
     }
 
     public String generateToken(User user) {
         return Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject(user.getUsername())
+                .claim(USER_ID_CLAIM, user.getId())
                 .claim(
-                        "roles",
+                        ROLES_CLAIM,
                         user.getRoles().stream()
                                 .map(Enum::name)
                                 .collect(Collectors.toList())
                 )
                 .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
+                .setExpiration(new Date(System.currentTimeMillis() + expirationMillis))
                 .signWith(key, SignatureAlgorithm.HS256)
                 .compact();
     }
 
+    /**
+     * Проверяет подпись и срок действия токена и возвращает его claims за один разбор.
+     * Уже проверенные токены берутся из кэша до истечения их срока действия.
+     *
+     * @throws JwtException если токен недействителен
+     */
+    public JwtClaims parseToken(String token) {
+        if (verifiedTokens == null) {
+            return verify(token);
+        }
+        var tokenHash = hash(token);
+        var cached = verifiedTokens.getIfPresent(tokenHash);
+        if (cached != null && cached.expiresAt().isAfter(Instant.now())) {
+            return cached;
+        }
+        var claims = verify(token);
+        verifiedTokens.put(tokenHash, claims);
+        return claims;
+    }
+
     public boolean validateToken(String token) {
         try {
-            Jwts.parser().setSigningKey(key).build().parseClaimsJws(token);
+            parseToken(token);
             return true;
         } catch (JwtException | IllegalArgumentException exc) {
             return false;
@@ -50,9 +116,66 @@ public class JwtUtil {
     }
 
     public String extractUsername(String token) {
-        return Jwts.parser().setSigningKey(key).build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return parseToken(token).username();
+    }
+
+    private JwtClaims verify(String token) {
+        return toJwtClaims(parser.parseClaimsJws(token).getBody());
+    }
+
+    private static JwtClaims toJwtClaims(Claims claims) {
+        Set<Role> roles = EnumSet.noneOf(Role.class);
+        var roleNames = claims.get(ROLES_CLAIM, List.class);
+        if (roleNames != null) {
+            for (var role : Role.values()) {
+                if (roleNames.contains(role.name())) {
+                    roles.add(role);
+                }
+            }
+        }
+        return new JwtClaims(
+                claims.getId(),
+                claims.getSubject(),
+                claims.get(USER_ID_CLAIM, Long.class),
+                Set.copyOf(roles),
+                claims.getIssuedAt() == null ? null : claims.getIssuedAt().toInstant(),
+                claims.getExpiration() == null ? Instant.MAX : claims.getExpiration().toInstant()
+        );
+    }
+
+    private static String hash(String token) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException exc) {
+            throw new IllegalStateException(exc);
+        }
+    }
+
+    private static final class UntilTokenExpiration implements Expiry<String, JwtClaims> {
+
+        @Override
+        public long expireAfterCreate(String key, JwtClaims claims, long currentTime) {
+            var ttl = Duration.between(Instant.now(), claims.expiresAt());
+            return ttl.isNegative() ? 0 : saturatedNanos(ttl);
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, JwtClaims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, JwtClaims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        private static long saturatedNanos(Duration duration) {
+            try {
+                return duration.toNanos();
+            } catch (ArithmeticException exc) {
+                return Long.MAX_VALUE;
+            }
+        }
     }
 }
@@ -0,0 +1,42 @@
+package com.pii.library_app.user.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pii.library_app.user.exception.UserNotFoundException;
+import com.pii.library_app.user.repo.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Кэш соответствия username → ID пользователя. Загружает только ID,
+ * без сущности {@code User} и её ролей.
+ */
+@Component
+public class UserIdResolver {
+
+    private final UserRepository userRepository;
+    private final Cache<String, Long> cache;
+
+    public UserIdResolver(
+            UserRepository userRepository,
+            @Value("${library.user-id-cache.max-size:10000}") long maxSize,
+            @Value("${library.user-id-cache.ttl:10m}") Duration ttl
+    ) {
+        this.userRepository = userRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public Long resolve(String username) {
+        return cache.get(username, name -> userRepository.findIdByUsername(name)
+                .orElseThrow(() -> new UserNotFoundException(name)));
+    }
+
+    public void evict(String username) {
+        cache.invalidate(username);
+    }
+}
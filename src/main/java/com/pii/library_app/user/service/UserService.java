@@ -15,11 +15,14 @@ public class UserService {
     private final Logger LOG = LoggerFactory.getLogger(UserService.class);
 
     private final UserRepository userRepository;
+    private final UserIdResolver userIdResolver;
 
     public UserService(
-            UserRepository userRepository
+            UserRepository userRepository,
+            UserIdResolver userIdResolver
     ) {
         this.userRepository = userRepository;
+        this.userIdResolver = userIdResolver;
     }
 
     public boolean existsByUsername(String username) {
@@ -34,12 +37,18 @@ public class UserService {
         return userRepository.findById(userId).orElseThrow(() -> new UserNotFoundException(userId));
     }
 
+    @Transactional
+    public void updatePassword(Long userId, String passwordHash) {
+        userRepository.updatePassword(userId, passwordHash);
+    }
+
     @Transactional
     public void createUser(User user) {
         if (existsByUsername(user.getUsername())) {
             throw new UsernameAlreadyExistsException("Имя пользователя '" + user.getUsername() + "' занято");
         }
         userRepository.save(user);
+        userIdResolver.evict(user.getUsername());
         LOG.info("Пользователь {} успешно зарегистрирован", user.getUsername());
     }
 }
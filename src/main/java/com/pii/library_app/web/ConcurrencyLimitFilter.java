@@ -0,0 +1,152 @@
+package com.pii.library_app.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ограничивает число одновременно обрабатываемых запросов. На виртуальных потоках Tomcat
+ * больше не ограничивает параллелизм размером пула, и без этого фильтра тысячи запросов
+ * встали бы в очередь за соединениями Hikari. Запрос ждет разрешения не дольше
+ * {@code acquire-timeout}, иначе получает 503. Асинхронный запрос держит разрешение
+ * до завершения ответа.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    public static final String IN_FLIGHT_GAUGE_NAME = "library.web.requests.in_flight";
+    public static final String REJECTED_COUNTER_NAME = "library.web.requests.rejected";
+
+    private static final String AVAILABILITY_STREAM_PATH = "/books/availability/stream";
+
+    private final Logger LOG = LoggerFactory.getLogger(ConcurrencyLimitFilter.class);
+
+    private final ObjectMapper objectMapper;
+    private final int maxRequests;
+    private final long acquireTimeoutNanos;
+    private final Semaphore permits;
+    private final Counter rejected;
+
+    public ConcurrencyLimitFilter(
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${library.web.concurrency.max-requests:200}") int maxRequests,
+            @Value("${library.web.concurrency.acquire-timeout:2s}") Duration acquireTimeout
+    ) {
+        this.objectMapper = objectMapper;
+        this.maxRequests = maxRequests;
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+        this.permits = new Semaphore(Math.max(maxRequests, 0), true);
+        Gauge.builder(IN_FLIGHT_GAUGE_NAME, permits, p -> this.maxRequests - p.availablePermits())
+                .description("Запросы, обрабатываемые в данный момент")
+                .register(meterRegistry);
+        this.rejected = Counter.builder(REJECTED_COUNTER_NAME)
+                .description("Запросы, отклоненные из-за превышения лимита параллелизма")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // 0 - лимит отключен; actuator отвечает всегда, чтобы перегрузку было видно в метриках;
+        // подписка SSE открыта часами и ограничена своим лимитом library.books.availability.max-subscribers
+        var path = request.getRequestURI().substring(request.getContextPath().length());
+        return maxRequests <= 0 || path.startsWith("/actuator/") || path.equals(AVAILABILITY_STREAM_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain chain
+    ) throws ServletException, IOException {
+        if (!acquire()) {
+            rejected.increment();
+            LOG.warn("➤➤➤➤➤➤➤ Превышен лимит одновременных запросов ({}), отклонен {} {}",
+                    maxRequests, request.getMethod(), request.getRequestURI());
+            reject(response);
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleasingListener());
+            } else {
+                permits.release();
+            }
+        }
+    }
+
+    private boolean acquire() {
+        try {
+            return permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        var status = HttpStatus.SERVICE_UNAVAILABLE;
+        var body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", status.value());
+        body.put("error", status.getReasonPhrase());
+        body.put("message", "Сервер перегружен, повторите запрос позже");
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+
+    /**
+     * Возвращает разрешение, когда асинхронный ответ (например, выгрузка каталога) завершен.
+     * onComplete вызывается ровно один раз, в том числе после ошибки и таймаута.
+     */
+    private class ReleasingListener implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            permits.release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
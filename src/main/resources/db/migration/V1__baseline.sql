@@ -0,0 +1,46 @@
+-- Схема в том виде, в каком ее создавал Hibernate (ddl-auto: update). Для существующей БД
+-- эта миграция пропускается: Flyway ставит отметку baseline на версию 1.
+
+CREATE SEQUENCE books_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE users
+(
+    id       bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username varchar(255) NOT NULL UNIQUE,
+    password varchar(255) NOT NULL
+);
+
+CREATE TABLE user_roles
+(
+    user_id bigint NOT NULL REFERENCES users (id),
+    roles   varchar(255)
+);
+
+CREATE TABLE books
+(
+    id               bigint PRIMARY KEY,
+    title            varchar(255) NOT NULL,
+    author           varchar(255) NOT NULL,
+    genre            varchar(255) NOT NULL,
+    available        boolean      NOT NULL,
+    total_copies     integer      NOT NULL DEFAULT 1,
+    available_copies integer      NOT NULL DEFAULT 1
+);
+
+CREATE TABLE borrowed_books
+(
+    id          bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id     bigint       NOT NULL REFERENCES users (id),
+    book_id     bigint       NOT NULL REFERENCES books (id),
+    borrowed_at timestamp(6) NOT NULL,
+    returned_at timestamp(6)
+);
+
+CREATE TABLE user_activity_logs
+(
+    id        bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id   bigint,
+    action    varchar(255),
+    endpoint  varchar(255),
+    timestamp timestamp(6)
+);
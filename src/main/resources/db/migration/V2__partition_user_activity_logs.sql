@@ -0,0 +1,52 @@
+-- user_activity_logs секционируется по дням (RANGE по timestamp). Накопленные строки не копируются:
+-- старая таблица целиком становится секцией до начала текущего дня и удаляется по сроку хранения,
+-- как и дневные секции. Следующие дни заранее создает ActivityLogPartitionMaintenance.
+
+ALTER TABLE user_activity_logs RENAME TO user_activity_logs_legacy;
+ALTER TABLE user_activity_logs_legacy DROP CONSTRAINT IF EXISTS user_activity_logs_pkey;
+ALTER TABLE user_activity_logs_legacy ALTER COLUMN id DROP IDENTITY IF EXISTS;
+DELETE FROM user_activity_logs_legacy WHERE timestamp IS NULL;
+ALTER TABLE user_activity_logs_legacy
+    ALTER COLUMN id SET NOT NULL,
+    ALTER COLUMN timestamp SET NOT NULL;
+
+CREATE SEQUENCE user_activity_logs_id_seq;
+SELECT setval('user_activity_logs_id_seq', coalesce((SELECT max(id) FROM user_activity_logs_legacy), 0) + 1, false);
+
+-- ключ секционирования обязан входить в первичный ключ
+CREATE TABLE user_activity_logs
+(
+    id        bigint       NOT NULL DEFAULT nextval('user_activity_logs_id_seq'),
+    user_id   bigint,
+    action    varchar(255),
+    endpoint  varchar(255),
+    timestamp timestamp(6) NOT NULL,
+    PRIMARY KEY (id, timestamp)
+) PARTITION BY RANGE (timestamp);
+
+ALTER SEQUENCE user_activity_logs_id_seq OWNED BY user_activity_logs.id;
+
+-- индекс секционированной таблицы создается в каждой секции, в том числе в будущих
+CREATE INDEX idx_user_activity_logs_user_timestamp ON user_activity_logs (user_id, timestamp);
+
+-- страховочная секция для строк, день которых еще не создан; в норме пустая
+CREATE TABLE user_activity_logs_default PARTITION OF user_activity_logs DEFAULT;
+
+DO
+$$
+    DECLARE
+        today date := current_date;
+    BEGIN
+        EXECUTE format('CREATE TABLE %I PARTITION OF user_activity_logs FOR VALUES FROM (%L) TO (%L)',
+                       'user_activity_logs_p' || to_char(today, 'YYYYMMDD'), today, today + 1);
+
+        INSERT INTO user_activity_logs (id, user_id, action, endpoint, timestamp)
+        SELECT id, user_id, action, endpoint, timestamp
+        FROM user_activity_logs_legacy
+        WHERE timestamp >= today;
+        DELETE FROM user_activity_logs_legacy WHERE timestamp >= today;
+
+        EXECUTE format('ALTER TABLE user_activity_logs ATTACH PARTITION user_activity_logs_legacy '
+                           || 'FOR VALUES FROM (MINVALUE) TO (%L)', today);
+    END
+$$;
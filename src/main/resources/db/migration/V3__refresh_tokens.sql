@@ -0,0 +1,15 @@
+-- refresh-токены: хранится только SHA-256 от значения, выданного клиенту
+CREATE TABLE refresh_tokens
+(
+    id         bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id    bigint                      NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    token_hash varchar(64)                 NOT NULL UNIQUE,
+    family_id  varchar(36)                 NOT NULL,
+    created_at timestamp(6) with time zone NOT NULL,
+    expires_at timestamp(6) with time zone NOT NULL,
+    revoked_at timestamp(6) with time zone
+);
+
+CREATE INDEX idx_refresh_tokens_family ON refresh_tokens (family_id);
+CREATE INDEX idx_refresh_tokens_user ON refresh_tokens (user_id);
+CREATE INDEX idx_refresh_tokens_expires_at ON refresh_tokens (expires_at);
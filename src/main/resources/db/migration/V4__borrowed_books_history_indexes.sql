@@ -0,0 +1,4 @@
+-- история выдач читается страницами по убыванию ID: по пользователю, по книге и по невозвращенным книгам
+CREATE INDEX idx_borrowed_books_user_id ON borrowed_books (user_id, id);
+CREATE INDEX idx_borrowed_books_book_id ON borrowed_books (book_id, id);
+CREATE INDEX idx_borrowed_books_active ON borrowed_books (id) WHERE returned_at IS NULL;
@@ -0,0 +1,3 @@
+-- у пользователя не больше одной невозвращенной выдачи каждой книги; этот же индекс обслуживает поиск
+-- активной выдачи при возврате (user_id, book_id, returned_at IS NULL) без просмотра всей истории
+CREATE UNIQUE INDEX uq_borrowed_books_active_loan ON borrowed_books (user_id, book_id) WHERE returned_at IS NULL;
@@ -0,0 +1,3 @@
+-- растет при каждом изменении счетчиков экземпляров; обработчики событий после коммита сравнивают по нему
+-- снимки книги и не затирают более новое состояние более старым
+ALTER TABLE books ADD COLUMN copies_version BIGINT NOT NULL DEFAULT 0;
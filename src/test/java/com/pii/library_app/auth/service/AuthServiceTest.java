@@ -1,19 +1,29 @@
 package com.pii.library_app.auth.service;
 
+import com.pii.library_app.auth.dto.RefreshTokenRequest;
 import com.pii.library_app.auth.exception.InvalidCredentialsException;
+import com.pii.library_app.auth.exception.TooManyLoginAttemptsException;
 import com.pii.library_app.auth.exception.UsernameAlreadyExistsException;
+import com.pii.library_app.security.AuthenticatedUser;
+import com.pii.library_app.security.PasswordHashingExecutor;
+import com.pii.library_app.security.TokenRevocationService;
 import com.pii.library_app.security.jwt.JwtUtil;
 import com.pii.library_app.user.model.Role;
 import com.pii.library_app.user.model.User;
 import com.pii.library_app.user.service.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.time.Duration;
+import java.util.List;
 import java.util.Set;
 
 import static com.pii.library_app.util.TestDataFactory.createTestAuthRequest;
@@ -31,6 +41,15 @@ class AuthServiceTest {
     private PasswordEncoder passwordEncoder;
     @Mock
     private JwtUtil jwtUtil;
+    @Mock
+    private TokenRevocationService revocationService;
+    @Mock
+    private RefreshTokenService refreshTokenService;
+    @Spy
+    private PasswordHashingExecutor hashingExecutor =
+            new PasswordHashingExecutor(new SimpleMeterRegistry(), 1, 10, Duration.ofSeconds(5));
+    @Spy
+    private LoginAttemptThrottle loginThrottle = new LoginAttemptThrottle(3, 100, Duration.ofMinutes(15));
     @InjectMocks
     private AuthService authService;
 
@@ -78,9 +97,11 @@ class AuthServiceTest {
         when(userService.findByUsername("validUser")).thenReturn(user);
         when(passwordEncoder.matches("correctPassword", "encodedPassword")).thenReturn(true);
         when(jwtUtil.generateToken(user)).thenReturn("mockJwtToken");
+        when(refreshTokenService.issue(user.getId())).thenReturn("mockRefreshToken");
 
-        var response = authService.login(request);
+        var response = authService.login(request, "127.0.0.1");
         assertThat(response.message()).isEqualTo("mockJwtToken");
+        assertThat(response.refreshToken()).isEqualTo("mockRefreshToken");
         verify(userService, times(1)).findByUsername("validUser");
         verify(passwordEncoder, times(1)).matches("correctPassword", "encodedPassword");
         verify(jwtUtil, times(1)).generateToken(user);
@@ -92,7 +113,7 @@ class AuthServiceTest {
         var request = createTestAuthRequest("nonExistentUser", "securePassword");
         when(userService.findByUsername("nonExistentUser")).thenThrow(new InvalidCredentialsException("Неверное имя пользователя или пароль"));
 
-        assertThatThrownBy(() -> authService.login(request))
+        assertThatThrownBy(() -> authService.login(request, "127.0.0.1"))
                 .isInstanceOf(InvalidCredentialsException.class)
                 .hasMessage("Неверное имя пользователя или пароль");
         verify(userService, times(1)).findByUsername("nonExistentUser");
@@ -110,7 +131,7 @@ class AuthServiceTest {
         when(passwordEncoder.matches("wrongPassword", "encodedPassword"))
                 .thenThrow(new InvalidCredentialsException("Неверное имя пользователя или пароль"));
 
-        assertThatThrownBy(() -> authService.login(request))
+        assertThatThrownBy(() -> authService.login(request, "127.0.0.1"))
                 .isInstanceOf(InvalidCredentialsException.class)
                 .hasMessage("Неверное имя пользователя или пароль");
         verify(userService, times(1)).findByUsername("validUser");
@@ -118,6 +139,66 @@ class AuthServiceTest {
         verify(jwtUtil, never()).generateToken(user);
     }
 
+    @Test
+    @DisplayName("Должен пересчитать хеш пароля при входе, если изменились параметры хеширования")
+    void shouldRehashPasswordOnLoginWhenEncodingIsOutdated() {
+        var request = createTestAuthRequest("validUser", "correctPassword");
+        var user = createTestUser("validUser", "oldHash");
+        user.setId(1L);
+        when(userService.findByUsername("validUser")).thenReturn(user);
+        when(passwordEncoder.matches("correctPassword", "oldHash")).thenReturn(true);
+        when(passwordEncoder.upgradeEncoding("oldHash")).thenReturn(true);
+        when(passwordEncoder.encode("correctPassword")).thenReturn("{argon2}newHash");
+        when(jwtUtil.generateToken(user)).thenReturn("mockJwtToken");
+
+        assertThat(authService.login(request, "127.0.0.1").message()).isEqualTo("mockJwtToken");
+        verify(userService, times(1)).updatePassword(1L, "{argon2}newHash");
+    }
+
+    @Test
+    @DisplayName("Должен отклонять вход без проверки пароля после серии неудачных попыток")
+    void shouldRejectLoginBeforeHashingAfterRepeatedFailures() {
+        var request = createTestAuthRequest("validUser", "wrongPassword");
+        var user = createTestUser("validUser", "encodedPassword");
+        when(userService.findByUsername("validUser")).thenReturn(user);
+        when(passwordEncoder.matches("wrongPassword", "encodedPassword")).thenReturn(false);
+
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> authService.login(request, "127.0.0.1"))
+                    .isInstanceOf(InvalidCredentialsException.class);
+        }
+        assertThatThrownBy(() -> authService.login(createTestAuthRequest("validUser", "correctPassword"), "127.0.0.1"))
+                .isInstanceOf(TooManyLoginAttemptsException.class);
+        verify(passwordEncoder, times(3)).matches(anyString(), anyString());
+        verify(jwtUtil, never()).generateToken(any(User.class));
+    }
+
+    @Test
+    @DisplayName("Должен выдать новый access-токен по refresh-токену без проверки пароля")
+    void shouldRefreshAccessTokenWithoutPasswordCheck() {
+        var user = createTestUser("validUser", "encodedPassword");
+        user.setId(1L);
+        when(refreshTokenService.rotate("oldRefreshToken"))
+                .thenReturn(new RefreshTokenService.Rotation(1L, "newRefreshToken"));
+        when(userService.findUserById(1L)).thenReturn(user);
+        when(jwtUtil.generateToken(user)).thenReturn("mockJwtToken");
+
+        var response = authService.refresh(new RefreshTokenRequest("oldRefreshToken"));
+
+        assertThat(response.message()).isEqualTo("mockJwtToken");
+        assertThat(response.refreshToken()).isEqualTo("newRefreshToken");
+        verifyNoInteractions(passwordEncoder);
+    }
+
+    @Test
+    @DisplayName("Должен отозвать refresh-токен при выходе даже без access-токена")
+    void shouldRevokeRefreshTokenOnLogout() {
+        authService.logout(null, new RefreshTokenRequest("refreshToken"));
+
+        verify(refreshTokenService, times(1)).revoke("refreshToken");
+        verifyNoInteractions(revocationService);
+    }
+
     @Test
     @DisplayName("Должен выбросить исключение при регистрации с пустым именем")
     void shouldThrowExceptionWhenRegisteringWithEmptyUsername() {
@@ -131,8 +212,41 @@ class AuthServiceTest {
     @DisplayName("Должен выбросить исключение при входе с пустым паролем")
     void shouldThrowExceptionWhenLoggingInWithEmptyPassword() {
         var request = createTestAuthRequest("validUser", "");
-        assertThatThrownBy(() -> authService.login(request))
+        assertThatThrownBy(() -> authService.login(request, "127.0.0.1"))
                 .isInstanceOf(InvalidCredentialsException.class)
                 .hasMessage("Неверное имя пользователя или пароль");
     }
+
+    @Test
+    @DisplayName("Должен отозвать текущий токен при выходе")
+    void shouldRevokeCurrentTokenOnLogout() {
+        var user = new AuthenticatedUser(1L, "validUser", Set.of(Role.USER), "token-id");
+        var principal = new UsernamePasswordAuthenticationToken(user, null, List.of());
+
+        var response = authService.logout(principal, null);
+
+        assertThat(response.message()).isEqualTo("Пользователь вышел из системы");
+        verify(revocationService, times(1)).revokeToken("token-id");
+        verify(revocationService, never()).revokeAllTokens(anyString());
+    }
+
+    @Test
+    @DisplayName("Должен отозвать все токены пользователя и его refresh-токены, если идентификатор токена неизвестен")
+    void shouldRevokeAllTokensOnLogoutWithoutTokenId() {
+        var user = createTestUser("validUser", "encodedPassword");
+        user.setId(1L);
+        when(userService.findByUsername("validUser")).thenReturn(user);
+
+        authService.logout(() -> "validUser", null);
+        verify(revocationService, times(1)).revokeAllTokens("validUser");
+        verify(refreshTokenService, times(1)).revokeAll(1L);
+    }
+
+    @Test
+    @DisplayName("Должен выбросить исключение при выходе без аутентификации")
+    void shouldThrowExceptionWhenLoggingOutAnonymously() {
+        assertThatThrownBy(() -> authService.logout(null, null))
+                .isInstanceOf(InvalidCredentialsException.class);
+        verifyNoInteractions(revocationService);
+    }
 }
@@ -0,0 +1,52 @@
+package com.pii.library_app.auth.service;
+
+import com.pii.library_app.auth.exception.TooManyLoginAttemptsException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LoginAttemptThrottleTest {
+
+    private final LoginAttemptThrottle throttle = new LoginAttemptThrottle(2, 3, Duration.ofMinutes(15));
+
+    @Test
+    @DisplayName("Должен блокировать учетную запись с адреса после лимита неудач и снимать блок после успешного входа")
+    void shouldThrottleAccount() {
+        throttle.recordFailure("reader", "10.0.0.1");
+        assertThatCode(() -> throttle.checkAllowed("reader", "10.0.0.1")).doesNotThrowAnyException();
+        throttle.recordFailure("reader", "10.0.0.1");
+
+        assertThatThrownBy(() -> throttle.checkAllowed("reader", "10.0.0.1"))
+                .isInstanceOf(TooManyLoginAttemptsException.class);
+        assertThatCode(() -> throttle.checkAllowed("writer", "10.0.0.1")).doesNotThrowAnyException();
+
+        throttle.recordSuccess("reader", "10.0.0.1");
+        assertThatCode(() -> throttle.checkAllowed("reader", "10.0.0.1")).doesNotThrowAnyException();
+    }
+
+    @Test
+    @DisplayName("Неудачи с чужих адресов не должны блокировать вход владельцу учетной записи")
+    void shouldNotLockOutAccountFromOtherAddresses() {
+        throttle.recordFailure("reader", "10.0.0.1");
+        throttle.recordFailure("reader", "10.0.0.2");
+        throttle.recordFailure("reader", "10.0.0.3");
+
+        assertThatCode(() -> throttle.checkAllowed("reader", "10.0.0.4")).doesNotThrowAnyException();
+    }
+
+    @Test
+    @DisplayName("Должен блокировать адрес, с которого перебирают разные учетные записи")
+    void shouldThrottleAddress() {
+        throttle.recordFailure("user1", "10.0.0.1");
+        throttle.recordFailure("user2", "10.0.0.1");
+        throttle.recordFailure("user3", "10.0.0.1");
+
+        assertThatThrownBy(() -> throttle.checkAllowed("user4", "10.0.0.1"))
+                .isInstanceOf(TooManyLoginAttemptsException.class);
+        assertThatCode(() -> throttle.checkAllowed("user4", "10.0.0.2")).doesNotThrowAnyException();
+    }
+}
@@ -0,0 +1,66 @@
+package com.pii.library_app.auth.service;
+
+import com.pii.library_app.auth.exception.InvalidCredentialsException;
+import com.pii.library_app.auth.repo.RefreshTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+class RefreshTokenServiceTest {
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    private RefreshTokenService refreshTokenService;
+
+    @BeforeEach
+    void setUp() {
+        refreshTokenService = new RefreshTokenService(refreshTokenRepository, Duration.ofDays(30));
+    }
+
+    @Test
+    @DisplayName("Должен заменять refresh-токен при обновлении и хранить только его хеш")
+    void shouldRotateToken() {
+        var token = refreshTokenService.issue(1L);
+
+        var rotation = refreshTokenService.rotate(token);
+
+        assertThat(rotation.userId()).isEqualTo(1L);
+        assertThat(rotation.refreshToken()).isNotEqualTo(token);
+        assertThat(refreshTokenRepository.findAll())
+                .hasSize(2)
+                .noneMatch(stored -> stored.getTokenHash().equals(token));
+    }
+
+    @Test
+    @DisplayName("Повторное предъявление замененного токена должно отзывать всю цепочку")
+    void shouldRevokeFamilyOnReuse() {
+        var token = refreshTokenService.issue(1L);
+        var rotated = refreshTokenService.rotate(token).refreshToken();
+        var otherSession = refreshTokenService.issue(1L);
+
+        assertThatThrownBy(() -> refreshTokenService.rotate(token)).isInstanceOf(InvalidCredentialsException.class);
+        assertThatThrownBy(() -> refreshTokenService.rotate(rotated)).isInstanceOf(InvalidCredentialsException.class);
+        assertThat(refreshTokenService.rotate(otherSession).userId()).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("Должен отклонять отозванный и истекший refresh-токен")
+    void shouldRejectRevokedAndExpiredTokens() {
+        var revoked = refreshTokenService.issue(1L);
+        refreshTokenService.revoke(revoked);
+        assertThatThrownBy(() -> refreshTokenService.rotate(revoked)).isInstanceOf(InvalidCredentialsException.class);
+
+        var expired = new RefreshTokenService(refreshTokenRepository, Duration.ofSeconds(-1)).issue(1L);
+        assertThatThrownBy(() -> refreshTokenService.rotate(expired)).isInstanceOf(InvalidCredentialsException.class);
+        assertThatThrownBy(() -> refreshTokenService.rotate("unknown")).isInstanceOf(InvalidCredentialsException.class);
+    }
+}
@@ -1,17 +1,28 @@
 package com.pii.library_app.book.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pii.library_app.book.dto.BookDto;
+import com.pii.library_app.book.dto.BookExportFormat;
+import com.pii.library_app.book.dto.BookPageRequest;
 import com.pii.library_app.book.dto.CreateBookDto;
+import com.pii.library_app.book.dto.LoanHistoryDto;
+import com.pii.library_app.book.dto.LoanHistoryPageDto;
 import com.pii.library_app.book.dto.SearchBookFilterDto;
 import com.pii.library_app.book.dto.SearchBookResponseDto;
+import com.pii.library_app.book.dto.SearchCountMode;
 import com.pii.library_app.book.exception.BookNotAvailableException;
 import com.pii.library_app.book.exception.BookNotBorrowedException;
 import com.pii.library_app.book.exception.BookNotFoundException;
 import com.pii.library_app.book.model.Book;
 import com.pii.library_app.book.model.BorrowedBook;
 import com.pii.library_app.book.model.Genre;
+import com.pii.library_app.book.service.BookExportService;
+import com.pii.library_app.book.service.BookImportService;
+import com.pii.library_app.book.service.BookLoanHistoryService;
 import com.pii.library_app.book.service.BookService;
+import com.pii.library_app.book.stream.BookAvailabilityStream;
 import com.pii.library_app.security.JwtAuthenticationFilter;
+import com.pii.library_app.web.ConcurrencyLimitFilter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.DisplayName;
@@ -22,6 +33,8 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -32,7 +45,10 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(BookController.class)
@@ -44,7 +60,17 @@ public class BookControllerTest {
     @MockitoBean
     private BookService bookService;
     @MockitoBean
+    private BookExportService exportService;
+    @MockitoBean
+    private BookImportService importService;
+    @MockitoBean
+    private BookLoanHistoryService loanHistoryService;
+    @MockitoBean
+    private BookAvailabilityStream availabilityStream;
+    @MockitoBean
     private JwtAuthenticationFilter jwtAuthenticationFilter;
+    @MockitoBean
+    private ConcurrencyLimitFilter concurrencyLimitFilter;
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -126,15 +152,15 @@ public class BookControllerTest {
     void shouldSearchBooks() throws Exception {
         var filter = new SearchBookFilterDto("1984", "George Orwell", Genre.DYSTOPIAN);
         List<Book> books = List.of(createTestBook("1984", "George Orwell", Genre.DYSTOPIAN));
-        var response = new SearchBookResponseDto(books, books.size());
-        when(bookService.searchBooks(any(SearchBookFilterDto.class))).thenReturn(response);
+        var response = new SearchBookResponseDto(books.stream().map(BookDto::fromEntity).toList(), books.size());
+        when(bookService.searchBooks(any(SearchBookFilterDto.class), any(BookPageRequest.class))).thenReturn(response);
         mockMvc.perform(post("/books/search")
                         .contentType("application/json")
                         .content(objectMapper.writeValueAsString(filter)))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.books[0].title").value("1984"))
                 .andExpect(jsonPath("$.books[0].author").value("George Orwell"));
-        verify(bookService, times(1)).searchBooks(any(SearchBookFilterDto.class));
+        verify(bookService, times(1)).searchBooks(any(SearchBookFilterDto.class), any(BookPageRequest.class));
     }
 
     @Test
@@ -142,15 +168,15 @@ public class BookControllerTest {
     void shouldSearchBooksByTitle() throws Exception {
         var filter = new SearchBookFilterDto("1984", null, null);
         List<Book> books = List.of(createTestBook("1984", "George Orwell", Genre.DYSTOPIAN));
-        var response = new SearchBookResponseDto(books, books.size());
-        when(bookService.searchBooks(any(SearchBookFilterDto.class))).thenReturn(response);
+        var response = new SearchBookResponseDto(books.stream().map(BookDto::fromEntity).toList(), books.size());
+        when(bookService.searchBooks(any(SearchBookFilterDto.class), any(BookPageRequest.class))).thenReturn(response);
         mockMvc.perform(post("/books/search")
                         .contentType("application/json")
                         .content(objectMapper.writeValueAsString(filter)))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.books[0].title").value("1984"))
                 .andExpect(jsonPath("$.books[0].author").value("George Orwell"));
-        verify(bookService, times(1)).searchBooks(any(SearchBookFilterDto.class));
+        verify(bookService, times(1)).searchBooks(any(SearchBookFilterDto.class), any(BookPageRequest.class));
     }
 
     @Test
@@ -158,15 +184,15 @@ public class BookControllerTest {
     void shouldSearchBooksByGenre() throws Exception {
         var filter = new SearchBookFilterDto(null, null, Genre.DYSTOPIAN);
         List<Book> books = List.of(createTestBook("1984", "George Orwell", Genre.DYSTOPIAN));
-        var response = new SearchBookResponseDto(books, books.size());
-        when(bookService.searchBooks(any(SearchBookFilterDto.class))).thenReturn(response);
+        var response = new SearchBookResponseDto(books.stream().map(BookDto::fromEntity).toList(), books.size());
+        when(bookService.searchBooks(any(SearchBookFilterDto.class), any(BookPageRequest.class))).thenReturn(response);
         mockMvc.perform(post("/books/search")
                         .contentType("application/json")
                         .content(objectMapper.writeValueAsString(filter)))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.books[0].title").value("1984"))
                 .andExpect(jsonPath("$.books[0].author").value("George Orwell"));
-        verify(bookService, times(1)).searchBooks(any(SearchBookFilterDto.class));
+        verify(bookService, times(1)).searchBooks(any(SearchBookFilterDto.class), any(BookPageRequest.class));
     }
 
     @Test
@@ -177,8 +203,8 @@ public class BookControllerTest {
                 createTestBook("1984", "George Orwell", Genre.DYSTOPIAN),
                 createTestBook("Animal Farm", "George Orwell", Genre.DYSTOPIAN)
         );
-        var response = new SearchBookResponseDto(books, books.size());
-        when(bookService.searchBooks(any(SearchBookFilterDto.class))).thenReturn(response);
+        var response = new SearchBookResponseDto(books.stream().map(BookDto::fromEntity).toList(), books.size());
+        when(bookService.searchBooks(any(SearchBookFilterDto.class), any(BookPageRequest.class))).thenReturn(response);
         mockMvc.perform(post("/books/search")
                         .contentType("application/json")
                         .content(objectMapper.writeValueAsString(filter)))
@@ -187,7 +213,60 @@ public class BookControllerTest {
                 .andExpect(jsonPath("$.books.length()").value(2))
                 .andExpect(jsonPath("$.books[0].title").value("1984"))
                 .andExpect(jsonPath("$.books[1].title").value("Animal Farm"));
-        verify(bookService, times(1)).searchBooks(any(SearchBookFilterDto.class));
+        verify(bookService, times(1)).searchBooks(any(SearchBookFilterDto.class), any(BookPageRequest.class));
+    }
+
+    @Test
+    @DisplayName("Поиск книг - передает курсор и ограничивает размер страницы")
+    void shouldPassCursorAndClampPageSize() throws Exception {
+        var filter = new SearchBookFilterDto(null, null, null);
+        List<Book> books = List.of(createTestBook("1984", "George Orwell", Genre.DYSTOPIAN));
+        var response = new SearchBookResponseDto(books.stream().map(BookDto::fromEntity).toList(), null, 43L);
+        when(bookService.searchBooks(any(SearchBookFilterDto.class), any(BookPageRequest.class))).thenReturn(response);
+        mockMvc.perform(post("/books/search")
+                        .param("cursor", "42")
+                        .param("size", "100000")
+                        .param("count", "NONE")
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(filter)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nextCursor").value(43L))
+                .andExpect(jsonPath("$.totalCount").doesNotExist());
+        verify(bookService, times(1)).searchBooks(
+                any(SearchBookFilterDto.class),
+                eq(new BookPageRequest(42L, 100, SearchCountMode.NONE))
+        );
+    }
+
+    @Test
+    @DisplayName("Полнотекстовый поиск книг - успешный сценарий")
+    void shouldSearchBooksRanked() throws Exception {
+        List<Book> books = List.of(createTestBook("1984", "George Orwell", Genre.DYSTOPIAN));
+        when(bookService.searchRanked("orwell", 20)).thenReturn(new SearchBookResponseDto(books.stream().map(BookDto::fromEntity).toList(), books.size()));
+        mockMvc.perform(get("/books/search/ranked").param("q", "orwell"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.books[0].title").value("1984"));
+        verify(bookService, times(1)).searchRanked("orwell", 20);
+    }
+
+    @Test
+    @DisplayName("Выгрузка каталога в CSV - успешный сценарий")
+    void shouldExportBooksAsCsv() throws Exception {
+        doAnswer(invocation -> {
+            invocation.getArgument(1, OutputStream.class)
+                    .write("id,title,author,genre,available\n1,1984,George Orwell,DYSTOPIAN,true\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        }).when(exportService).export(eq(BookExportFormat.CSV), any(OutputStream.class));
+
+        var asyncResult = mockMvc.perform(get("/books/export").param("format", "CSV"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"books.csv\""))
+                .andExpect(content().string("id,title,author,genre,available\n1,1984,George Orwell,DYSTOPIAN,true\n"));
+        verify(exportService, times(1)).export(eq(BookExportFormat.CSV), any(OutputStream.class));
     }
 
     @Test
@@ -204,6 +283,21 @@ public class BookControllerTest {
         verify(bookService, times(1)).borrowBook(eq(1L), eq("testUser"));
     }
 
+    @Test
+    @DisplayName("История выдач текущего пользователя - успешный сценарий")
+    void shouldReturnOwnLoanHistory() throws Exception {
+        var loan = new LoanHistoryDto(5L, 1L, "1984", "George Orwell", 7L, "testUser",
+                LocalDateTime.of(2025, 3, 20, 12, 0), null);
+        when(loanHistoryService.getOwnHistory("testUser", 10L, 20))
+                .thenReturn(new LoanHistoryPageDto(List.of(loan), 5L));
+        mockMvc.perform(get("/books/loans/my").param("cursor", "10").principal(() -> "testUser"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.loans[0].bookTitle").value("1984"))
+                .andExpect(jsonPath("$.loans[0].returnedAt").doesNotExist())
+                .andExpect(jsonPath("$.nextCursor").value(5L));
+        verify(loanHistoryService, times(1)).getOwnHistory("testUser", 10L, 20);
+    }
+
     @Test
     @DisplayName("Возврат книги - книга не найдена")
     void shouldReturnNotFoundWhenBookNotFound() throws Exception {
@@ -0,0 +1,162 @@
+package com.pii.library_app.book.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pii.library_app.book.dto.CreateBookDto;
+import com.pii.library_app.book.dto.SearchBookFilterDto;
+import com.pii.library_app.book.model.Genre;
+import com.pii.library_app.book.repo.BookRepository;
+import com.pii.library_app.book.repo.BorrowedBookRepository;
+import com.pii.library_app.user.model.Role;
+import com.pii.library_app.user.repo.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.pii.library_app.util.TestDataFactory.createTestUser;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Ответы контроллеров книг сериализуются без обращений к БД: SQL, выполненный на потоке запроса
+ * после выхода из контроллера, и EntityManager, привязанный к потоку во время сериализации, считаются ошибкой.
+ */
+@SpringBootTest(properties = {
+        "JWT_SECRET_KEY=Y/aQcRmTIvybqtIqEfR4KhpqzlKQit+/Yi6igVW1dLg=",
+        "spring.jpa.open-in-view=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.pii.library_app.book.controller.BookResponseSerializationTest$SqlAfterControllerInspector"
+})
+@AutoConfigureMockMvc
+@Import(BookResponseSerializationTest.SerializationMarker.class)
+@WithMockUser(username = "reader", roles = "ADMIN")
+public class BookResponseSerializationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private BorrowedBookRepository borrowedBookRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void setUp() {
+        var user = createTestUser("reader", "password");
+        user.addAll(Set.of(Role.USER, Role.ADMIN));
+        userRepository.save(user);
+        SqlAfterControllerInspector.reset();
+    }
+
+    @AfterEach
+    void tearDown() {
+        borrowedBookRepository.deleteAll();
+        bookRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Создание, изменение, поиск, выдача и возврат книги не выполняют SQL после выхода из контроллера")
+    void shouldNotQueryDatabaseWhileSerializingResponses() throws Exception {
+        var book = new CreateBookDto("1984", "George Orwell", Genre.DYSTOPIAN, 2);
+        var created = perform(post("/books"), book);
+        var bookId = objectMapper.readTree(created.andReturn().getResponse().getContentAsString()).get("id").asLong();
+
+        perform(put("/books/{id}", bookId), new CreateBookDto("1984", "George Orwell", Genre.DYSTOPIAN, 3));
+        perform(post("/books/search"), new SearchBookFilterDto("orwell", null, null));
+        perform(post("/books/{id}/borrow", bookId), null);
+        perform(post("/books/{id}/return", bookId), null);
+
+        assertThat(SqlAfterControllerInspector.entityManagerBound).isEmpty();
+        assertThat(SqlAfterControllerInspector.statements).isEmpty();
+    }
+
+    private ResultActions perform(MockHttpServletRequestBuilder request, Object body) throws Exception {
+        if (body != null) {
+            request.contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(body));
+        }
+        try {
+            return mockMvc.perform(request).andExpect(status().isOk());
+        } finally {
+            SqlAfterControllerInspector.recording.remove();
+        }
+    }
+
+    public static class SqlAfterControllerInspector implements StatementInspector {
+
+        static final ThreadLocal<Boolean> recording = ThreadLocal.withInitial(() -> false);
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+        static final List<String> entityManagerBound = new CopyOnWriteArrayList<>();
+
+        static void reset() {
+            statements.clear();
+            entityManagerBound.clear();
+        }
+
+        @Override
+        public String inspect(String sql) {
+            if (recording.get()) {
+                statements.add(sql);
+            }
+            return sql;
+        }
+    }
+
+    /**
+     * Включает запись SQL в момент, когда контроллер вернул результат и начинается сериализация тела ответа.
+     */
+    @RestControllerAdvice
+    static class SerializationMarker implements ResponseBodyAdvice<Object> {
+
+        @Autowired
+        private EntityManagerFactory entityManagerFactory;
+
+        @Override
+        public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+            return true;
+        }
+
+        @Override
+        public Object beforeBodyWrite(
+                Object body,
+                MethodParameter returnType,
+                MediaType selectedContentType,
+                Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                ServerHttpRequest request,
+                ServerHttpResponse response
+        ) {
+            if (TransactionSynchronizationManager.hasResource(entityManagerFactory)) {
+                SqlAfterControllerInspector.entityManagerBound.add(request.getURI().getPath());
+            }
+            SqlAfterControllerInspector.recording.set(true);
+            return body;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.pii.library_app.book.repo;
 
+import com.pii.library_app.book.model.Book;
 import com.pii.library_app.book.model.Genre;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -54,4 +55,41 @@ public class BookRepositoryTest {
         bookRepository.deleteById(savedBook.getId());
         assertTrue(bookRepository.findById(savedBook.getId()).isEmpty());
     }
+
+    @Test
+    @DisplayName("Должен выдавать и возвращать экземпляры книги, не выходя за их число")
+    void shouldTakeAndReleaseCopies() {
+        var book = bookRepository.save(new Book("Dune", "Frank Herbert", Genre.SCIENCE_FICTION, 2));
+
+        assertThat(bookRepository.takeCopy(book.getId())).isEqualTo(1);
+        assertThat(bookRepository.takeCopy(book.getId())).isEqualTo(1);
+        assertThat(bookRepository.takeCopy(book.getId())).isZero();
+        var borrowed = bookRepository.findById(book.getId()).orElseThrow();
+        assertThat(borrowed.getAvailableCopies()).isZero();
+        assertFalse(borrowed.isAvailable());
+        assertThat(borrowed.getCopiesVersion()).isEqualTo(2);
+
+        assertThat(bookRepository.releaseCopy(book.getId())).isEqualTo(1);
+        assertThat(bookRepository.releaseCopy(book.getId())).isEqualTo(1);
+        assertThat(bookRepository.releaseCopy(book.getId())).isZero();
+        var returned = bookRepository.findById(book.getId()).orElseThrow();
+        assertThat(returned.getAvailableCopies()).isEqualTo(2);
+        assertTrue(returned.isAvailable());
+        assertThat(returned.getCopiesVersion()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Не должен уменьшать число экземпляров меньше числа выданных")
+    void shouldResizeCopiesOnlyAboveBorrowed() {
+        var book = bookRepository.save(new Book("Dune", "Frank Herbert", Genre.SCIENCE_FICTION, 3));
+        bookRepository.takeCopy(book.getId());
+        bookRepository.takeCopy(book.getId());
+
+        assertThat(bookRepository.resizeCopies(book.getId(), 1)).isZero();
+        assertThat(bookRepository.resizeCopies(book.getId(), 5)).isEqualTo(1);
+        var resized = bookRepository.findById(book.getId()).orElseThrow();
+        assertThat(resized.getTotalCopies()).isEqualTo(5);
+        assertThat(resized.getAvailableCopies()).isEqualTo(3);
+        assertThat(bookRepository.findAvailableCopies(book.getId())).contains(3);
+    }
 }
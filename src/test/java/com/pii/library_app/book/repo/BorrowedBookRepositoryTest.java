@@ -1,6 +1,6 @@
 package com.pii.library_app.book.repo;
 
-import com.pii.library_app.book.model.BorrowedBook;
+import com.pii.library_app.book.dto.LoanHistoryDto;
 import com.pii.library_app.book.model.Genre;
 import com.pii.library_app.user.model.Role;
 import com.pii.library_app.user.repo.UserRepository;
@@ -10,6 +10,7 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -28,12 +29,14 @@ public class BorrowedBookRepositoryTest {
     @Autowired
     private BookRepository bookRepository;
 
+    private static final PageRequest FIRST_PAGE = PageRequest.of(0, 10);
+
     @BeforeEach
     void setUp() {
     }
 
     @Test
-    @DisplayName("Должен найти все заимствованные пользователем книги")
+    @DisplayName("Должен найти историю выдач пользователя от новых к старым")
     void shouldFindBorrowedBooksByUser() {
         var user = createTestUser("testuser", "password");
         user.addAll(Set.of(Role.USER));
@@ -54,13 +57,14 @@ public class BorrowedBookRepositoryTest {
         var borrowed2 = createTestBorrowedBook(user, book2, LocalDateTime.now());
         borrowedBookRepository.saveAll(List.of(borrowed1, borrowed2));
 
-        var borrowedBooks = borrowedBookRepository.findByUser(user);
-        assertThat(borrowedBooks).hasSize(2);
-        assertThat(borrowedBooks).extracting(BorrowedBook::getBook).containsExactly(book1, book2);
+        var history = borrowedBookRepository.findHistoryByUser(user.getId(), Long.MAX_VALUE, FIRST_PAGE);
+        assertThat(history).hasSize(2);
+        assertThat(history).extracting(LoanHistoryDto::bookId).containsExactly(book2.getId(), book1.getId());
+        assertThat(history).extracting(LoanHistoryDto::username).containsOnly("testuser");
     }
 
     @Test
-    @DisplayName("Должен найти все заимствования книги")
+    @DisplayName("Должен найти историю выдач книги")
     void shouldFindBorrowedBooksByBook() {
         var user1 = createTestUser("user1", "pass1");
         user1.addAll(Set.of(Role.USER));
@@ -74,9 +78,10 @@ public class BorrowedBookRepositoryTest {
         var borrowed2 = createTestBorrowedBook(user2, book, LocalDateTime.now());
         borrowedBookRepository.saveAll(List.of(borrowed1, borrowed2));
 
-        List<BorrowedBook> borrowedBooks = borrowedBookRepository.findByBook(book);
-        assertThat(borrowedBooks).hasSize(2);
-        assertThat(borrowedBooks).extracting(BorrowedBook::getUser).containsExactlyInAnyOrder(user1, user2);
+        var history = borrowedBookRepository.findHistoryByBook(book.getId(), Long.MAX_VALUE, FIRST_PAGE);
+        assertThat(history).hasSize(2);
+        assertThat(history).extracting(LoanHistoryDto::username).containsExactly("user2", "user1");
+        assertThat(history).extracting(LoanHistoryDto::bookTitle).containsOnly("Фаренгейт 451");
     }
 
     @Test
@@ -97,6 +102,45 @@ public class BorrowedBookRepositoryTest {
         assertThat(foundBorrowedBook.get().getReturnedAt()).isNull();
     }
 
+    @Test
+    @DisplayName("Страница истории начинается после курсора и ограничена размером")
+    void shouldPageHistoryByCursor() {
+        var user = createTestUser("testuser", "password");
+        user.addAll(Set.of(Role.USER));
+        userRepository.save(user);
+        var book = createTestBook("Фаренгейт 451", "Рэй Брэдбери", Genre.DYSTOPIAN);
+        bookRepository.save(book);
+        var loans = borrowedBookRepository.saveAll(List.of(
+                createTestBorrowedBook(user, book, LocalDateTime.now().minusDays(3)),
+                createTestBorrowedBook(user, book, LocalDateTime.now().minusDays(2)),
+                createTestBorrowedBook(user, book, LocalDateTime.now().minusDays(1))
+        ));
+
+        var page = borrowedBookRepository.findHistoryByUser(user.getId(), loans.get(2).getId(), PageRequest.of(0, 1));
+        assertThat(page).extracting(LoanHistoryDto::id).containsExactly(loans.get(1).getId());
+    }
+
+    @Test
+    @DisplayName("Должен найти только невозвращенные книги")
+    void shouldFindActiveLoans() {
+        var user = createTestUser("testuser", "password");
+        user.addAll(Set.of(Role.USER));
+        userRepository.save(user);
+        var book1 = createTestBook("Фаренгейт 451", "Рэй Брэдбери", Genre.DYSTOPIAN);
+        var book2 = createTestBook("1984", "George Orwell", Genre.DYSTOPIAN);
+        bookRepository.saveAll(List.of(book1, book2));
+        var returned = createTestBorrowedBook(user, book1, LocalDateTime.now().minusDays(1));
+        returned.setReturnedAt(LocalDateTime.now());
+        var active = createTestBorrowedBook(user, book2, LocalDateTime.now());
+        borrowedBookRepository.saveAll(List.of(returned, active));
+
+        var loans = borrowedBookRepository.findActiveLoans(Long.MAX_VALUE, FIRST_PAGE);
+        assertThat(loans).hasSize(1);
+        assertThat(loans.getFirst().id()).isEqualTo(active.getId());
+        assertThat(loans.getFirst().bookAuthor()).isEqualTo("George Orwell");
+        assertThat(loans.getFirst().returnedAt()).isNull();
+    }
+
     @AfterEach
     void tearDown() {}
 }
@@ -0,0 +1,113 @@
+package com.pii.library_app.book.repo;
+
+import com.pii.library_app.book.model.Book;
+import com.pii.library_app.book.model.Genre;
+import com.pii.library_app.user.model.Role;
+import com.pii.library_app.user.repo.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Set;
+
+import static com.pii.library_app.util.TestDataFactory.createTestBook;
+import static com.pii.library_app.util.TestDataFactory.createTestUser;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Кэш второго уровня включен так же, как в application.yaml. Каждое обращение к репозиторию идет
+ * в своей транзакции: запись, положенная в кэш, видна только следующим транзакциям.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=true",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=true",
+        "spring.jpa.properties.hibernate.cache.region.factory_class=jcache",
+        "spring.jpa.properties.hibernate.javax.cache.provider=com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class SecondLevelCacheTest {
+
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        entityManagerFactory.getCache().evictAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Повторное чтение книги по ID берется из кэша, условный UPDATE счетчика вытесняет только запись этой книги")
+    void shouldCacheBookAndEvictOnCopyUpdate() {
+        var id = bookRepository.save(createTestBook("1984", "George Orwell", Genre.DYSTOPIAN)).getId();
+        var otherId = bookRepository.save(createTestBook("Animal Farm", "George Orwell", Genre.DYSTOPIAN)).getId();
+
+        bookRepository.findById(id);
+        bookRepository.findById(id);
+        bookRepository.findById(otherId);
+        assertThat(entityManagerFactory.getCache().contains(Book.class, id)).isTrue();
+        assertThat(statistics.getDomainDataRegionStatistics("books").getHitCount()).isPositive();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> bookRepository.takeCopy(id));
+
+        assertThat(entityManagerFactory.getCache().contains(Book.class, id)).isFalse();
+        assertThat(entityManagerFactory.getCache().contains(Book.class, otherId)).isTrue();
+        assertThat(bookRepository.findById(id).orElseThrow().getAvailableCopies()).isZero();
+    }
+
+    @Test
+    @DisplayName("Чтение книги после условного UPDATE в той же транзакции видит новые счетчики, а не запись кэша")
+    void shouldReadUpdatedCopiesInSameTransaction() {
+        var id = bookRepository.save(createTestBook("1984", "George Orwell", Genre.DYSTOPIAN)).getId();
+        bookRepository.findById(id);
+
+        var book = new TransactionTemplate(transactionManager).execute(status -> {
+            bookRepository.takeCopy(id);
+            return bookRepository.findById(id).orElseThrow();
+        });
+
+        assertThat(book.getAvailableCopies()).isZero();
+        assertThat(book.getCopiesVersion()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Поиск пользователя по имени берется из кэша запросов вместе с ролями")
+    void shouldCacheUserLookupByUsername() {
+        var user = createTestUser("reader", "password");
+        user.addAll(Set.of(Role.USER));
+        userRepository.save(user);
+
+        userRepository.findByUsername("reader");
+        var cached = userRepository.findByUsername("reader").orElseThrow();
+
+        assertThat(cached.getRoles()).containsExactly(Role.USER);
+        assertThat(statistics.getQueryCacheHitCount()).isPositive();
+        assertThat(statistics.getDomainDataRegionStatistics("user-roles").getHitCount()).isPositive();
+    }
+}
@@ -0,0 +1,159 @@
+package com.pii.library_app.book.search;
+
+import com.pii.library_app.book.dto.BookDto;
+import com.pii.library_app.book.dto.BookPageRequest;
+import com.pii.library_app.book.dto.SearchCountMode;
+import com.pii.library_app.book.event.BookChangedEvent;
+import com.pii.library_app.book.event.BookChangedEvent.ChangeType;
+import com.pii.library_app.book.model.Genre;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookCatalogueTest {
+
+    private static final BookPageRequest FIRST_PAGE = new BookPageRequest(null, 20, SearchCountMode.EXACT);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private BookCatalogue catalogue;
+
+    @BeforeEach
+    void setUp() {
+        catalogue = new BookCatalogue(jdbcTemplate, true);
+        create(1L, "1984", "George Orwell", Genre.DYSTOPIAN);
+        create(3L, "Animal Farm", "George Orwell", Genre.DYSTOPIAN);
+        create(4L, "Введение в системы баз данных", "Дейт К.Дж.", Genre.PROGRAMMING);
+    }
+
+    @Test
+    @DisplayName("Должен фильтровать книги по жанру и доступности")
+    void shouldFilterByGenreAndAvailability() {
+        catalogue.onBookChanged(event(ChangeType.BORROWED, 3L, "Animal Farm", "George Orwell", Genre.DYSTOPIAN, false));
+
+        var available = catalogue.search(null, Genre.DYSTOPIAN, true, FIRST_PAGE);
+        assertThat(ids(available.books())).containsExactly(1L);
+        assertThat(available.totalCount()).isEqualTo(1L);
+
+        var borrowed = catalogue.search(null, null, false, FIRST_PAGE);
+        assertThat(ids(borrowed.books())).containsExactly(3L);
+        assertThat(borrowed.books().getFirst().available()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Должен выдавать книги постранично по курсору")
+    void shouldPageByCursor() {
+        var first = catalogue.search(null, null, null, new BookPageRequest(null, 2, SearchCountMode.NONE));
+        assertThat(ids(first.books())).containsExactly(1L, 3L);
+        assertThat(first.nextCursor()).isEqualTo(3L);
+        assertThat(first.totalCount()).isNull();
+
+        var second = catalogue.search(null, null, null, new BookPageRequest(first.nextCursor(), 2, SearchCountMode.EXACT));
+        assertThat(ids(second.books())).containsExactly(4L);
+        assertThat(second.nextCursor()).isNull();
+        assertThat(second.totalCount()).isEqualTo(3L);
+    }
+
+    @Test
+    @DisplayName("Должен сохранять порядок ID при добавлении книги не по порядку")
+    void shouldKeepIdOrderForOutOfOrderInsert() {
+        create(2L, "Brave New World", "Aldous Huxley", Genre.DYSTOPIAN);
+
+        var result = catalogue.search(null, Genre.DYSTOPIAN, true, FIRST_PAGE);
+        assertThat(ids(result.books())).containsExactly(1L, 2L, 3L);
+        assertThat(result.books().get(1).title()).isEqualTo("Brave New World");
+        assertThat(ids(catalogue.search(null, Genre.PROGRAMMING, null, FIRST_PAGE).books())).containsExactly(4L);
+    }
+
+    @Test
+    @DisplayName("Должен учитывать изменение и удаление книг и ограничение по найденным ID")
+    void shouldApplyUpdatesDeletesAndCandidates() {
+        catalogue.onBookChanged(event(ChangeType.UPDATED, 1L, "1984", "George Orwell", Genre.SCIENCE_FICTION, true));
+        catalogue.onBookChanged(BookChangedEvent.deleted(3L));
+
+        assertThat(catalogue.search(null, Genre.DYSTOPIAN, null, FIRST_PAGE).books()).isEmpty();
+        assertThat(ids(catalogue.search(null, Genre.SCIENCE_FICTION, null, FIRST_PAGE).books())).containsExactly(1L);
+        assertThat(ids(catalogue.search(new TreeSet<>(List.of(3L, 4L)), null, null, FIRST_PAGE).books()))
+                .containsExactly(4L);
+        assertThat(catalogue.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Должен пропускать снимок счетчиков, пришедший после более нового")
+    void shouldIgnoreOutOfOrderCopiesSnapshot() {
+        // возврат (версия 2) зафиксирован после выдачи (версия 1), но его обработчик выполнился раньше
+        catalogue.onBookChanged(new BookChangedEvent(ChangeType.RETURNED, 1L, "1984", "George Orwell", Genre.DYSTOPIAN,
+                true, 1, 1, 2));
+        catalogue.onBookChanged(new BookChangedEvent(ChangeType.BORROWED, 1L, "1984", "George Orwell", Genre.DYSTOPIAN,
+                false, 1, 0, 1));
+        catalogue.onBookChanged(new BookChangedEvent(ChangeType.UPDATED, 1L, "Nineteen Eighty-Four", "George Orwell",
+                Genre.DYSTOPIAN, false, 1, 0, 1));
+
+        var book = catalogue.search(new TreeSet<>(List.of(1L)), null, null, FIRST_PAGE).books().getFirst();
+        assertThat(book.title()).isEqualTo("Nineteen Eighty-Four");
+        assertThat(book.available()).isTrue();
+        assertThat(book.availableCopies()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Изменение во время загрузки не ждет чтения таблицы и не теряется после замены колонок")
+    void shouldApplyChangesArrivingDuringLoad() throws Exception {
+        var row = mock(ResultSet.class);
+        when(row.getLong("id")).thenReturn(5L);
+        when(row.getString("title")).thenReturn("Brave New World");
+        when(row.getString("author")).thenReturn("Aldous Huxley");
+        when(row.getString("genre")).thenReturn(Genre.DYSTOPIAN.name());
+        when(row.getBoolean("available")).thenReturn(true);
+        when(row.getInt("total_copies")).thenReturn(2);
+        when(row.getInt("available_copies")).thenReturn(2);
+        when(row.getLong("copies_version")).thenReturn(3L);
+        doAnswer(invocation -> {
+            var handler = invocation.getArgument(1, RowCallbackHandler.class);
+            handler.processRow(row);
+            // выдача зафиксирована после чтения строки, обработчик работает в другом потоке
+            CompletableFuture.runAsync(() -> catalogue.onBookChanged(new BookChangedEvent(ChangeType.BORROWED, 5L,
+                    "Brave New World", "Aldous Huxley", Genre.DYSTOPIAN, true, 2, 1, 4))).get(5, TimeUnit.SECONDS);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+
+        catalogue.load();
+
+        assertThat(catalogue.isReady()).isTrue();
+        assertThat(catalogue.size()).isEqualTo(1);
+        var book = catalogue.search(null, null, null, FIRST_PAGE).books().getFirst();
+        assertThat(book.id()).isEqualTo(5L);
+        assertThat(book.availableCopies()).isEqualTo(1);
+    }
+
+    private void create(Long id, String title, String author, Genre genre) {
+        catalogue.onBookChanged(event(ChangeType.CREATED, id, title, author, genre, true));
+    }
+
+    private static BookChangedEvent event(ChangeType type, Long id, String title, String author, Genre genre, boolean available) {
+        return new BookChangedEvent(type, id, title, author, genre, available, 1, available ? 1 : 0, 0);
+    }
+
+    private static List<Long> ids(List<BookDto> books) {
+        return books.stream().map(BookDto::id).toList();
+    }
+}
@@ -0,0 +1,119 @@
+package com.pii.library_app.book.search;
+
+import com.pii.library_app.book.dto.BookPageRequest;
+import com.pii.library_app.book.dto.SearchBookFilterDto;
+import com.pii.library_app.book.dto.SearchBookResponseDto;
+import com.pii.library_app.book.dto.SearchCountMode;
+import com.pii.library_app.book.event.BookChangedEvent;
+import com.pii.library_app.book.model.Genre;
+import com.pii.library_app.config.datasource.ReplicaLagGuard;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookSearchCacheTest {
+
+    private static final BookPageRequest FIRST_PAGE = new BookPageRequest(null, 20, SearchCountMode.EXACT);
+
+    private final ReplicaLagGuard lagGuard = new ReplicaLagGuard(Duration.ofMinutes(1), 100);
+    private BookSearchCache cache;
+    private AtomicInteger searches;
+
+    @BeforeEach
+    void setUp() {
+        cache = new BookSearchCache(new SimpleMeterRegistry(), lagGuard, true, 100, Duration.ofMinutes(10));
+        searches = new AtomicInteger();
+    }
+
+    @Test
+    @DisplayName("Фильтры, отличающиеся регистром и пробелами, попадают в одну запись кэша")
+    void shouldServeNormalizedFilterFromCache() {
+        cache.get(BookSearchCache.normalize(new SearchBookFilterDto(" Orwell ", null, Genre.DYSTOPIAN)), FIRST_PAGE, this::search);
+        cache.get(BookSearchCache.normalize(new SearchBookFilterDto("orwell", "", Genre.DYSTOPIAN)), FIRST_PAGE, this::search);
+
+        assertThat(searches).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("После изменения книги страница считается заново")
+    void shouldRecomputeAfterBookChanged() {
+        var filter = new SearchBookFilterDto(null, null, Genre.DYSTOPIAN);
+        cache.get(filter, FIRST_PAGE, this::search);
+        cache.onBookChanged(BookChangedEvent.deleted(1L));
+        cache.get(filter, FIRST_PAGE, this::search);
+
+        assertThat(searches).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Страница для кэша читается из основной БД, а не из реплики")
+    void shouldLoadFromPrimary() {
+        var readsFromPrimary = new ArrayList<Boolean>();
+        cache.get(new SearchBookFilterDto(null, null, Genre.DYSTOPIAN), FIRST_PAGE, () -> {
+            readsFromPrimary.add(lagGuard.requiresPrimary());
+            return search();
+        });
+
+        assertThat(readsFromPrimary).containsExactly(true);
+        assertThat(lagGuard.requiresPrimary()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Одновременные одинаковые промахи выполняют поиск один раз")
+    void shouldCoalesceConcurrentMisses() throws Exception {
+        var filter = new SearchBookFilterDto("1984", null, null);
+        var release = new CountDownLatch(1);
+        var executor = Executors.newFixedThreadPool(8);
+        try {
+            var results = new ArrayList<Future<SearchBookResponseDto>>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> cache.get(filter, FIRST_PAGE, () -> {
+                    awaitQuietly(release);
+                    return search();
+                })));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<SearchBookResponseDto> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS).totalCount()).isEqualTo(1L);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(searches).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Пустые строки фильтра считаются отсутствием условия")
+    void shouldNormalizeBlankToNull() {
+        var normalized = BookSearchCache.normalize(new SearchBookFilterDto("  ", " Дейт К.Дж. ", Genre.PROGRAMMING, true));
+
+        assertThat(normalized).isEqualTo(new SearchBookFilterDto(null, "дейт к.дж.", Genre.PROGRAMMING, true));
+    }
+
+    private SearchBookResponseDto search() {
+        searches.incrementAndGet();
+        return new SearchBookResponseDto(List.of(), 1L);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
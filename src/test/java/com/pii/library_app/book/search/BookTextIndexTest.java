@@ -0,0 +1,75 @@
+package com.pii.library_app.book.search;
+
+import com.pii.library_app.book.event.BookChangedEvent;
+import com.pii.library_app.book.model.Book;
+import com.pii.library_app.book.model.Genre;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(MockitoExtension.class)
+class BookTextIndexTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private BookTextIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BookTextIndex(jdbcTemplate);
+        index.index(1L, "Введение в системы баз данных", "Дейт К.Дж.", Genre.PROGRAMMING);
+        index.index(2L, "1984", "George Orwell", Genre.DYSTOPIAN);
+        index.index(3L, "Animal Farm", "George Orwell", Genre.DYSTOPIAN);
+        index.index(4L, "Orwell: a biography", "Bernard Crick", Genre.DYSTOPIAN);
+    }
+
+    @Test
+    @DisplayName("Должен находить книги по префиксам слов без учета регистра")
+    void shouldMatchByWordPrefixIgnoringCase() {
+        assertThat(index.match("СИСТ баз", null, null)).containsExactly(1L);
+        assertThat(index.match(null, "orw", null)).containsExactly(2L, 3L);
+        assertThat(index.match("farm", "george", Genre.DYSTOPIAN)).containsExactly(3L);
+        assertThat(index.match("farm", "george", Genre.PROGRAMMING)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Запрос только из знаков препинания не должен находить книги")
+    void shouldMatchNothingForPunctuationOnlyQuery() {
+        assertThat(index.match("?!", null, null)).isEmpty();
+        assertThat(index.match(null, "-", Genre.DYSTOPIAN)).isEmpty();
+        assertThat(index.match(" ", null, Genre.DYSTOPIAN)).containsExactly(2L, 3L, 4L);
+    }
+
+    @Test
+    @DisplayName("Должен ставить совпадение в названии выше совпадения в авторе")
+    void shouldRankTitleMatchesHigher() {
+        assertThat(index.rank("orwell", 10)).containsExactly(4L, 2L, 3L);
+        assertThat(index.rank("orwell", 1)).containsExactly(4L);
+        assertThat(index.rank("orwell farm", 10)).containsExactly(3L);
+    }
+
+    @Test
+    @DisplayName("Должен обновлять индекс по событиям изменения книг")
+    void shouldApplyBookChangedEvents() {
+        var book = new Book("Brave New World", "Aldous Huxley", Genre.DYSTOPIAN);
+        book.setId(5L);
+        index.onBookChanged(BookChangedEvent.of(BookChangedEvent.ChangeType.CREATED, book));
+        assertThat(index.match("brave", null, null)).containsExactly(5L);
+
+        book.setTitle("Island");
+        index.onBookChanged(BookChangedEvent.of(BookChangedEvent.ChangeType.UPDATED, book));
+        assertThat(index.match("brave", null, null)).isEmpty();
+        assertThat(index.match("island", null, null)).containsExactly(5L);
+
+        index.onBookChanged(BookChangedEvent.deleted(5L));
+        assertThat(index.match(null, "huxley", null)).isEmpty();
+        assertThat(index.size()).isEqualTo(4);
+    }
+}
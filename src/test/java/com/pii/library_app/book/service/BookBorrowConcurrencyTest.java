@@ -0,0 +1,158 @@
+package com.pii.library_app.book.service;
+
+import com.pii.library_app.book.exception.BookNotAvailableException;
+import com.pii.library_app.book.exception.BookNotBorrowedException;
+import com.pii.library_app.book.model.Book;
+import com.pii.library_app.book.model.Genre;
+import com.pii.library_app.book.repo.BookRepository;
+import com.pii.library_app.book.repo.BorrowedBookRepository;
+import com.pii.library_app.user.model.Role;
+import com.pii.library_app.user.repo.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static com.pii.library_app.util.TestDataFactory.createTestBook;
+import static com.pii.library_app.util.TestDataFactory.createTestUser;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@TestPropertySource(properties = "JWT_SECRET_KEY=Y/aQcRmTIvybqtIqEfR4KhpqzlKQit+/Yi6igVW1dLg=")
+public class BookBorrowConcurrencyTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private BorrowedBookRepository borrowedBookRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        book = bookRepository.save(createTestBook("1984", "George Orwell", Genre.DYSTOPIAN));
+        for (int i = 0; i < THREADS; i++) {
+            var user = createTestUser("reader" + i, "password");
+            user.addAll(Set.of(Role.USER));
+            userRepository.save(user);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        borrowedBookRepository.deleteAll();
+        bookRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Только один из параллельных запросов должен забронировать книгу")
+    void shouldBorrowBookOnlyOnceUnderConcurrency() throws Exception {
+        var notAvailable = new AtomicInteger();
+        var succeeded = runConcurrently(i -> () -> {
+            try {
+                bookService.borrowBook(book.getId(), "reader" + i);
+                return true;
+            } catch (BookNotAvailableException exc) {
+                notAvailable.incrementAndGet();
+                return false;
+            }
+        });
+
+        assertThat(succeeded).isEqualTo(1);
+        assertThat(notAvailable.get()).isEqualTo(THREADS - 1);
+        assertThat(activeBorrowings()).isEqualTo(1);
+        assertThat(bookRepository.findById(book.getId()).orElseThrow().isAvailable()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Параллельные запросы должны разобрать ровно столько экземпляров, сколько есть")
+    void shouldBorrowNoMoreCopiesThanAvailable() throws Exception {
+        var copies = 5;
+        var multiCopyBook = bookRepository.save(new Book("Dune", "Frank Herbert", Genre.SCIENCE_FICTION, copies));
+
+        var succeeded = runConcurrently(i -> () -> {
+            try {
+                bookService.borrowBook(multiCopyBook.getId(), "reader" + i);
+                return true;
+            } catch (BookNotAvailableException exc) {
+                return false;
+            }
+        });
+
+        assertThat(succeeded).isEqualTo(copies);
+        assertThat(activeBorrowings()).isEqualTo(copies);
+        var stored = bookRepository.findById(multiCopyBook.getId()).orElseThrow();
+        assertThat(stored.getAvailableCopies()).isZero();
+        assertThat(stored.isAvailable()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Только один из параллельных возвратов должен закрыть бронирование")
+    void shouldReturnBookOnlyOnceUnderConcurrency() throws Exception {
+        bookService.borrowBook(book.getId(), "reader0");
+
+        var succeeded = runConcurrently(i -> () -> {
+            try {
+                bookService.returnBook(book.getId(), "reader0");
+                return true;
+            } catch (BookNotBorrowedException exc) {
+                return false;
+            }
+        });
+
+        assertThat(succeeded).isEqualTo(1);
+        assertThat(activeBorrowings()).isZero();
+        assertThat(bookRepository.findById(book.getId()).orElseThrow().isAvailable()).isTrue();
+    }
+
+    private int runConcurrently(IntFunction<Callable<Boolean>> task) throws Exception {
+        var executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            var start = new CountDownLatch(1);
+            var futures = new ArrayList<Future<Boolean>>();
+            for (int i = 0; i < THREADS; i++) {
+                var call = task.apply(i);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return call.call();
+                }));
+            }
+            start.countDown();
+            int succeeded = 0;
+            for (Future<Boolean> future : futures) {
+                if (future.get(30, TimeUnit.SECONDS)) {
+                    succeeded++;
+                }
+            }
+            return succeeded;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private long activeBorrowings() {
+        return borrowedBookRepository.findAll().stream()
+                .filter(borrowedBook -> borrowedBook.getReturnedAt() == null)
+                .count();
+    }
+}
@@ -0,0 +1,96 @@
+package com.pii.library_app.book.service;
+
+import com.pii.library_app.book.event.BookChangedEvent;
+import com.pii.library_app.book.event.BookChangedEvent.ChangeType;
+import com.pii.library_app.book.model.Book;
+import com.pii.library_app.book.model.Genre;
+import com.pii.library_app.book.repo.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookCopyLedgerTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    private BookCopyLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        ledger = new BookCopyLedger(bookRepository, true, Duration.ofMinutes(1), 100);
+    }
+
+    @Test
+    @DisplayName("Должен резервировать не больше экземпляров, чем свободно в БД")
+    void shouldReserveUpToAvailableCopies() {
+        when(bookRepository.findAvailableCopies(1L)).thenReturn(Optional.of(2));
+
+        assertThat(ledger.tryReserve(1L)).isTrue();
+        assertThat(ledger.tryReserve(1L)).isTrue();
+        assertThat(ledger.tryReserve(1L)).isFalse();
+        verify(bookRepository, times(1)).findAvailableCopies(1L);
+    }
+
+    @Test
+    @DisplayName("Должен возвращать экземпляр в учет при возврате книги и откате выдачи")
+    void shouldReleaseOnReturnAndRollback() {
+        when(bookRepository.findAvailableCopies(1L)).thenReturn(Optional.of(1));
+        ledger.tryReserve(1L);
+        assertThat(ledger.tryReserve(1L)).isFalse();
+
+        ledger.onBookChangeRolledBack(event(ChangeType.BORROWED));
+        assertThat(ledger.tryReserve(1L)).isTrue();
+
+        ledger.onBookChanged(event(ChangeType.RETURNED));
+        assertThat(ledger.tryReserve(1L)).isTrue();
+        assertThat(ledger.tryReserve(1L)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Должен перечитывать число экземпляров после отказа БД и после изменения книги")
+    void shouldReloadAfterUpdate() {
+        when(bookRepository.findAvailableCopies(1L)).thenReturn(Optional.of(1), Optional.of(0), Optional.of(3));
+        ledger.tryReserve(1L);
+        ledger.markExhausted(1L);
+        assertThat(ledger.tryReserve(1L)).isFalse();
+
+        ledger.onBookChanged(event(ChangeType.UPDATED));
+        assertThat(ledger.tryReserve(1L)).isTrue();
+        verify(bookRepository, times(3)).findAvailableCopies(1L);
+    }
+
+    @Test
+    @DisplayName("Резерв, не дошедший до БД, должен возвращаться в учет")
+    void shouldReleaseReservation() {
+        when(bookRepository.findAvailableCopies(1L)).thenReturn(Optional.of(1));
+        assertThat(ledger.tryReserve(1L)).isTrue();
+
+        ledger.release(1L);
+        assertThat(ledger.tryReserve(1L)).isTrue();
+        assertThat(ledger.tryReserve(1L)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Неизвестную книгу должен пропускать к БД")
+    void shouldPassUnknownBookToDatabase() {
+        when(bookRepository.findAvailableCopies(1L)).thenReturn(Optional.empty());
+        assertThat(ledger.tryReserve(1L)).isTrue();
+    }
+
+    private static BookChangedEvent event(ChangeType type) {
+        var book = new Book("Dune", "Frank Herbert", Genre.SCIENCE_FICTION, 3);
+        book.setId(1L);
+        return BookChangedEvent.of(type, book);
+    }
+}
@@ -0,0 +1,78 @@
+package com.pii.library_app.book.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pii.library_app.book.dto.BookExportFormat;
+import com.pii.library_app.book.model.Genre;
+import com.pii.library_app.book.repo.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static com.pii.library_app.util.TestDataFactory.createTestBook;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+public class BookExportServiceTest {
+
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private BookExportService exportService;
+    private Long firstId;
+
+    @BeforeEach
+    void setUp() {
+        exportService = new BookExportService(dataSource, transactionManager, objectMapper, 1);
+        var saved = bookRepository.saveAllAndFlush(List.of(
+                createTestBook("1984", "George Orwell", Genre.DYSTOPIAN),
+                createTestBook("Refactoring, 2nd \"Edition\"", "Martin Fowler", Genre.PROGRAMMING)
+        ));
+        firstId = saved.getFirst().getId();
+    }
+
+    @Test
+    @DisplayName("Должен выгружать каталог в NDJSON по одной книге на строку")
+    void shouldExportNdjson() throws Exception {
+        var out = new ByteArrayOutputStream();
+
+        var rows = exportService.export(BookExportFormat.NDJSON, out);
+
+        var lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(rows).isEqualTo(2);
+        assertThat(lines).hasSize(2);
+        var first = objectMapper.readTree(lines[0]);
+        assertThat(first.get("id").asLong()).isEqualTo(firstId);
+        assertThat(first.get("title").asText()).isEqualTo("1984");
+        assertThat(first.get("genre").asText()).isEqualTo("DYSTOPIAN");
+        assertThat(first.get("available").asBoolean()).isTrue();
+        assertThat(objectMapper.readTree(lines[1]).get("title").asText()).isEqualTo("Refactoring, 2nd \"Edition\"");
+    }
+
+    @Test
+    @DisplayName("Должен выгружать каталог в CSV с экранированием значений")
+    void shouldExportCsv() throws Exception {
+        var out = new ByteArrayOutputStream();
+
+        var rows = exportService.export(BookExportFormat.CSV, out);
+
+        assertThat(rows).isEqualTo(2);
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "id,title,author,genre,available\n"
+                        + firstId + ",1984,George Orwell,DYSTOPIAN,true\n"
+                        + (firstId + 1) + ",\"Refactoring, 2nd \"\"Edition\"\"\",Martin Fowler,PROGRAMMING,true\n"
+        );
+    }
+}
@@ -0,0 +1,92 @@
+package com.pii.library_app.book.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pii.library_app.book.dto.BookImportErrorDto;
+import com.pii.library_app.book.event.BookChangedEvent;
+import com.pii.library_app.book.exception.BookImportException;
+import com.pii.library_app.book.model.Book;
+import com.pii.library_app.book.model.Genre;
+import com.pii.library_app.book.repo.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DataJpaTest
+public class BookImportServiceTest {
+
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<Object> events = new ArrayList<>();
+    private BookImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        importService = new BookImportService(bookRepository, transactionManager, new ObjectMapper(), events::add, 2, 10);
+    }
+
+    @Test
+    @DisplayName("Должен импортировать корректные книги из JSON и сообщать об ошибках по строкам")
+    void shouldImportJsonAndReportRowErrors() throws Exception {
+        var json = """
+                [
+                  {"title": "1984", "author": "George Orwell", "genre": "DYSTOPIAN"},
+                  {"title": "", "author": "Nobody", "genre": "DYSTOPIAN"},
+                  {"title": "Dune", "author": "Frank Herbert", "genre": "SPACE_OPERA"},
+                  {"title": "Animal Farm", "author": "George Orwell", "genre": "DYSTOPIAN"},
+                  {"title": "Refactoring", "author": "Martin Fowler", "genre": "PROGRAMMING"}
+                ]
+                """;
+
+        var result = importService.importJson(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(result.imported()).isEqualTo(3);
+        assertThat(result.failed()).isEqualTo(2);
+        assertThat(result.errors()).extracting(BookImportErrorDto::row).containsExactly(2L, 3L);
+        assertThat(bookRepository.findAll()).extracting(Book::getTitle)
+                .containsExactlyInAnyOrder("1984", "Animal Farm", "Refactoring");
+        assertThat(events).hasSize(3).allMatch(BookChangedEvent.class::isInstance);
+    }
+
+    @Test
+    @DisplayName("Должен импортировать книги из CSV со значениями в кавычках")
+    void shouldImportCsvWithQuotedValues() throws Exception {
+        var csv = "title,author,genre\r\n"
+                + "\"Refactoring, 2nd \"\"Edition\"\"\",Martin Fowler,programming\r\n"
+                + "Dune,Frank Herbert,SPACE_OPERA\r\n"
+                + "\"Multi\nline\",Someone,ROMANCE\r\n";
+
+        var result = importService.importCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(result.imported()).isEqualTo(2);
+        assertThat(result.failed()).isEqualTo(1);
+        assertThat(result.errors()).containsExactly(new BookImportErrorDto(2, "Неизвестный жанр: SPACE_OPERA"));
+        assertThat(bookRepository.findAll()).extracting(Book::getTitle)
+                .containsExactlyInAnyOrder("Refactoring, 2nd \"Edition\"", "Multi\nline");
+        assertThat(bookRepository.findAll()).extracting(Book::getGenre)
+                .containsExactlyInAnyOrder(Genre.PROGRAMMING, Genre.ROMANCE);
+    }
+
+    @Test
+    @DisplayName("Должен отклонять CSV без обязательных колонок")
+    void shouldRejectCsvWithoutRequiredColumns() {
+        var csv = "name,author\n1984,George Orwell\n";
+        assertThrows(
+                BookImportException.class,
+                () -> importService.importCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)))
+        );
+    }
+}
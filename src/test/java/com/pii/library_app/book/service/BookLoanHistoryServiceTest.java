@@ -0,0 +1,58 @@
+package com.pii.library_app.book.service;
+
+import com.pii.library_app.book.dto.LoanHistoryDto;
+import com.pii.library_app.book.repo.BorrowedBookRepository;
+import com.pii.library_app.user.service.UserIdResolver;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class BookLoanHistoryServiceTest {
+
+    @Mock
+    private BorrowedBookRepository borrowedBookRepository;
+    @Mock
+    private UserIdResolver userIdResolver;
+    @InjectMocks
+    private BookLoanHistoryService loanHistoryService;
+
+    @Test
+    @DisplayName("Первая страница истории - запрашивает на одну запись больше и возвращает курсор")
+    void shouldReturnNextCursorWhenMoreLoansExist() {
+        when(userIdResolver.resolve("testUser")).thenReturn(7L);
+        when(borrowedBookRepository.findHistoryByUser(7L, Long.MAX_VALUE, PageRequest.of(0, 3)))
+                .thenReturn(List.of(loan(30L), loan(20L), loan(10L)));
+
+        var page = loanHistoryService.getOwnHistory("testUser", null, 2);
+
+        assertThat(page.loans()).extracting(LoanHistoryDto::id).containsExactly(30L, 20L);
+        assertThat(page.nextCursor()).isEqualTo(20L);
+    }
+
+    @Test
+    @DisplayName("Последняя страница истории - без курсора следующей страницы")
+    void shouldNotReturnCursorOnLastPage() {
+        when(borrowedBookRepository.findHistoryByBook(1L, 20L, PageRequest.of(0, 3)))
+                .thenReturn(List.of(loan(10L)));
+
+        var page = loanHistoryService.getBookHistory(1L, 20L, 2);
+
+        assertThat(page.loans()).extracting(LoanHistoryDto::id).containsExactly(10L);
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    private LoanHistoryDto loan(Long id) {
+        return new LoanHistoryDto(id, 1L, "1984", "George Orwell", 7L, "testUser", LocalDateTime.now(), null);
+    }
+}
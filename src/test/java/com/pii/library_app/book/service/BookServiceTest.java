@@ -1,16 +1,30 @@
 package com.pii.library_app.book.service;
 
+import com.pii.library_app.book.dto.BookDto;
+import com.pii.library_app.book.dto.BookPageRequest;
 import com.pii.library_app.book.dto.CreateBookDto;
 import com.pii.library_app.book.dto.SearchBookFilterDto;
+import com.pii.library_app.book.dto.SearchBookResponseDto;
+import com.pii.library_app.book.dto.SearchCountMode;
+import com.pii.library_app.book.event.BookChangedEvent;
+import com.pii.library_app.book.exception.BookAlreadyBorrowedException;
 import com.pii.library_app.book.exception.BookNotAvailableException;
 import com.pii.library_app.book.exception.BookNotBorrowedException;
 import com.pii.library_app.book.exception.BookNotFoundException;
+import com.pii.library_app.book.exception.InvalidBookCopiesException;
 import com.pii.library_app.book.model.Book;
 import com.pii.library_app.book.model.BorrowedBook;
 import com.pii.library_app.book.model.Genre;
+import com.pii.library_app.book.repo.BookCountEstimator;
 import com.pii.library_app.book.repo.BookRepository;
 import com.pii.library_app.book.repo.BorrowedBookRepository;
+import com.pii.library_app.book.search.BookCatalogue;
+import com.pii.library_app.book.search.BookSearchCache;
+import com.pii.library_app.book.search.BookTextIndex;
+import com.pii.library_app.config.datasource.ReplicaLagGuard;
 import com.pii.library_app.user.service.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -18,13 +32,21 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.sql.SQLException;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.TreeSet;
 
 import static com.pii.library_app.util.TestDataFactory.createTestBook;
 import static com.pii.library_app.util.TestDataFactory.createTestUser;
@@ -43,6 +65,26 @@ public class BookServiceTest {
     private BookService bookService;
     @Mock
     private BorrowedBookRepository borrowedBookRepository;
+    @Mock
+    private BookCountEstimator countEstimator;
+    @Mock
+    private BookTextIndex textIndex;
+    @Mock
+    private BookCatalogue catalogue;
+    @Spy
+    private BookSearchCache searchCache = new BookSearchCache(new SimpleMeterRegistry(), new ReplicaLagGuard(Duration.ZERO, 0), false, 0, Duration.ZERO);
+    @Mock
+    private BookCopyLedger copyLedger;
+    @Mock
+    private BookLoanMetrics loanMetrics;
+    @Mock
+    private ReplicaLagGuard lagGuard;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private static final BookPageRequest FIRST_PAGE = new BookPageRequest(null, 20, SearchCountMode.EXACT);
 
     @BeforeEach
     void setUp() {
@@ -60,6 +102,7 @@ public class BookServiceTest {
         assertThat(savedBook.getAuthor()).isEqualTo("Рэй Брэдбери");
         assertThat(savedBook.getGenre()).isEqualTo(Genre.DYSTOPIAN);
         verify(bookRepository, times(1)).save(any(Book.class));
+        verify(eventPublisher, times(1)).publishEvent(any(BookChangedEvent.class));
     }
 
     @Test
@@ -80,6 +123,28 @@ public class BookServiceTest {
         verify(bookRepository, times(1)).save(existingBook);
     }
 
+    @Test
+    @DisplayName("Обновление книги - число экземпляров меньше числа выданных")
+    void shouldThrowExceptionWhenShrinkingCopiesBelowBorrowed() {
+        var existingBook = createTestBook("Dune", "Frank Herbert", Genre.SCIENCE_FICTION);
+        existingBook.setId(1L);
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(existingBook));
+        when(bookRepository.save(existingBook)).thenReturn(existingBook);
+        when(bookRepository.resizeCopies(1L, 2)).thenReturn(0);
+
+        assertThrows(InvalidBookCopiesException.class,
+                () -> bookService.updateBook(1L, new CreateBookDto("Dune", "Frank Herbert", Genre.SCIENCE_FICTION, 2)));
+        verify(eventPublisher, never()).publishEvent(any(BookChangedEvent.class));
+    }
+
+    @Test
+    @DisplayName("Создание книги - неположительное число экземпляров")
+    void shouldRejectNonPositiveCopies() {
+        assertThrows(InvalidBookCopiesException.class,
+                () -> bookService.createBook(new CreateBookDto("Dune", "Frank Herbert", Genre.SCIENCE_FICTION, 0)));
+        verify(bookRepository, never()).save(any(Book.class));
+    }
+
     @Test
     @DisplayName("Обновление книги - книга не найдена")
     void shouldThrowExceptionWhenUpdatingNonExistentBook() {
@@ -111,12 +176,12 @@ public class BookServiceTest {
     void shouldSearchBooksByTitle() {
         var filter = new SearchBookFilterDto("1984", null, null);
         var book = createTestBook("1984", "George Orwell", Genre.DYSTOPIAN);
-        when(bookRepository.findAll(any(Specification.class))).thenReturn(List.of(book));
+        when(bookRepository.findBy(any(Specification.class), any())).thenReturn(List.of(book));
 
-        var result = bookService.searchBooks(filter);
+        var result = bookService.searchBooks(filter, FIRST_PAGE);
         assertThat(result.books()).hasSize(1);
-        assertThat(result.books().get(0).getTitle()).isEqualTo("1984");
-        verify(bookRepository, times(1)).findAll(any(Specification.class));
+        assertThat(result.books().get(0).title()).isEqualTo("1984");
+        verify(bookRepository, times(1)).findBy(any(Specification.class), any());
     }
 
 
@@ -126,12 +191,12 @@ public class BookServiceTest {
         // Arrange
         var filter = new SearchBookFilterDto(null, null, Genre.DYSTOPIAN);
         var book = createTestBook("1984", "George Orwell", Genre.DYSTOPIAN);
-        when(bookRepository.findAll(any(Specification.class))).thenReturn(List.of(book));
+        when(bookRepository.findBy(any(Specification.class), any())).thenReturn(List.of(book));
 
-        var result = bookService.searchBooks(filter);
+        var result = bookService.searchBooks(filter, FIRST_PAGE);
         assertThat(result.books()).hasSize(1);
-        assertThat(result.books().get(0).getGenre()).isEqualTo(Genre.DYSTOPIAN);
-        verify(bookRepository, times(1)).findAll(any(Specification.class));
+        assertThat(result.books().get(0).genre()).isEqualTo(Genre.DYSTOPIAN);
+        verify(bookRepository, times(1)).findBy(any(Specification.class), any());
     }
 
     @Test
@@ -140,13 +205,13 @@ public class BookServiceTest {
         var filter = new SearchBookFilterDto("1984", "George Orwell", null);
         var book1 = createTestBook("1984", "George Orwell", Genre.DYSTOPIAN);
         var book2 = createTestBook("Animal Farm", "George Orwell", Genre.DYSTOPIAN);
-        when(bookRepository.findAll(any(Specification.class))).thenReturn(List.of(book1, book2));
+        when(bookRepository.findBy(any(Specification.class), any())).thenReturn(List.of(book1, book2));
 
-        var result = bookService.searchBooks(filter);
+        var result = bookService.searchBooks(filter, FIRST_PAGE);
         assertThat(result.books()).hasSize(2);
-        assertThat(result.books().get(0).getTitle()).isEqualTo("1984");
-        assertThat(result.books().get(1).getTitle()).isEqualTo("Animal Farm");
-        verify(bookRepository, times(1)).findAll(any(Specification.class));
+        assertThat(result.books().get(0).title()).isEqualTo("1984");
+        assertThat(result.books().get(1).title()).isEqualTo("Animal Farm");
+        verify(bookRepository, times(1)).findBy(any(Specification.class), any());
     }
 
     @Test
@@ -155,11 +220,93 @@ public class BookServiceTest {
         var filter = new SearchBookFilterDto(null, null, null);
         var book1 = createTestBook("1984", "George Orwell", Genre.DYSTOPIAN);
         var book2 = createTestBook("Animal Farm", "George Orwell", Genre.DYSTOPIAN);
-        when(bookRepository.findAll()).thenReturn(List.of(book1, book2));
+        when(bookRepository.findBy(any(Specification.class), any())).thenReturn(List.of(book1, book2));
+        when(bookRepository.count(any(Specification.class))).thenReturn(2L);
 
-        var result = bookService.searchBooks(filter);
+        var result = bookService.searchBooks(filter, FIRST_PAGE);
+        assertThat(result.books()).hasSize(2);
         assertThat(result.totalCount()).isEqualTo(2L);
-        verify(bookRepository, times(1)).findAll();
+        assertThat(result.nextCursor()).isNull();
+        verify(bookRepository, never()).findAll();
+    }
+
+    @Test
+    @DisplayName("Поиск книг - возвращает курсор следующей страницы, если книг больше размера страницы")
+    void shouldReturnNextCursorWhenMoreBooksThanPageSize() {
+        var filter = new SearchBookFilterDto(null, null, null);
+        var book1 = createTestBook("1984", "George Orwell", Genre.DYSTOPIAN);
+        book1.setId(10L);
+        var book2 = createTestBook("Animal Farm", "George Orwell", Genre.DYSTOPIAN);
+        book2.setId(11L);
+        var book3 = createTestBook("Brave New World", "Aldous Huxley", Genre.DYSTOPIAN);
+        book3.setId(12L);
+        when(bookRepository.findBy(any(Specification.class), any())).thenReturn(List.of(book1, book2, book3));
+
+        var result = bookService.searchBooks(filter, new BookPageRequest(9L, 2, SearchCountMode.NONE));
+        assertThat(result.books()).containsExactly(BookDto.fromEntity(book1), BookDto.fromEntity(book2));
+        assertThat(result.nextCursor()).isEqualTo(11L);
+        assertThat(result.totalCount()).isNull();
+        verify(bookRepository, never()).count(any(Specification.class));
+    }
+
+    @Test
+    @DisplayName("Поиск книг без фильтров - оценивает количество по статистике БД")
+    void shouldEstimateTotalCountWhenNoFilterProvided() {
+        var filter = new SearchBookFilterDto(null, null, null);
+        when(bookRepository.findBy(any(Specification.class), any())).thenReturn(List.of());
+        when(countEstimator.estimateTotal()).thenReturn(Optional.of(250_000L));
+
+        var result = bookService.searchBooks(filter, new BookPageRequest(null, 20, SearchCountMode.ESTIMATE));
+        assertThat(result.totalCount()).isEqualTo(250_000L);
+        verify(bookRepository, never()).count(any(Specification.class));
+    }
+
+    @Test
+    @DisplayName("Поиск книг по названию - использует поисковый индекс, если он построен")
+    void shouldSearchBooksByTitleUsingTextIndex() {
+        var filter = new SearchBookFilterDto("orw", null, null);
+        var book1 = createTestBook("1984", "George Orwell", Genre.DYSTOPIAN);
+        book1.setId(2L);
+        var book2 = createTestBook("Animal Farm", "George Orwell", Genre.DYSTOPIAN);
+        book2.setId(3L);
+        when(textIndex.isReady()).thenReturn(true);
+        when(textIndex.match("orw", null, null)).thenReturn(new TreeSet<>(List.of(2L, 3L, 4L)));
+        when(bookRepository.findAllById(List.of(2L, 3L))).thenReturn(List.of(book2, book1));
+
+        var result = bookService.searchBooks(filter, new BookPageRequest(null, 2, SearchCountMode.EXACT));
+        assertThat(result.books()).containsExactly(BookDto.fromEntity(book1), BookDto.fromEntity(book2));
+        assertThat(result.nextCursor()).isEqualTo(3L);
+        assertThat(result.totalCount()).isEqualTo(3L);
+        verify(bookRepository, never()).findBy(any(Specification.class), any());
+    }
+
+    @Test
+    @DisplayName("Поиск книг по жанру и доступности - отвечает из каталога в памяти без запроса к БД")
+    void shouldSearchBooksInCatalogueWhenLoaded() {
+        var filter = new SearchBookFilterDto(null, null, Genre.DYSTOPIAN, true);
+        var book = createTestBook("1984", "George Orwell", Genre.DYSTOPIAN);
+        var response = new SearchBookResponseDto(List.of(BookDto.fromEntity(book)), 1L, null);
+        when(catalogue.isReady()).thenReturn(true);
+        when(catalogue.search(null, Genre.DYSTOPIAN, true, FIRST_PAGE)).thenReturn(response);
+
+        var result = bookService.searchBooks(filter, FIRST_PAGE);
+        assertThat(result).isSameAs(response);
+        verifyNoInteractions(bookRepository, textIndex);
+    }
+
+    @Test
+    @DisplayName("Поиск книг по релевантности - сохраняет порядок индекса")
+    void shouldReturnRankedBooksInIndexOrder() {
+        var book1 = createTestBook("1984", "George Orwell", Genre.DYSTOPIAN);
+        book1.setId(2L);
+        var book2 = createTestBook("Orwell: a biography", "Bernard Crick", Genre.DYSTOPIAN);
+        book2.setId(4L);
+        when(textIndex.isReady()).thenReturn(true);
+        when(textIndex.rank("orwell", 10)).thenReturn(List.of(4L, 2L));
+        when(bookRepository.findAllById(List.of(4L, 2L))).thenReturn(List.of(book1, book2));
+
+        var result = bookService.searchRanked("orwell", 10);
+        assertThat(result.books()).containsExactly(BookDto.fromEntity(book2), BookDto.fromEntity(book1));
     }
 
     @Test
@@ -169,9 +316,11 @@ public class BookServiceTest {
         String username = "testUser";
         Book book = createTestBook("1984", "George Orwell", Genre.DYSTOPIAN);
         book.setId(bookId);
-        book.setAvailable(true);
+        book.setAvailable(false);
         var user = createTestUser(username, "password");
         user.setId(1L);
+        when(copyLedger.tryReserve(bookId)).thenReturn(true);
+        when(bookRepository.takeCopy(bookId)).thenReturn(1);
         when(bookRepository.findById(bookId)).thenReturn(Optional.of(book));
         when(userService.findByUsername(username)).thenReturn(user);
         when(borrowedBookRepository.save(any(BorrowedBook.class))).thenAnswer(invocation -> invocation.getArgument(0));
@@ -181,26 +330,87 @@ public class BookServiceTest {
         assertThat(borrowedBook.getBook()).isEqualTo(book);
         assertThat(borrowedBook.getUser()).isEqualTo(user);
         assertThat(borrowedBook.getBorrowedAt()).isNotNull();
-        assertThat(book.isAvailable()).isFalse();
-        verify(bookRepository, times(1)).save(book);
+        verify(bookRepository, times(1)).takeCopy(bookId);
+        verify(loanMetrics, times(1)).borrowed();
+        verify(lagGuard).recordWrite(username);
+        verify(bookRepository, never()).save(any(Book.class));
         verify(borrowedBookRepository, times(1)).save(any(BorrowedBook.class));
     }
 
     @Test
-    @DisplayName("Бронирование книги - книга недоступна")
-    void shouldThrowExceptionWhenBookIsNotAvailable() {
+    @DisplayName("Бронирование книги - у пользователя уже есть невозвращенная выдача этой книги")
+    void shouldRejectSecondActiveLoanOfSameBook() {
         Long bookId = 1L;
         String username = "testUser";
         Book book = createTestBook("1984", "George Orwell", Genre.DYSTOPIAN);
         book.setId(bookId);
-        book.setAvailable(false);
+        when(copyLedger.tryReserve(bookId)).thenReturn(true);
+        when(bookRepository.takeCopy(bookId)).thenReturn(1);
         when(bookRepository.findById(bookId)).thenReturn(Optional.of(book));
+        when(userService.findByUsername(username)).thenReturn(createTestUser(username, "password"));
+        when(borrowedBookRepository.save(any(BorrowedBook.class))).thenThrow(new DataIntegrityViolationException(
+                "duplicate key",
+                new ConstraintViolationException("duplicate key", new SQLException(), "uq_borrowed_books_active_loan")
+        ));
+
+        assertThrows(BookAlreadyBorrowedException.class, () -> bookService.borrowBook(bookId, username));
+        verify(loanMetrics, times(1)).borrowRejected("already_borrowed");
+        verify(loanMetrics, never()).borrowed();
+    }
+
+    @Test
+    @DisplayName("Бронирование книги - книга недоступна")
+    void shouldThrowExceptionWhenBookIsNotAvailable() {
+        Long bookId = 1L;
+        String username = "testUser";
+        when(copyLedger.tryReserve(bookId)).thenReturn(true);
+        when(bookRepository.takeCopy(bookId)).thenReturn(0);
+        when(bookRepository.existsById(bookId)).thenReturn(true);
 
         assertThrows(BookNotAvailableException.class, () -> bookService.borrowBook(bookId, username));
+        verify(copyLedger, times(1)).markExhausted(bookId);
+        verify(loanMetrics, times(1)).borrowRejected("not_available");
         verify(bookRepository, never()).save(any(Book.class));
         verify(borrowedBookRepository, never()).save(any(BorrowedBook.class));
     }
 
+    @Test
+    @DisplayName("Бронирование книги - ошибка БД после резервирования возвращает резерв в учет")
+    void shouldReleaseReservationWhenTakeCopyFails() {
+        Long bookId = 1L;
+        when(copyLedger.tryReserve(bookId)).thenReturn(true);
+        when(bookRepository.takeCopy(bookId)).thenThrow(new QueryTimeoutException("lock timeout"));
+
+        assertThrows(QueryTimeoutException.class, () -> bookService.borrowBook(bookId, "testUser"));
+        verify(copyLedger, times(1)).release(bookId);
+        verify(eventPublisher, never()).publishEvent(any(BookChangedEvent.class));
+        verify(borrowedBookRepository, never()).save(any(BorrowedBook.class));
+    }
+
+    @Test
+    @DisplayName("Бронирование книги - все экземпляры разобраны, запрос отклонен без обращения к БД")
+    void shouldRejectBorrowWhenLedgerHasNoCopies() {
+        Long bookId = 1L;
+        when(copyLedger.tryReserve(bookId)).thenReturn(false);
+
+        assertThrows(BookNotAvailableException.class, () -> bookService.borrowBook(bookId, "testUser"));
+        verify(bookRepository, never()).takeCopy(any());
+        verify(loanMetrics, times(1)).borrowRejected("sold_out");
+        verify(borrowedBookRepository, never()).save(any(BorrowedBook.class));
+    }
+
+    @Test
+    @DisplayName("Бронирование книги - книга не найдена")
+    void shouldThrowExceptionWhenBorrowedBookNotFound() {
+        Long bookId = 1L;
+        when(copyLedger.tryReserve(bookId)).thenReturn(true);
+        when(bookRepository.takeCopy(bookId)).thenReturn(0);
+        when(bookRepository.existsById(bookId)).thenReturn(false);
+
+        assertThrows(BookNotFoundException.class, () -> bookService.borrowBook(bookId, "testUser"));
+        verify(borrowedBookRepository, never()).save(any(BorrowedBook.class));
+    }
+
     @Test
     @DisplayName("Возврат книги - книга не найдена")
     void shouldThrowExceptionWhenBookNotFound() {
@@ -229,18 +439,35 @@ public class BookServiceTest {
         when(userService.findByUsername("testUser")).thenReturn(user);
         when(borrowedBookRepository.findByUserAndBookAndReturnedAtIsNull(user, book))
                 .thenReturn(Optional.of(borrowedBook));
-        when(bookRepository.save(book)).thenReturn(book);
-        when(borrowedBookRepository.save(borrowedBook)).thenReturn(borrowedBook);
+        when(borrowedBookRepository.markReturned(eq(1L), any(LocalDateTime.class))).thenReturn(1);
+        when(bookRepository.releaseCopy(1L)).thenReturn(1);
 
         var returnedBook = bookService.returnBook(1L, "testUser");
         assertThat(returnedBook).isNotNull();
         assertThat(returnedBook.getReturnedAt()).isNotNull();
-        assertThat(book.isAvailable()).isTrue();
-        verify(bookRepository, times(1)).findById(1L);
+        verify(bookRepository, times(2)).findById(1L);
         verify(userService, times(1)).findByUsername("testUser");
         verify(borrowedBookRepository, times(1)).findByUserAndBookAndReturnedAtIsNull(user, book);
-        verify(bookRepository, times(1)).save(book);
-        verify(borrowedBookRepository, times(1)).save(borrowedBook);
+        verify(bookRepository, times(1)).releaseCopy(1L);
+        verify(bookRepository, never()).save(any(Book.class));
+    }
+
+    @Test
+    @DisplayName("Возврат книги - бронирование уже закрыто параллельным запросом")
+    void shouldThrowExceptionWhenBookReturnedConcurrently() {
+        var book = createTestBook("1984", "George Orwell", Genre.DYSTOPIAN);
+        book.setId(1L);
+        var user = createTestUser("testUser", "password");
+        var borrowedBook = new BorrowedBook(user, book, LocalDateTime.of(2025, 3, 20, 12, 0));
+        borrowedBook.setId(1L);
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        when(userService.findByUsername("testUser")).thenReturn(user);
+        when(borrowedBookRepository.findByUserAndBookAndReturnedAtIsNull(user, book))
+                .thenReturn(Optional.of(borrowedBook));
+        when(borrowedBookRepository.markReturned(eq(1L), any(LocalDateTime.class))).thenReturn(0);
+
+        assertThrows(BookNotBorrowedException.class, () -> bookService.returnBook(1L, "testUser"));
+        verify(bookRepository, never()).releaseCopy(any());
     }
 
     @Test
@@ -0,0 +1,148 @@
+package com.pii.library_app.book.stream;
+
+import com.pii.library_app.book.dto.BookAvailabilityDto;
+import com.pii.library_app.book.event.BookChangedEvent;
+import com.pii.library_app.book.event.BookChangedEvent.ChangeType;
+import com.pii.library_app.book.model.Genre;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookAvailabilityStreamTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private BookAvailabilityStream stream;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // отправка в потоке теста, буфер на две книги
+        stream = new BookAvailabilityStream(meterRegistry, Runnable::run,
+                10, 2, Duration.ofMillis(100), Duration.ofHours(1), Duration.ofMinutes(1));
+    }
+
+    @Test
+    @DisplayName("Подписчик получает только изменения книг из своего фильтра с версией счетчиков книги")
+    void shouldDeliverChangesMatchingFilter() {
+        var byId = new RecordingEmitter();
+        var byGenre = new RecordingEmitter();
+        stream.register(byId, Set.of(1L), null);
+        stream.register(byGenre, Set.of(), Genre.FANTASY);
+
+        change(ChangeType.BORROWED, 1L, Genre.DYSTOPIAN, 0, 1);
+        change(ChangeType.RETURNED, 2L, Genre.FANTASY, 1, 2);
+        stream.flush();
+
+        assertThat(byId.changes()).containsExactly(new BookAvailabilityDto(1L, Genre.DYSTOPIAN, false, 0, 1));
+        assertThat(byGenre.changes()).containsExactly(new BookAvailabilityDto(2L, Genre.FANTASY, true, 1, 2));
+    }
+
+    @Test
+    @DisplayName("Несколько изменений одной книги между рассылками приходят одним событием")
+    void shouldCoalesceBurstOfChanges() {
+        var emitter = new RecordingEmitter();
+        stream.register(emitter, Set.of(), null);
+
+        change(ChangeType.BORROWED, 1L, Genre.DYSTOPIAN, 1, 1);
+        change(ChangeType.BORROWED, 1L, Genre.DYSTOPIAN, 0, 2);
+        change(ChangeType.RETURNED, 1L, Genre.DYSTOPIAN, 1, 3);
+        stream.flush();
+
+        assertThat(emitter.changes()).containsExactly(new BookAvailabilityDto(1L, Genre.DYSTOPIAN, true, 1, 3));
+        assertThat(meterRegistry.get(BookAvailabilityStream.EVENTS_COUNTER_NAME).tag("outcome", "coalesced")
+                .counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Запоздавший снимок книги не заменяет более новый ни в буфере, ни после отправки")
+    void shouldDropOutOfOrderSnapshots() {
+        var emitter = new RecordingEmitter();
+        stream.register(emitter, Set.of(), null);
+
+        // возврат (версия 2) обработан раньше выдачи (версия 1), которая была зафиксирована первой
+        change(ChangeType.RETURNED, 1L, Genre.DYSTOPIAN, 1, 2);
+        change(ChangeType.BORROWED, 1L, Genre.DYSTOPIAN, 0, 1);
+        stream.flush();
+        change(ChangeType.BORROWED, 1L, Genre.DYSTOPIAN, 0, 1);
+        stream.flush();
+
+        assertThat(emitter.changes()).containsExactly(new BookAvailabilityDto(1L, Genre.DYSTOPIAN, true, 1, 2));
+    }
+
+    @Test
+    @DisplayName("Переполненный буфер заменяется событием resync")
+    void shouldSendResyncWhenBufferOverflows() {
+        var emitter = new RecordingEmitter();
+        stream.register(emitter, Set.of(), null);
+
+        change(ChangeType.BORROWED, 1L, Genre.DYSTOPIAN, 0, 1);
+        change(ChangeType.BORROWED, 2L, Genre.DYSTOPIAN, 0, 1);
+        change(ChangeType.BORROWED, 3L, Genre.DYSTOPIAN, 0, 1);
+        stream.flush();
+
+        assertThat(emitter.changes()).isEmpty();
+        assertThat(emitter.names()).containsExactly(BookAvailabilityStream.RESYNC_EVENT);
+
+        change(ChangeType.RETURNED, 3L, Genre.DYSTOPIAN, 1, 2);
+        stream.flush();
+        assertThat(emitter.changes()).containsExactly(new BookAvailabilityDto(3L, Genre.DYSTOPIAN, true, 1, 2));
+    }
+
+    @Test
+    @DisplayName("Отключившийся клиент удаляется из подписчиков")
+    void shouldDropDisconnectedSubscriber() {
+        var emitter = new RecordingEmitter();
+        emitter.disconnected = true;
+        stream.register(emitter, Set.of(), null);
+
+        change(ChangeType.BORROWED, 1L, Genre.DYSTOPIAN, 0, 1);
+        stream.flush();
+
+        assertThat(meterRegistry.get(BookAvailabilityStream.SUBSCRIBERS_GAUGE_NAME).gauge().value()).isZero();
+    }
+
+    private void change(ChangeType type, Long bookId, Genre genre, int availableCopies, long copiesVersion) {
+        stream.onBookChanged(new BookChangedEvent(type, bookId, "Book " + bookId, "Author", genre, availableCopies > 0,
+                1, availableCopies, copiesVersion));
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final List<Object> sent = new ArrayList<>();
+        private boolean disconnected;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (disconnected) {
+                throw new IOException("Broken pipe");
+            }
+            builder.build().forEach(part -> sent.add(part.getData()));
+        }
+
+        List<BookAvailabilityDto> changes() {
+            return sent.stream()
+                    .filter(BookAvailabilityDto.class::isInstance)
+                    .map(BookAvailabilityDto.class::cast)
+                    .toList();
+        }
+
+        List<String> names() {
+            return sent.stream()
+                    .filter(String.class::isInstance)
+                    .map(String.class::cast)
+                    .filter(text -> text.startsWith("event:"))
+                    .map(text -> text.substring("event:".length(), text.indexOf('\n')))
+                    .toList();
+        }
+    }
+}
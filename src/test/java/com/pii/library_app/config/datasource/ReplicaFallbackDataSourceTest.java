@@ -0,0 +1,98 @@
+package com.pii.library_app.config.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Маршрутизация соединений между двумя экземплярами H2: основной БД и репликой.
+ */
+public class ReplicaFallbackDataSourceTest {
+
+    private final DataSource primary = new DriverManagerDataSource("jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1", "sa", "");
+    private final DataSource replica = new DriverManagerDataSource("jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1", "sa", "");
+    private final ReplicaLagGuard lagGuard = new ReplicaLagGuard(Duration.ofMinutes(1), 100);
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() {
+        var dataSource = new LazyConnectionDataSourceProxy(primary);
+        dataSource.setReadOnlyDataSource(new ReplicaFallbackDataSource(replica, primary, lagGuard, Duration.ofMinutes(1)));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        var transactionManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Read-only транзакция читает с реплики, остальные - из основной БД")
+    void shouldRouteReadOnlyTransactionsToReplica() {
+        assertThat(readOnly.execute(status -> currentUrl())).startsWith("jdbc:h2:mem:replica");
+        assertThat(readWrite.execute(status -> currentUrl())).startsWith("jdbc:h2:mem:primary");
+        assertThat(currentUrl()).startsWith("jdbc:h2:mem:primary");
+    }
+
+    @Test
+    @DisplayName("Пользователь, который только что писал в БД, читает из основной БД")
+    void shouldReadOwnWritesFromPrimary() {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("reader", "password"));
+        lagGuard.recordWrite("other");
+        assertThat(readOnly.execute(status -> currentUrl())).startsWith("jdbc:h2:mem:replica");
+
+        lagGuard.recordWrite("reader");
+        assertThat(readOnly.execute(status -> currentUrl())).startsWith("jdbc:h2:mem:primary");
+    }
+
+    @Test
+    @DisplayName("Read-only транзакция внутри onPrimary читает из основной БД")
+    void shouldReadFromPrimaryInsideOnPrimary() {
+        assertThat(lagGuard.onPrimary(() -> readOnly.execute(status -> currentUrl()))).startsWith("jdbc:h2:mem:primary");
+        assertThat(readOnly.execute(status -> currentUrl())).startsWith("jdbc:h2:mem:replica");
+    }
+
+    @Test
+    @DisplayName("Недоступная реплика - чтение из основной БД без повторных попыток до истечения retry-after")
+    void shouldFallBackToPrimaryWhenReplicaUnavailable() throws SQLException {
+        var brokenReplica = mock(DataSource.class);
+        when(brokenReplica.getConnection()).thenThrow(new SQLException("Connection refused"));
+        var dataSource = new ReplicaFallbackDataSource(brokenReplica, primary, lagGuard, Duration.ofMinutes(1));
+
+        try (var first = dataSource.getConnection(); var second = dataSource.getConnection()) {
+            assertThat(first.getMetaData().getURL()).startsWith("jdbc:h2:mem:primary");
+            assertThat(second.getMetaData().getURL()).startsWith("jdbc:h2:mem:primary");
+        }
+        verify(brokenReplica, times(1)).getConnection();
+    }
+
+    private String currentUrl() {
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getURL());
+    }
+}
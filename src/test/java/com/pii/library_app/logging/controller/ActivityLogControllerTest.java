@@ -3,7 +3,9 @@ package com.pii.library_app.logging.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.pii.library_app.logging.dto.UserActivityLogDto;
 import com.pii.library_app.logging.service.UserActivityLogService;
+import com.pii.library_app.logging.writer.ActivityLogWriterStats;
 import com.pii.library_app.security.JwtAuthenticationFilter;
+import com.pii.library_app.web.ConcurrencyLimitFilter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -31,6 +33,8 @@ public class ActivityLogControllerTest {
     private UserActivityLogService logService;
     @MockitoBean
     private JwtAuthenticationFilter jwtAuthenticationFilter;
+    @MockitoBean
+    private ConcurrencyLimitFilter concurrencyLimitFilter;
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -51,4 +55,17 @@ public class ActivityLogControllerTest {
                 .andExpect(jsonPath("$[0].action").value("LOGIN"));
         verify(logService, times(1)).getLogsForUserLast24Hours(1L);
     }
+
+    @Test
+    @DisplayName("Получение состояния записи лога активности - успешный сценарий")
+    void shouldReturnWriterStats() throws Exception {
+        when(logService.getWriterStats())
+                .thenReturn(new ActivityLogWriterStats(5, 8192, 100, 95, 0, 0, 0, 4, 1.2, 3.4));
+        mockMvc.perform(get("/api/logs/writer-stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.queueDepth").value(5))
+                .andExpect(jsonPath("$.written").value(95))
+                .andExpect(jsonPath("$.dropped").value(0));
+        verify(logService, times(1)).getWriterStats();
+    }
 }
@@ -1,10 +1,12 @@
 package com.pii.library_app.logging.repo;
 
+import com.pii.library_app.logging.model.UserActivityLog;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 import static com.pii.library_app.util.TestDataFactory.createTestActivityLog;
@@ -47,4 +49,18 @@ public class UserActivityLogRepoTest {
         userActivityLogRepository.deleteById(savedLog.getId());
         assertTrue(userActivityLogRepository.findById(savedLog.getId()).isEmpty());
     }
+
+    @Test
+    @DisplayName("Должен находить логи пользователя за период")
+    void shouldFindLogsByUserBetween() {
+        var log1 = createTestActivityLog(1L, "LOGIN", "/api/login");
+        var log2 = createTestActivityLog(2L, "LOGIN", "/api/login");
+        List.of(log1, log2).forEach(userActivityLogRepository::save);
+        var now = LocalDateTime.now();
+
+        assertThat(userActivityLogRepository.findLogsByUserBetween(1L, now.minusDays(1), now.plusSeconds(1)))
+                .extracting(UserActivityLog::getUserId)
+                .containsExactly(1L);
+        assertThat(userActivityLogRepository.findLogsByUserBetween(1L, now.minusDays(2), now.minusDays(1))).isEmpty();
+    }
 }
@@ -0,0 +1,45 @@
+package com.pii.library_app.logging.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ActivityLogPartitionMaintenanceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Должен создавать секции на ближайшие дни и удалять секции старше срока хранения")
+    void shouldPremakeAndDropPartitions() {
+        var maintenance = new ActivityLogPartitionMaintenance(jdbcTemplate, Duration.ofDays(30), 2);
+        var now = LocalDateTime.of(2026, 10, 18, 0, 5);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq(now.minusDays(30))))
+                .thenReturn(List.of("user_activity_logs_legacy", "user_activity_logs_p20260917"));
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(0L);
+
+        maintenance.maintain(now);
+
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS user_activity_logs_p20261018 PARTITION OF user_activity_logs "
+                + "FOR VALUES FROM ('2026-10-18') TO ('2026-10-19')");
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS user_activity_logs_p20261019 PARTITION OF user_activity_logs "
+                + "FOR VALUES FROM ('2026-10-19') TO ('2026-10-20')");
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS user_activity_logs_p20261020 PARTITION OF user_activity_logs "
+                + "FOR VALUES FROM ('2026-10-20') TO ('2026-10-21')");
+        verify(jdbcTemplate).execute("DROP TABLE IF EXISTS \"user_activity_logs_legacy\"");
+        verify(jdbcTemplate).execute("DROP TABLE IF EXISTS \"user_activity_logs_p20260917\"");
+        verify(jdbcTemplate, never()).execute(startsWith("DELETE"));
+    }
+}
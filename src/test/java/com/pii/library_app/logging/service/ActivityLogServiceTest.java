@@ -2,6 +2,8 @@ package com.pii.library_app.logging.service;
 
 import com.pii.library_app.logging.model.UserActivityLog;
 import com.pii.library_app.logging.repo.UserActivityLogRepository;
+import com.pii.library_app.logging.writer.ActivityLogWriter;
+import com.pii.library_app.logging.writer.ActivityLogWriterStats;
 import com.pii.library_app.user.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -24,6 +26,8 @@ public class ActivityLogServiceTest {
     private UserActivityLogRepository logRepository;
     @Mock
     private UserService userService;
+    @Mock
+    private ActivityLogWriter logWriter;
     @InjectMocks
     private UserActivityLogService logService;
 
@@ -40,22 +44,30 @@ public class ActivityLogServiceTest {
     void getLogsForUserLast24Hours_ReturnsLogs() {
         var testUser = createTestUser("testuser", "password");
         when(userService.findUserById(eq(1L))).thenReturn(testUser);
-        when(logRepository.findLogsByUserSince(eq(1L), any(LocalDateTime.class))).thenReturn(List.of(log1, log2));
+        when(logRepository.findLogsByUserBetween(eq(1L), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(List.of(log1, log2));
         var result = logService.getLogsForUserLast24Hours(1L);
         assertThat(result).hasSize(2);
         assertThat(result.get(0).action()).isEqualTo("/last24h");
         assertThat(result.get(1).action()).isEqualTo("/last24h");
         verify(userService).findUserById(1L);
-        verify(logRepository).findLogsByUserSince(eq(1L), any(LocalDateTime.class));
+        verify(logRepository).findLogsByUserBetween(eq(1L), any(LocalDateTime.class), any(LocalDateTime.class));
     }
 
     @Test
     void getLogsForUserLast24Hours_WhenNoLogs_ReturnsEmptyList() {
         when(userService.findUserById(1L)).thenReturn(createTestUser("testuser", "password"));
-        when(logRepository.findLogsByUserSince(eq(1L), any(LocalDateTime.class))).thenReturn(List.of());
+        when(logRepository.findLogsByUserBetween(eq(1L), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(List.of());
         var result = logService.getLogsForUserLast24Hours(1L);
         assertThat(result).isEmpty();
         verify(userService).findUserById(1L);
-        verify(logRepository).findLogsByUserSince(eq(1L), any(LocalDateTime.class));
+        verify(logRepository).findLogsByUserBetween(eq(1L), any(LocalDateTime.class), any(LocalDateTime.class));
+    }
+
+    @Test
+    void getWriterStats_ReturnsWriterStats() {
+        var stats = new ActivityLogWriterStats(3, 8192, 10, 7, 0, 0, 0, 2, 1.5, 2.0);
+        when(logWriter.stats()).thenReturn(stats);
+        assertThat(logService.getWriterStats()).isEqualTo(stats);
+        verify(logWriter).stats();
     }
 }
@@ -0,0 +1,164 @@
+package com.pii.library_app.logging.writer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ActivityLogWriterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private ActivityLogWriter writer;
+
+    @AfterEach
+    void tearDown() {
+        if (writer != null && writer.isRunning()) {
+            writer.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Должен записывать накопленные записи пакетом")
+    void shouldFlushEventsInBatch() {
+        writer = new ActivityLogWriter(jdbcTemplate, 16, 8, 10_000, 50, BackpressurePolicy.DROP);
+        writer.start();
+        for (int i = 0; i < 8; i++) {
+            writer.enqueue(event(i));
+        }
+        writer.stop();
+
+        verify(jdbcTemplate, times(1)).batchUpdate(
+                anyString(), argThat((Collection<ActivityLogEvent> batch) -> batch.size() == 8), eq(8),
+                any(ParameterizedPreparedStatementSetter.class)
+        );
+        assertThat(writer.stats().written()).isEqualTo(8);
+        assertThat(writer.stats().dropped()).isZero();
+    }
+
+    @Test
+    @DisplayName("Должен писать напрямую, если фоновая запись не запущена")
+    void shouldWriteDirectlyWhenNotRunning() {
+        writer = new ActivityLogWriter(jdbcTemplate, 16, 8, 200, 50, BackpressurePolicy.DROP);
+        writer.enqueue(event(1));
+
+        verify(jdbcTemplate, times(1)).batchUpdate(
+                anyString(), anyCollection(), eq(1), any(ParameterizedPreparedStatementSetter.class)
+        );
+        assertThat(writer.stats().written()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Должен отбрасывать записи при переполнении буфера с политикой DROP")
+    void shouldDropEventsWhenBufferIsFull() throws Exception {
+        var flushStarted = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        blockWorkerFlush(flushStarted, release);
+        writer = new ActivityLogWriter(jdbcTemplate, 2, 1, 200, 50, BackpressurePolicy.DROP);
+        writer.start();
+
+        writer.enqueue(event(1));
+        assertThat(flushStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        writer.enqueue(event(2));
+        writer.enqueue(event(3));
+        writer.enqueue(event(4));
+        assertThat(writer.stats().dropped()).isEqualTo(1);
+        assertThat(writer.stats().queueDepth()).isEqualTo(2);
+
+        release.countDown();
+        writer.stop();
+        assertThat(writer.stats().written()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Должен писать в потоке запроса при переполнении буфера с политикой SPILL")
+    void shouldSpillEventsWhenBufferIsFull() throws Exception {
+        var flushStarted = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        blockWorkerFlush(flushStarted, release);
+        writer = new ActivityLogWriter(jdbcTemplate, 1, 1, 200, 50, BackpressurePolicy.SPILL);
+        writer.start();
+
+        writer.enqueue(event(1));
+        assertThat(flushStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        writer.enqueue(event(2));
+        writer.enqueue(event(3));
+        assertThat(writer.stats().spilled()).isEqualTo(1);
+        assertThat(writer.stats().written()).isEqualTo(1);
+
+        release.countDown();
+        writer.stop();
+        assertThat(writer.stats().written()).isEqualTo(3);
+        assertThat(writer.stats().dropped()).isZero();
+    }
+
+    @Test
+    @DisplayName("Должен ждать освобождения места при переполнении буфера с политикой BLOCK и не терять запись")
+    void shouldBlockUntilWriterDrainsWhenBufferIsFull() throws Exception {
+        var flushStarted = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        blockWorkerFlush(flushStarted, release);
+        writer = new ActivityLogWriter(jdbcTemplate, 1, 1, 200, 5_000, BackpressurePolicy.BLOCK);
+        writer.start();
+
+        writer.enqueue(event(1));
+        assertThat(flushStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        writer.enqueue(event(2));
+        var blocked = CompletableFuture.runAsync(() -> writer.enqueue(event(3)));
+        assertThatThrownBy(() -> blocked.get(200, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+        assertThat(writer.stats().queueDepth()).isEqualTo(1);
+
+        release.countDown();
+        blocked.get(5, TimeUnit.SECONDS);
+        writer.stop();
+        assertThat(writer.stats().written()).isEqualTo(3);
+        assertThat(writer.stats().dropped()).isZero();
+        assertThat(writer.stats().spilled()).isZero();
+    }
+
+    @Test
+    @DisplayName("Должен учитывать ошибки записи в БД")
+    void shouldCountFailedWrites() {
+        doThrow(new org.springframework.dao.DataAccessResourceFailureException("db is down"))
+                .when(jdbcTemplate)
+                .batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        writer = new ActivityLogWriter(jdbcTemplate, 16, 8, 200, 50, BackpressurePolicy.DROP);
+        writer.enqueue(event(1));
+
+        assertThat(writer.stats().failed()).isEqualTo(1);
+        assertThat(writer.stats().written()).isZero();
+    }
+
+    private void blockWorkerFlush(CountDownLatch flushStarted, CountDownLatch release) {
+        doAnswer(invocation -> {
+            if (Thread.currentThread().getName().equals("activity-log-writer")) {
+                flushStarted.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+            return new int[0][];
+        }).when(jdbcTemplate)
+                .batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    private static ActivityLogEvent event(long userId) {
+        return new ActivityLogEvent(userId, "searchBooks", "BookController", LocalDateTime.now());
+    }
+}
@@ -0,0 +1,64 @@
+package com.pii.library_app.metrics;
+
+import com.pii.library_app.logging.controller.UserActivityLogController;
+import com.pii.library_app.logging.service.UserActivityLogService;
+import com.pii.library_app.logging.writer.ActivityLogWriterStats;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ControllerMetricsAspectTest {
+
+    @Mock
+    private UserActivityLogService logService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private UserActivityLogController controller;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        var factory = new AspectJProxyFactory(new UserActivityLogController(logService));
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new ControllerMetricsAspect(meterRegistry));
+        controller = factory.getProxy();
+    }
+
+    @Test
+    @DisplayName("Должен измерять время успешного вызова метода контроллера")
+    void shouldTimeSuccessfulCall() {
+        when(logService.getWriterStats()).thenReturn(new ActivityLogWriterStats(0, 8192, 0, 0, 0, 0, 0, 0, 0, 0));
+
+        controller.getWriterStats();
+
+        var timer = meterRegistry.get(ControllerMetricsAspect.TIMER_NAME)
+                .tag("controller", "UserActivityLogController")
+                .tag("method", "getWriterStats")
+                .tag("outcome", "success")
+                .timer();
+        assertThat(timer.count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Должен помечать вызов с исключением именем класса исключения")
+    void shouldTagFailedCallWithExceptionName() {
+        when(logService.getWriterStats()).thenThrow(new IllegalStateException("boom"));
+
+        assertThrows(IllegalStateException.class, () -> controller.getWriterStats());
+
+        var timer = meterRegistry.get(ControllerMetricsAspect.TIMER_NAME)
+                .tag("outcome", "IllegalStateException")
+                .timer();
+        assertThat(timer.count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,145 @@
+package com.pii.library_app.security;
+
+import com.pii.library_app.security.jwt.JwtUtil;
+import com.pii.library_app.user.model.Role;
+import com.pii.library_app.user.model.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.time.Duration;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JwtAuthenticationFilterTest {
+
+    private static final String SECRET = "Y/aQcRmTIvybqtIqEfR4KhpqzlKQit+/Yi6igVW1dLg=";
+
+    @Mock
+    private UserDetailsService userDetailsService;
+
+    private JwtUtil jwtUtil;
+    private TokenRevocationService revocationService;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        jwtUtil = new JwtUtil(SECRET);
+        revocationService = new TokenRevocationService(Duration.ofHours(1), 1000);
+        SecurityContextHolder.clearContext();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Должен аутентифицировать пользователя по claims без обращения к БД")
+    void shouldAuthenticateFromClaimsWithoutUserLookup() throws Exception {
+        var filter = new JwtAuthenticationFilter(jwtUtil, userDetailsService, revocationService, meterRegistry, true);
+
+        filter.doFilter(requestWithToken(tokenFor(7L, "reader", Role.USER)), new MockHttpServletResponse(), new MockFilterChain());
+
+        var authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertThat(authentication).isNotNull();
+        assertThat(authentication.getName()).isEqualTo("reader");
+        assertThat(authentication.getPrincipal()).isInstanceOfSatisfying(AuthenticatedUser.class, user -> {
+            assertThat(user.id()).isEqualTo(7L);
+            assertThat(user.roles()).containsExactly(Role.USER);
+        });
+        assertThat(authentication.getAuthorities())
+                .extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ROLE_USER");
+        verifyNoInteractions(userDetailsService);
+        assertThat(validationCount("valid")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Должен загружать пользователя из БД в режиме без stateless-аутентификации")
+    void shouldLoadUserDetailsWhenStatelessModeIsDisabled() throws Exception {
+        var filter = new JwtAuthenticationFilter(jwtUtil, userDetailsService, revocationService, meterRegistry, false);
+        when(userDetailsService.loadUserByUsername("reader")).thenReturn(
+                org.springframework.security.core.userdetails.User.withUsername("reader")
+                        .password("encodedPassword")
+                        .roles("USER")
+                        .build()
+        );
+
+        filter.doFilter(requestWithToken(tokenFor(7L, "reader", Role.USER)), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication().getName()).isEqualTo("reader");
+        verify(userDetailsService, times(1)).loadUserByUsername("reader");
+    }
+
+    @Test
+    @DisplayName("Не должен аутентифицировать пользователя по отозванному токену")
+    void shouldNotAuthenticateRevokedToken() throws Exception {
+        var filter = new JwtAuthenticationFilter(jwtUtil, userDetailsService, revocationService, meterRegistry, true);
+        var token = tokenFor(7L, "reader", Role.USER);
+        revocationService.revokeToken(jwtUtil.parseToken(token).tokenId());
+
+        filter.doFilter(requestWithToken(token), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        assertThat(validationCount("revoked")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Не должен аутентифицировать пользователя, все токены которого отозваны")
+    void shouldNotAuthenticateTokenOfRevokedUser() throws Exception {
+        var filter = new JwtAuthenticationFilter(jwtUtil, userDetailsService, revocationService, meterRegistry, true);
+        var token = tokenFor(7L, "reader", Role.USER);
+        revocationService.revokeAllTokens("reader");
+
+        filter.doFilter(requestWithToken(token), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+
+    @Test
+    @DisplayName("Не должен аутентифицировать пользователя по подделанному токену")
+    void shouldNotAuthenticateTamperedToken() throws Exception {
+        var filter = new JwtAuthenticationFilter(jwtUtil, userDetailsService, revocationService, meterRegistry, true);
+
+        filter.doFilter(
+                requestWithToken(tokenFor(7L, "reader", Role.ADMIN) + "tampered"),
+                new MockHttpServletResponse(),
+                new MockFilterChain()
+        );
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        assertThat(validationCount("invalid")).isEqualTo(1);
+    }
+
+    private long validationCount(String outcome) {
+        return meterRegistry.get(JwtAuthenticationFilter.VALIDATION_TIMER_NAME).tag("outcome", outcome).timer().count();
+    }
+
+    private String tokenFor(Long id, String username, Role role) {
+        var user = new User(username, "encodedPassword", Set.of(role));
+        user.setId(id);
+        return jwtUtil.generateToken(user);
+    }
+
+    private static MockHttpServletRequest requestWithToken(String token) {
+        var request = new MockHttpServletRequest("POST", "/books/search");
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+}
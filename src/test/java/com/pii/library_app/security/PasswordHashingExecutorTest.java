@@ -0,0 +1,51 @@
+package com.pii.library_app.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PasswordHashingExecutorTest {
+
+    private final PasswordHashingExecutor executor =
+            new PasswordHashingExecutor(new SimpleMeterRegistry(), 1, 1, Duration.ofSeconds(5));
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.destroy();
+    }
+
+    @Test
+    @DisplayName("Должен возвращать результат задачи и пробрасывать ее исключение")
+    void shouldReturnResultAndRethrowFailure() {
+        assertThat(executor.call(() -> "hash")).isEqualTo("hash");
+        assertThatThrownBy(() -> executor.call(() -> {
+            throw new IllegalArgumentException("bad");
+        })).isInstanceOf(IllegalArgumentException.class).hasMessage("bad");
+    }
+
+    @Test
+    @DisplayName("Должен сразу отклонять задачу, когда пул и очередь заняты")
+    void shouldRejectWhenSaturated() throws Exception {
+        var started = new CountDownLatch(1);
+        CompletableFuture.runAsync(() -> executor.call(() -> {
+            started.countDown();
+            return release.await(10, TimeUnit.SECONDS);
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture.runAsync(() -> executor.call(() -> release.await(10, TimeUnit.SECONDS)));
+        Thread.sleep(100);
+
+        assertThatThrownBy(() -> executor.call(() -> "hash")).isInstanceOf(PasswordHashingBusyException.class);
+    }
+}
@@ -0,0 +1,113 @@
+package com.pii.library_app.security.config;
+
+import com.pii.library_app.book.stream.BookAvailabilityStream;
+import com.pii.library_app.security.jwt.JwtUtil;
+import com.pii.library_app.user.model.Role;
+import com.pii.library_app.user.repo.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Optional;
+import java.util.Set;
+
+import static com.pii.library_app.util.TestDataFactory.createTestUser;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Правила доступа цепочки фильтров. Method security не включена, поэтому {@code @PreAuthorize} на контроллерах
+ * ничего не ограничивает - эндпоинты ADMIN должны закрываться здесь.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = "JWT_SECRET_KEY=Y/aQcRmTIvybqtIqEfR4KhpqzlKQit+/Yi6igVW1dLg=")
+public class SecurityConfigTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JwtUtil jwtUtil;
+    @MockitoBean
+    private BookAvailabilityStream availabilityStream;
+
+    private String adminToken;
+
+    @BeforeEach
+    void setUp() {
+        var admin = createTestUser("admin", "password");
+        admin.addAll(Set.of(Role.USER, Role.ADMIN));
+        adminToken = jwtUtil.generateToken(userRepository.save(admin));
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "/books/export",
+            "/books/loans/users/1",
+            "/books/loans/active",
+            "/books/1/loans",
+            "/api/logs/last24h?userId=1",
+            "/api/logs/writer-stats"
+    })
+    @WithMockUser(username = "reader", roles = "USER")
+    @DisplayName("Пользователь без роли ADMIN получает 403 на эндпоинтах администратора")
+    void shouldForbidAdminEndpointsForUser(String url) throws Exception {
+        mockMvc.perform(get(url)).andExpect(status().isForbidden());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/books/export", "/books/loans/active"})
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    @DisplayName("Администратор получает доступ к эндпоинтам администратора")
+    void shouldAllowAdminEndpointsForAdmin(String url) throws Exception {
+        mockMvc.perform(get(url)).andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("Потоковая выгрузка с JWT дописывается в ASYNC-диспетчинге, где контекст безопасности уже очищен")
+    void shouldCompleteExportAsyncDispatchWithJwt() throws Exception {
+        var asyncResult = mockMvc.perform(get("/books/export")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + adminToken))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(asyncResult)).andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("Завершенная подписка SSE с JWT закрывается в ASYNC-диспетчинге без отказа в доступе")
+    void shouldCompleteAvailabilityStreamAsyncDispatchWithJwt() throws Exception {
+        var emitter = new SseEmitter();
+        when(availabilityStream.subscribe(any(), any())).thenReturn(Optional.of(emitter));
+        var asyncResult = mockMvc.perform(get("/books/availability/stream")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + adminToken))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        emitter.complete();
+        mockMvc.perform(asyncDispatch(asyncResult)).andExpect(status().isOk());
+    }
+}
@@ -63,4 +63,35 @@ public class JwtUtilTest {
         assertThatThrownBy(() -> jwtUtil.extractUsername(token))
                 .isInstanceOf(SignatureException.class);
     }
+
+    @Test
+    @DisplayName("Должен добавлять в токен ID пользователя, роли и идентификатор токена")
+    void shouldPutUserIdRolesAndTokenIdIntoClaims() {
+        var user = new User("claimsUser", "encodedPassword", Set.of(Role.USER, Role.ADMIN));
+        user.setId(42L);
+        var claims = jwtUtil.parseToken(jwtUtil.generateToken(user));
+        assertThat(claims.username()).isEqualTo("claimsUser");
+        assertThat(claims.userId()).isEqualTo(42L);
+        assertThat(claims.roles().containsAll(Set.of(Role.USER, Role.ADMIN))).isTrue();
+        assertThat(claims.tokenId()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Должен возвращать проверенный токен из кэша без повторного разбора")
+    void shouldReturnCachedClaimsForVerifiedToken() {
+        var user = new User("cachedUser", "encodedPassword", Set.of(Role.USER));
+        var token = jwtUtil.generateToken(user);
+        var first = jwtUtil.parseToken(token);
+        assertThat(jwtUtil.parseToken(token)).isSameAs(first);
+    }
+
+    @Test
+    @DisplayName("Не должен кэшировать подделанный токен")
+    void shouldNotCacheTamperedToken() {
+        var user = new User("cachedHacker", "encodedPassword", Set.of(Role.USER));
+        var token = jwtUtil.generateToken(user);
+        jwtUtil.parseToken(token);
+        assertThatThrownBy(() -> jwtUtil.parseToken(token + "tampered"))
+                .isInstanceOf(SignatureException.class);
+    }
 }
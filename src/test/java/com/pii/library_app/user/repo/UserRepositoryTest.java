@@ -45,4 +45,14 @@ class UserRepositoryTest {
         boolean exists = userRepository.existsByUsername("nouser");
         assertThat(exists).isFalse();
     }
+
+    @Test
+    @DisplayName("Должен находить только ID пользователя по имени")
+    void shouldFindUserIdByUsername() {
+        var user = createTestUser("idOnly", "password");
+        user.addAll(Set.of(Role.USER));
+        var saved = userRepository.save(user);
+        assertThat(userRepository.findIdByUsername("idOnly")).contains(saved.getId());
+        assertThat(userRepository.findIdByUsername("nouser")).isEmpty();
+    }
 }
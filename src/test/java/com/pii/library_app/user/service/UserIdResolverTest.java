@@ -0,0 +1,61 @@
+package com.pii.library_app.user.service;
+
+import com.pii.library_app.user.exception.UserNotFoundException;
+import com.pii.library_app.user.repo.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserIdResolverTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private UserIdResolver userIdResolver;
+
+    @BeforeEach
+    void setUp() {
+        userIdResolver = new UserIdResolver(userRepository, 100, Duration.ofMinutes(10));
+    }
+
+    @Test
+    @DisplayName("Должен загружать ID пользователя из БД только один раз")
+    void shouldCacheResolvedUserId() {
+        when(userRepository.findIdByUsername("testUser")).thenReturn(Optional.of(42L));
+        assertThat(userIdResolver.resolve("testUser")).isEqualTo(42L);
+        assertThat(userIdResolver.resolve("testUser")).isEqualTo(42L);
+        verify(userRepository, times(1)).findIdByUsername("testUser");
+        verify(userRepository, never()).findByUsername(anyString());
+    }
+
+    @Test
+    @DisplayName("Должен повторно загружать ID пользователя после инвалидации")
+    void shouldReloadUserIdAfterEviction() {
+        when(userRepository.findIdByUsername("testUser")).thenReturn(Optional.of(42L), Optional.of(43L));
+        assertThat(userIdResolver.resolve("testUser")).isEqualTo(42L);
+        userIdResolver.evict("testUser");
+        assertThat(userIdResolver.resolve("testUser")).isEqualTo(43L);
+        verify(userRepository, times(2)).findIdByUsername("testUser");
+    }
+
+    @Test
+    @DisplayName("Должен выбросить исключение и не кэшировать отсутствующего пользователя")
+    void shouldNotCacheMissingUser() {
+        when(userRepository.findIdByUsername("ghost")).thenReturn(Optional.empty(), Optional.of(7L));
+        assertThatThrownBy(() -> userIdResolver.resolve("ghost"))
+                .isInstanceOf(UserNotFoundException.class)
+                .hasMessageContaining("ghost");
+        assertThat(userIdResolver.resolve("ghost")).isEqualTo(7L);
+    }
+}
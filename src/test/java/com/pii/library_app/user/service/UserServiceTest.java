@@ -23,6 +23,8 @@ class UserServiceTest {
 
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private UserIdResolver userIdResolver;
 
     @InjectMocks
     private UserService userService;
@@ -89,6 +91,7 @@ class UserServiceTest {
         userService.createUser(user);
         verify(userRepository, times(1)).existsByUsername("newUser");
         verify(userRepository, times(1)).save(user);
+        verify(userIdResolver, times(1)).evict("newUser");
     }
 
     @Test
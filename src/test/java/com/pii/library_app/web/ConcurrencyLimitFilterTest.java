@@ -0,0 +1,90 @@
+package com.pii.library_app.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrencyLimitFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ConcurrencyLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new ConcurrencyLimitFilter(
+                new ObjectMapper().registerModule(new JavaTimeModule()), meterRegistry, 1, Duration.ZERO);
+    }
+
+    @Test
+    @DisplayName("Должен отклонять запрос с 503, пока лимит занят, и пропускать после освобождения")
+    void shouldRejectWhenLimitExceeded() throws Exception {
+        var nested = new AtomicReference<MockHttpServletResponse>();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/books/search"), new MockHttpServletResponse(), (req, res) -> {
+            var response = new MockHttpServletResponse();
+            filter.doFilter(new MockHttpServletRequest("GET", "/books/search"), response, (r, s) -> {
+            });
+            nested.set(response);
+        });
+
+        assertThat(nested.get().getStatus()).isEqualTo(503);
+        assertThat(nested.get().getHeader("Retry-After")).isEqualTo("1");
+        assertThat(nested.get().getContentAsString()).contains("\"status\":503");
+        assertThat(meterRegistry.get(ConcurrencyLimitFilter.REJECTED_COUNTER_NAME).counter().count()).isEqualTo(1);
+
+        var response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/books/search"), response, (req, res) -> {
+        });
+        assertThat(response.getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    @DisplayName("Асинхронный запрос должен держать лимит до завершения ответа")
+    void shouldHoldPermitUntilAsyncCompletes() throws Exception {
+        var request = new MockHttpServletRequest("GET", "/books/export");
+        request.setAsyncSupported(true);
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+        assertThat(meterRegistry.get(ConcurrencyLimitFilter.IN_FLIGHT_GAUGE_NAME).gauge().value()).isEqualTo(1);
+
+        var rejected = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/books/search"), rejected, (req, res) -> {
+        });
+        assertThat(rejected.getStatus()).isEqualTo(503);
+
+        request.getAsyncContext().complete();
+        assertThat(meterRegistry.get(ConcurrencyLimitFilter.IN_FLIGHT_GAUGE_NAME).gauge().value()).isZero();
+    }
+
+    @Test
+    @DisplayName("Не должен ограничивать запросы к actuator")
+    void shouldNotLimitActuator() throws Exception {
+        filter.doFilter(new MockHttpServletRequest("GET", "/books/search"), new MockHttpServletResponse(), (req, res) -> {
+            var response = new MockHttpServletResponse();
+            filter.doFilter(new MockHttpServletRequest("GET", "/actuator/prometheus"), response, (r, s) -> {
+            });
+            assertThat(response.getStatus()).isEqualTo(200);
+        });
+    }
+
+    @Test
+    @DisplayName("Не должен занимать лимит подпиской на доступность книг")
+    void shouldNotLimitAvailabilityStream() throws Exception {
+        var request = new MockHttpServletRequest("GET", "/books/availability/stream");
+        request.setAsyncSupported(true);
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+        assertThat(meterRegistry.get(ConcurrencyLimitFilter.IN_FLIGHT_GAUGE_NAME).gauge().value()).isZero();
+    }
+}